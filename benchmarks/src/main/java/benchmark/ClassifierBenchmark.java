@@ -0,0 +1,105 @@
+package benchmark;
+
+import app.DocumentClassifierApp;
+import classifier.IClassifier;
+import classifier.KNN;
+import classifier.NaiveBayesClassifier;
+import feature.IFeatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.Vocabulary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures classification of single testing documents by classifiers trained on the scaled training set.
+ * Training, including {@link NaiveBayesClassifier#train()}, is done in setup, so only classification is measured.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar ClassifierBenchmark -prof gc} to see allocation rate.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    /**
+     * Name of the classifier, as passed in command-line.
+     */
+    @Param({DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER, DocumentClassifierApp.KNN_CLASSIFIER})
+    public String classifierName;
+
+    /**
+     * Number of copies of the training set the classifier is trained on.
+     */
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    /**
+     * Number of nearest neighbours of {@link KNN}.
+     */
+    @Param({"5"})
+    public int neighbours;
+
+    /**
+     * The measured classifier.
+     */
+    private IClassifier classifier;
+
+    /**
+     * Classified documents with computed features.
+     */
+    private List<Document> testingSet;
+
+    /**
+     * Index of the next classified document.
+     */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Vocabulary vocabulary = new Vocabulary();
+        List<Document> trainingSet = Corpus.load(Corpus.TRAINING_SET, scale, vocabulary);
+        testingSet = Corpus.load(Corpus.TESTING_SET, 1, vocabulary);
+        IFeatureAlgorithm featureAlgorithm = DocumentClassifierApp.createFeatureAlgorithm(
+                DocumentClassifierApp.TF_IDF_FEATURE_ALG, trainingSet);
+        featureAlgorithm.createFeatures(trainingSet);
+        featureAlgorithm.createFeatures(testingSet);
+
+        if (classifierName.equals(DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER)) {
+            List<ClassificationClass> classificationClasses = Corpus.classificationClasses();
+            classifier = new NaiveBayesClassifier(trainingSet, classificationClasses);
+        } else {
+            classifier = new KNN(trainingSet, neighbours);
+        }
+    }
+
+    /**
+     * Classifies one testing document, cycling through all of them.
+     *
+     * @return assigned classification classes
+     */
+    @Benchmark
+    public List<ClassificationClass> classifyDocument() {
+        Document document = testingSet.get(next);
+        next = (next + 1) % testingSet.size();
+        return classifier.classifyDocument(document);
+    }
+}
@@ -0,0 +1,184 @@
+package benchmark;
+
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.Vocabulary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Bundled data sets scaled to the size wanted by a benchmark. The first copy of a data set is the original,
+ * the other copies are synthetic - each drops a random tenth of the terms of every document, so the copies
+ * are similar to the original but not equal to it.
+ * <p>
+ * Data sets are looked up in the folder given by system property {@code documentclassifier.data}, then
+ * in the working directory and its parent, so benchmarks run both from the repository and from the module.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public final class Corpus {
+
+    /**
+     * Folder with bundled training set.
+     */
+    public static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    public static final String TESTING_SET = "Test";
+
+    /**
+     * File with bundled classification classes.
+     */
+    public static final String CLASSIFICATION_CLASSES = "classes.txt";
+
+    /**
+     * Probability of dropping a term in synthetic copy of a document.
+     */
+    private static final double DROPPED_TERMS = 0.1;
+
+    /**
+     * Seed of random generator creating synthetic copies, so every run benchmarks the same data.
+     */
+    private static final long SEED = 42;
+
+    private Corpus() {
+    }
+
+    /**
+     * Returns path to bundled data set with given name.
+     *
+     * @param name name of the data set folder
+     * @return path to the folder
+     */
+    public static Path dataSet(String name) {
+        return find(name);
+    }
+
+    /**
+     * Loads bundled classification classes.
+     *
+     * @return list of classification classes
+     */
+    public static List<ClassificationClass> classificationClasses() {
+        return new FileLoader().loadClassificationClasses(find(CLASSIFICATION_CLASSES).toString());
+    }
+
+    /**
+     * Finds bundled file or folder with given name.
+     *
+     * @param name name of the file or folder
+     * @return path to the file or folder
+     */
+    private static Path find(String name) {
+        String dataFolder = System.getProperty("documentclassifier.data");
+        List<Path> candidates = new ArrayList<>();
+        if (dataFolder != null) {
+            candidates.add(Paths.get(dataFolder, name));
+        }
+        candidates.add(Paths.get(name));
+        candidates.add(Paths.get("..", name));
+        for (Path candidate : candidates) {
+            if (Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Data set not found, set -Ddocumentclassifier.data! (name: " + name + ")");
+    }
+
+    /**
+     * Loads bundled data set with given name scaled given number of times, interning its terms in given vocabulary.
+     *
+     * @param name       name of the data set folder
+     * @param scale      number of copies of the data set
+     * @param vocabulary vocabulary the terms are interned in
+     * @return loaded documents, the original ones first
+     */
+    public static List<Document> load(String name, int scale, Vocabulary vocabulary) {
+        List<Document> original = new FileLoader(vocabulary).loadDataSet(dataSet(name).toString());
+        Random random = new Random(SEED);
+        List<Document> documents = new ArrayList<>(original.size() * scale);
+        documents.addAll(original);
+        for (int copy = 1; copy < scale; copy++) {
+            for (Document document : original) {
+                documents.add(synthesize(document, random));
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Creates synthetic copy of given document, dropping random terms of it.
+     *
+     * @param document original document
+     * @param random   random generator
+     * @return copy of the document
+     */
+    private static Document synthesize(Document document, Random random) {
+        int[] terms = document.getTerms();
+        int[] kept = new int[terms.length];
+        int size = 0;
+        for (int term : terms) {
+            if (random.nextDouble() >= DROPPED_TERMS) {
+                kept[size++] = term;
+            }
+        }
+
+        Document copy = new Document();
+        copy.setContent(document.getContent());
+        copy.setClassificationClasses(document.getClassificationClasses());
+        copy.setTerms(Arrays.copyOf(kept, size));
+        return copy;
+    }
+
+    /**
+     * Creates temporary folder with files of bundled data set copied given number of times.
+     *
+     * @param name  name of the data set folder
+     * @param scale number of copies of the data set
+     * @return created folder
+     */
+    public static Path copyToTemporaryFolder(String name, int scale) {
+        try {
+            Path folder = Files.createTempDirectory("corpus");
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dataSet(name), Files::isRegularFile)) {
+                for (Path file : files) {
+                    for (int copy = 0; copy < scale; copy++) {
+                        Files.copy(file, folder.resolve(copy + "_" + file.getFileName()));
+                    }
+                }
+            }
+            return folder;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes given folder with everything in it.
+     *
+     * @param folder deleted folder
+     */
+    public static void delete(Path folder) {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
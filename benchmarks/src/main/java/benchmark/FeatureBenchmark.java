@@ -0,0 +1,95 @@
+package benchmark;
+
+import app.DocumentClassifierApp;
+import feature.IFeatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.Document;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures computing features of the whole training set with each feature algorithm, one document after another
+ * and in parallel. Statistics of {@code tfidf} are computed once in setup, only features are computed
+ * in the feature benchmarks.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar FeatureBenchmark -prof gc} to see allocation rate.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureBenchmark {
+
+    /**
+     * Name of the feature algorithm, as passed in command-line.
+     */
+    @Param({DocumentClassifierApp.TF_FEATURE_ALG, DocumentClassifierApp.TF_IDF_FEATURE_ALG,
+            DocumentClassifierApp.BIN_FEATURE_ALG, DocumentClassifierApp.HASHING_FEATURE_ALG,
+            DocumentClassifierApp.WORD_NGRAM_FEATURE_ALG, DocumentClassifierApp.CHAR_NGRAM_FEATURE_ALG})
+    public String featureAlgorithm;
+
+    /**
+     * Number of copies of the training set.
+     */
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    /**
+     * Documents features are computed for.
+     */
+    private List<Document> documents;
+
+    /**
+     * The measured feature algorithm.
+     */
+    private IFeatureAlgorithm algorithm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        documents = Corpus.load(Corpus.TRAINING_SET, scale, DocumentClassifierApp.createVocabulary(featureAlgorithm));
+        algorithm = DocumentClassifierApp.createFeatureAlgorithm(featureAlgorithm, documents);
+    }
+
+    /**
+     * Computes features of every document.
+     *
+     * @param blackhole consumer of the computed features
+     */
+    @Benchmark
+    public void createFeatures(Blackhole blackhole) {
+        for (Document document : documents) {
+            algorithm.createFeatures(document);
+            blackhole.consume(document.getFeatures());
+        }
+    }
+
+    /**
+     * Computes features of every document in parallel.
+     *
+     * @param blackhole consumer of the computed features
+     */
+    @Benchmark
+    public void createFeaturesInParallel(Blackhole blackhole) {
+        algorithm.createFeatures(documents);
+        for (Document document : documents) {
+            blackhole.consume(document.getFeatures());
+        }
+    }
+}
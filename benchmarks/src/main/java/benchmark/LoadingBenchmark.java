@@ -0,0 +1,93 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.Document;
+import utils.FileLoader;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading of documents from files - reading, tokenizing and interning terms. Every invocation
+ * starts with an empty vocabulary, so interning of new terms is measured as well.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar LoadingBenchmark -prof gc} to see allocation rate.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadingBenchmark {
+
+    /**
+     * Number of copies of the training set in the loaded folder.
+     */
+    @Param({"1", "4"})
+    public int scale;
+
+    /**
+     * Temporary folder with copies of the training set.
+     */
+    private Path folder;
+
+    /**
+     * Files in the folder.
+     */
+    private File[] files;
+
+    /**
+     * Index of the next loaded file.
+     */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        folder = Corpus.copyToTemporaryFolder(Corpus.TRAINING_SET, scale);
+        files = folder.toFile().listFiles();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpus.delete(folder);
+    }
+
+    /**
+     * Loads the whole folder.
+     *
+     * @return loaded documents
+     */
+    @Benchmark
+    public List<Document> loadDataSet() {
+        return new FileLoader().loadDataSet(folder.toString());
+    }
+
+    /**
+     * Loads one file of the folder, cycling through all of them.
+     *
+     * @return loaded document
+     */
+    @Benchmark
+    public Document loadDocument() {
+        File file = files[next];
+        next = (next + 1) % files.length;
+        return new FileLoader().loadDocument(file);
+    }
+}
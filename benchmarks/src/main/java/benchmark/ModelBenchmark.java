@@ -0,0 +1,129 @@
+package benchmark;
+
+import app.DocumentClassifierApp;
+import classifier.NaiveBayesClassifier;
+import feature.TFIDF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.Document;
+import utils.FileLoader;
+import utils.FileSaver;
+import utils.Model;
+import utils.Vocabulary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving and loading of models trained on the scaled training set. Models of {@code knn} contain
+ * the training documents, models of {@code bayes} only statistics of the classes.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar ModelBenchmark -prof gc} to see allocation rate.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * Name of the classifier of the model, as passed in command-line.
+     */
+    @Param({DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER, DocumentClassifierApp.KNN_CLASSIFIER})
+    public String classifierName;
+
+    /**
+     * Number of copies of the training set the model is trained on.
+     */
+    @Param({"1", "4", "16"})
+    public int scale;
+
+    /**
+     * Temporary folder the model is saved in.
+     */
+    private Path folder;
+
+    /**
+     * The saved model.
+     */
+    private Model model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("model");
+        Vocabulary vocabulary = new Vocabulary();
+        List<Document> trainingSet = Corpus.load(Corpus.TRAINING_SET, scale, vocabulary);
+        TFIDF tfidf = new TFIDF(trainingSet);
+        tfidf.createFeatures(trainingSet);
+
+        model = new Model(folder.resolve(classifierName).toString());
+        model.setVocabulary(vocabulary);
+        model.setFeatureAlgorithm(DocumentClassifierApp.TF_IDF_FEATURE_ALG);
+        model.setClassifier(classifierName);
+        model.setClassificationClassesFile(Corpus.CLASSIFICATION_CLASSES);
+        model.setNumOfFrequencyDocuments(tfidf.getNumOfDocuments());
+        model.setDocumentFrequencies(tfidf.getDocumentFrequencies());
+        if (classifierName.equals(DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER)) {
+            NaiveBayesClassifier bayes = new NaiveBayesClassifier(trainingSet, Corpus.classificationClasses());
+            model.setTrainingSet(new ArrayList<>());
+            model.setTotalUniqueWords(bayes.getTotalUniqueWords());
+            model.setTotalWordsInClass(bayes.getTotalWordsInClass());
+            model.setTermCountsInClass(bayes.getTermCountsInClass());
+            model.setDocumentsInClass(bayes.getDocumentsInClass());
+            model.setNumOfTrainingDocuments(bayes.getNumOfDocuments());
+        } else {
+            model.setTrainingSet(trainingSet);
+            model.setNeighbours(5);
+        }
+        // the loading benchmark needs the file before the saving benchmark runs
+        new FileSaver().saveModel(model);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpus.delete(folder);
+    }
+
+    /**
+     * Saves the model.
+     */
+    @Benchmark
+    public void saveModel() {
+        new FileSaver().saveModel(model);
+    }
+
+    /**
+     * Loads the model and decodes all of its training documents, so loading is measured together
+     * with the work deferred until the documents are used.
+     *
+     * @param blackhole consumer of the loaded model
+     */
+    @Benchmark
+    public void loadModel(Blackhole blackhole) {
+        Model loaded = new FileLoader().loadModel(model.getName());
+        for (Document document : loaded.getTrainingSet()) {
+            blackhole.consume(document.getFeatures());
+        }
+        blackhole.consume(loaded);
+    }
+}
@@ -0,0 +1,160 @@
+package app;
+
+import classifier.ApproximateKNN;
+import classifier.IClassifier;
+import classifier.KNN;
+import classifier.Neighbour;
+import feature.IFeatureAlgorithm;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares {@link ApproximateKNN} with exact {@link KNN} on a testing set. For each tested value of efSearch,
+ * prints recall of the nearest neighbours found by approximate search, latency of both searches and accuracy
+ * of classification.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class ApproximateKNNReport {
+
+    /**
+     * Minimal number of parameters - training set folder, testing set folder, feature algorithm and number
+     * of neighbours. Any further parameters are tested values of efSearch.
+     */
+    public static final int MIN_PARAMS_COUNT = 4;
+
+    /**
+     * Values of efSearch tested when none are passed.
+     */
+    private static final int[] DEFAULT_EF_SEARCH_VALUES = {10, 20, 50, 100, 200};
+
+    public static void main(String[] args) {
+        if (args.length < MIN_PARAMS_COUNT) {
+            System.out.println("Usage: <training_set_folder> <testing_set_folder> <feature_algorithm> <k> [efSearch...]");
+            return;
+        }
+        int k = Integer.parseInt(args[3]);
+        int[] efSearchValues = DEFAULT_EF_SEARCH_VALUES;
+        if (args.length > MIN_PARAMS_COUNT) {
+            efSearchValues = Arrays.stream(args, MIN_PARAMS_COUNT, args.length).mapToInt(Integer::parseInt).toArray();
+        }
+
+        FileLoader fileLoader = new FileLoader();
+        List<Document> trainingSet = fileLoader.loadDataSet(args[0]);
+        List<Document> testingSet = fileLoader.loadDataSet(args[1]);
+        if (trainingSet == null || testingSet == null) {
+            return;
+        }
+        IFeatureAlgorithm featureAlgorithm = DocumentClassifierApp.createFeatureAlgorithm(args[2], trainingSet);
+        if (featureAlgorithm == null) {
+            System.out.println("Invalid feature algorithm name passed! (passed name: " + args[2] + ")");
+            return;
+        }
+        featureAlgorithm.createFeatures(trainingSet);
+        featureAlgorithm.createFeatures(testingSet);
+
+        KNN exact = new KNN(trainingSet, k);
+        List<List<Neighbour>> exactNeighbours = new ArrayList<>();
+        long[] exactLatencies = new long[testingSet.size()];
+        for (int round = 0; round < 2; round++) {    // first round warms up
+            exactNeighbours.clear();
+            for (int i = 0; i < testingSet.size(); i++) {
+                long start = System.nanoTime();
+                exactNeighbours.add(exact.findNearestNeighbours(testingSet.get(i)));
+                exactLatencies[i] = System.nanoTime() - start;
+            }
+        }
+
+        long buildStart = System.nanoTime();
+        ApproximateKNN graph = new ApproximateKNN(trainingSet, k, ApproximateKNN.DEFAULT_MAX_CONNECTIONS,
+                ApproximateKNN.DEFAULT_EF_CONSTRUCTION, ApproximateKNN.DEFAULT_EF_SEARCH);
+        System.out.printf("Graph of %d documents built in %.1f ms (M: %d, efConstruction: %d)%n", trainingSet.size(),
+                (System.nanoTime() - buildStart) / 1e6, graph.getMaxConnections(), graph.getEfConstruction());
+
+        System.out.printf("%-10s %-10s %-16s %-16s %-10s%n", "efSearch", "recall@" + k, "mean [ms]", "p99 [ms]", "accuracy");
+        System.out.printf("%-10s %-10.4f %-16.4f %-16.4f %-10.4f%n", "exact", 1.0, mean(exactLatencies),
+                percentile(exactLatencies, 0.99), accuracy(exact, testingSet));
+
+        for (int efSearch : efSearchValues) {
+            ApproximateKNN approximate = new ApproximateKNN(trainingSet, k, graph.getMaxConnections(),
+                    graph.getEfConstruction(), efSearch, graph.getGraph());
+            long[] latencies = new long[testingSet.size()];
+            int found = 0;
+            int total = 0;
+            for (int round = 0; round < 2; round++) {
+                found = 0;
+                total = 0;
+                for (int i = 0; i < testingSet.size(); i++) {
+                    long start = System.nanoTime();
+                    List<Neighbour> neighbours = approximate.findNearestNeighbours(testingSet.get(i));
+                    latencies[i] = System.nanoTime() - start;
+                    if (exactNeighbours.get(i) == null) {
+                        continue;
+                    }
+                    Set<Integer> exactDocuments = new HashSet<>();
+                    exactNeighbours.get(i).forEach(neighbour -> exactDocuments.add(neighbour.getDocument()));
+                    total += exactDocuments.size();
+                    for (Neighbour neighbour : neighbours) {
+                        if (exactDocuments.contains(neighbour.getDocument())) {
+                            found++;
+                        }
+                    }
+                }
+            }
+            System.out.printf("%-10d %-10.4f %-16.4f %-16.4f %-10.4f%n", efSearch, total == 0 ? 1.0 : (double) found / total,
+                    mean(latencies), percentile(latencies, 0.99), accuracy(approximate, testingSet));
+        }
+    }
+
+    /**
+     * Returns ratio of documents of testing set classified into one of their classes by given classifier.
+     *
+     * @param classifier tested classifier
+     * @param testingSet documents of testing set
+     * @return accuracy of the classifier
+     */
+    private static double accuracy(IClassifier classifier, List<Document> testingSet) {
+        int correct = 0;
+        for (Document document : testingSet) {
+            List<ClassificationClass> classified = classifier.classifyDocument(document);
+            if (classified != null && !classified.isEmpty()
+                    && document.hasClassificationClass(classified.get(0))) {
+                correct++;
+            }
+        }
+        return (double) correct / testingSet.size();
+    }
+
+    /**
+     * Returns mean of given latencies in milliseconds.
+     *
+     * @param latencies latencies in nanoseconds
+     * @return mean latency in milliseconds
+     */
+    private static double mean(long[] latencies) {
+        return Arrays.stream(latencies).average().orElse(0) / 1e6;
+    }
+
+    /**
+     * Returns given percentile of given latencies in milliseconds.
+     *
+     * @param latencies  latencies in nanoseconds
+     * @param percentile wanted percentile, between 0 and 1
+     * @return the percentile of latencies in milliseconds
+     */
+    private static double percentile(long[] latencies, double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,276 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.Prediction;
+import feature.IFeatureAlgorithm;
+import utils.Document;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classifies documents without user interface on a pool of worker threads. Each result is written as soon
+ * as the document is classified, as one JSON object per line with the name of the document, predicted class,
+ * score of the prediction and latency of the classification.
+ * <p>
+ * Terms of classified documents are only looked up in vocabulary of the model, so the vocabulary, feature
+ * algorithm and classifier are shared by all workers without locking.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class BatchClassifier {
+
+    /**
+     * Number of documents waiting for each worker. When the queue is full, the thread submitting documents
+     * classifies the next one itself, so documents are not read faster than they are classified.
+     */
+    private static final int QUEUED_DOCUMENTS_PER_THREAD = 4;
+
+    /**
+     * Classifier of the model.
+     */
+    private final IClassifier classifier;
+
+    /**
+     * Feature algorithm of the model.
+     */
+    private final IFeatureAlgorithm featureAlgorithm;
+
+    /**
+     * Vocabulary of the model.
+     */
+    private final Vocabulary vocabulary;
+
+    /**
+     * Number of worker threads.
+     */
+    private final int numOfThreads;
+
+    /**
+     * Stream the results are written to.
+     */
+    private final PrintStream output;
+
+    /**
+     * Tokenizer of each worker thread.
+     */
+    private final ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Number of classified documents.
+     */
+    private final LongAdder numOfClassified = new LongAdder();
+
+    /**
+     * Number of documents which could not be read.
+     */
+    private final LongAdder numOfFailed = new LongAdder();
+
+    /**
+     * Sum of latencies of classified documents in nanoseconds.
+     */
+    private final LongAdder totalLatency = new LongAdder();
+
+    /**
+     * The highest latency of a classified document in nanoseconds.
+     */
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Creates batch classifier. Given classifier must be fully trained, as it is used from several threads.
+     *
+     * @param classifier       classifier of the model
+     * @param featureAlgorithm feature algorithm of the model
+     * @param vocabulary       vocabulary of the model
+     * @param numOfThreads     number of worker threads
+     * @param output           stream the results are written to
+     */
+    public BatchClassifier(IClassifier classifier, IFeatureAlgorithm featureAlgorithm, Vocabulary vocabulary,
+                           int numOfThreads, PrintStream output) {
+        this.classifier = classifier;
+        this.featureAlgorithm = featureAlgorithm;
+        this.vocabulary = vocabulary;
+        this.numOfThreads = numOfThreads;
+        this.output = output;
+    }
+
+    /**
+     * Classifies every file in given folder, the whole content of a file being one document.
+     *
+     * @param folderPath path to folder with documents
+     */
+    public void classifyFolder(String folderPath) {
+        Path folder = Paths.get(folderPath);
+        if (!Files.isDirectory(folder)) {
+            System.out.println("Directory in given path was not found! (path: " + folderPath + ")");
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(folder, Files::isRegularFile)) {
+            directoryStream.forEach(files::add);
+        } catch (IOException e) {
+            System.out.println("Error while reading directory! (path: " + folderPath + ")");
+            return;
+        }
+        Collections.sort(files);
+
+        ThreadPoolExecutor executor = createExecutor();
+        long start = System.nanoTime();
+        for (Path file : files) {
+            // files are read by the workers, so reading overlaps with classification
+            executor.execute(() -> classify(file.toString(),
+                    () -> new String(Files.readAllBytes(file), StandardCharsets.UTF_8)));
+        }
+        finish(executor, start);
+    }
+
+    /**
+     * Classifies documents read from given reader, each line being one document. Documents are named
+     * by the number of their line.
+     *
+     * @param reader reader of the documents
+     */
+    public void classifyLines(BufferedReader reader) {
+        ThreadPoolExecutor executor = createExecutor();
+        long start = System.nanoTime();
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                String name = "stdin:" + ++lineNumber;
+                String content = line;
+                executor.execute(() -> classify(name, () -> content));
+            }
+        } catch (IOException e) {
+            System.out.println("Error while reading documents from input!");
+        }
+        finish(executor, start);
+    }
+
+    /**
+     * Creates pool of worker threads with bounded queue of documents.
+     *
+     * @return created executor
+     */
+    private ThreadPoolExecutor createExecutor() {
+        return new ThreadPoolExecutor(numOfThreads, numOfThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(numOfThreads * QUEUED_DOCUMENTS_PER_THREAD),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Waits until all submitted documents are classified and prints statistics of the run.
+     *
+     * @param executor pool of worker threads
+     * @param start    time the run started at, in nanoseconds
+     */
+    private void finish(ThreadPoolExecutor executor, long start) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            System.out.println("Batch classification was interrupted!");
+        }
+        output.flush();
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long classified = numOfClassified.sum();
+        System.out.printf(Locale.ROOT, "Classified %d documents (%d failed) in %.3f s on %d threads%n",
+                classified, numOfFailed.sum(), elapsedSeconds, numOfThreads);
+        System.out.printf(Locale.ROOT, "Throughput: %.1f documents/s, mean latency: %.3f ms, max latency: %.3f ms%n",
+                elapsedSeconds == 0 ? 0 : classified / elapsedSeconds,
+                classified == 0 ? 0 : totalLatency.sum() / 1e6 / classified, maxLatency.get() / 1e6);
+    }
+
+    /**
+     * Classifies one document and writes the result. Latency covers reading, tokenizing, computing features
+     * and classifying the document.
+     *
+     * @param name    name of the document
+     * @param content reader of content of the document
+     */
+    private void classify(String name, Callable<String> content) {
+        long start = System.nanoTime();
+        Prediction prediction;
+        try {
+            Document document = new Document();
+            document.setContent(content.call());
+            document.setTerms(tokenizers.get().lookup(document.getContent(), vocabulary));
+            featureAlgorithm.createFeatures(document);
+            prediction = classifier.predictDocument(document);
+        } catch (Exception e) {
+            numOfFailed.increment();
+            output.println("{\"file\":" + toJson(name) + ",\"error\":" + toJson(String.valueOf(e.getMessage())) + "}");
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        numOfClassified.increment();
+        totalLatency.add(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+
+        String className = prediction == null ? "null" : toJson(prediction.getClassificationClass().getName());
+        double score = prediction == null ? Double.NaN : prediction.getScore();
+        output.println("{\"file\":" + toJson(name) + ",\"class\":" + className
+                + ",\"score\":" + (Double.isNaN(score) ? "null" : String.format(Locale.ROOT, "%.6f", score))
+                + ",\"latency_ms\":" + String.format(Locale.ROOT, "%.3f", latency / 1e6) + "}");
+    }
+
+    /**
+     * Returns given text as JSON string literal.
+     *
+     * @param text text
+     * @return quoted and escaped text
+     */
+    static String toJson(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2);
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
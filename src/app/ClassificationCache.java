@@ -0,0 +1,313 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.Prediction;
+import feature.IFeatureAlgorithm;
+import utils.Document;
+import utils.TermNormalizer;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of predictions of one model, so a repeated document is classified only once. Documents are identified
+ * by a 64-bit hash of their terms, normalized the way the vocabulary of the model normalizes them, so documents
+ * differing only in case, punctuation or whitespace share one prediction - they get the same features anyway.
+ * Two different documents sharing a hash are practically impossible for the number of documents a cache holds.
+ * <p>
+ * The cache holds at most a given number of predictions, the least recently used one is removed when a new one
+ * does not fit, and each prediction expires after a given time. Predictions are valid only for the version
+ * of the model they were computed by, so the cache is cleared as soon as it sees that
+ * {@link IClassifier#getModelVersion()} changed, however the documents were added to the classifier. The cache
+ * can be used from several threads.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class ClassificationCache {
+
+    /**
+     * Maximal number of cached predictions unless other is set.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Time in nanoseconds after which a cached prediction expires, unless other is set.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * Character separating terms of a document in its hash, so the same letters split into different terms give
+     * different hash.
+     */
+    private static final char TERM_SEPARATOR = ' ';
+
+    /**
+     * Classifier of the model.
+     */
+    private final IClassifier classifier;
+
+    /**
+     * Feature algorithm of the model.
+     */
+    private final IFeatureAlgorithm featureAlgorithm;
+
+    /**
+     * Vocabulary of the model, only looked up.
+     */
+    private final Vocabulary vocabulary;
+
+    /**
+     * Maximal number of cached predictions.
+     */
+    private final int capacity;
+
+    /**
+     * Time in nanoseconds after which a cached prediction expires.
+     */
+    private final long timeToLive;
+
+    /**
+     * Cached predictions by hashes of documents, in order of their last use. Every access must hold its lock,
+     * as a lookup reorders the entries.
+     */
+    private final Map<Long, Entry> entries;
+
+    /**
+     * Version of the model the cached predictions were computed by. Every access must hold the lock
+     * of {@link #entries}.
+     */
+    private long modelVersion;
+
+    /**
+     * Tokenizer of each thread.
+     */
+    private final ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Number of lookups finding a valid prediction.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups finding no valid prediction.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates cache of predictions of given model holding {@link #DEFAULT_CAPACITY} predictions
+     * for {@link #DEFAULT_TIME_TO_LIVE}.
+     *
+     * @param classifier       classifier of the model
+     * @param featureAlgorithm feature algorithm of the model
+     * @param vocabulary       vocabulary of the model
+     */
+    public ClassificationCache(IClassifier classifier, IFeatureAlgorithm featureAlgorithm, Vocabulary vocabulary) {
+        this(classifier, featureAlgorithm, vocabulary, DEFAULT_CAPACITY, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates cache of predictions of given model.
+     *
+     * @param classifier       classifier of the model
+     * @param featureAlgorithm feature algorithm of the model
+     * @param vocabulary       vocabulary of the model
+     * @param capacity         maximal number of cached predictions
+     * @param timeToLive       time in nanoseconds after which a cached prediction expires
+     */
+    public ClassificationCache(IClassifier classifier, IFeatureAlgorithm featureAlgorithm, Vocabulary vocabulary,
+                               int capacity, long timeToLive) {
+        this.classifier = classifier;
+        this.featureAlgorithm = featureAlgorithm;
+        this.vocabulary = vocabulary;
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        this.modelVersion = classifier.getModelVersion();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ClassificationCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns prediction of given document content, classifying it only if no valid prediction is cached.
+     *
+     * @param content content of the document
+     * @return prediction of the document, or null if the document could not be classified
+     */
+    public Prediction predict(String content) {
+        long key = getKey(content);
+        Prediction prediction = get(key);
+        if (prediction != null) {
+            return prediction;
+        }
+
+        long version = classifier.getModelVersion();
+        Document document = new Document();
+        document.setContent(content);
+        document.setTerms(tokenizers.get().lookup(content, vocabulary));
+        featureAlgorithm.createFeatures(document);
+        prediction = classifier.predictDocument(document);
+        put(key, prediction, version);
+        return prediction;
+    }
+
+    /**
+     * Returns key of given document content in the cache - 64-bit FNV-1a hash of its normalized terms.
+     *
+     * @param content content of the document
+     * @return key of the document
+     */
+    public long getKey(CharSequence content) {
+        TermNormalizer normalizer = vocabulary.getNormalizer();
+        long[] hash = {0xCBF29CE484222325L};
+        tokenizers.get().tokenize(content, (buffer, length) -> {
+            if (normalizer != null) {
+                buffer = normalizer.normalize(buffer, length);
+                length = buffer.length;
+            }
+            long termHash = hash[0];
+            for (int i = 0; i < length; i++) {
+                termHash = (termHash ^ buffer[i]) * 0x100000001B3L;
+            }
+            hash[0] = (termHash ^ TERM_SEPARATOR) * 0x100000001B3L;
+        });
+        return mix(hash[0]);
+    }
+
+    /**
+     * Returns cached prediction of document with given key and counts the lookup as a hit or a miss.
+     *
+     * @param key key of the document
+     * @return cached prediction, or null if none is cached or it has expired
+     */
+    public Prediction get(long key) {
+        Entry entry;
+        synchronized (entries) {
+            clearIfModelChanged();
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.prediction;
+    }
+
+    /**
+     * Caches prediction of document with given key, removing the least recently used prediction if the cache
+     * is full. A prediction computed by other than the current version of the model is not cached.
+     *
+     * @param key          key of the document
+     * @param prediction   prediction of the document, not cached if null
+     * @param modelVersion version of the model read before the document was classified
+     */
+    public void put(long key, Prediction prediction, long modelVersion) {
+        if (prediction == null || capacity <= 0) {
+            return;
+        }
+        Entry entry = new Entry(prediction, System.nanoTime() + timeToLive);
+        synchronized (entries) {
+            clearIfModelChanged();
+            if (modelVersion == this.modelVersion) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached predictions if the model changed since they were computed. Must be called holding
+     * the lock of {@link #entries}.
+     */
+    private void clearIfModelChanged() {
+        long currentVersion = classifier.getModelVersion();
+        if (currentVersion != modelVersion) {
+            entries.clear();
+            modelVersion = currentVersion;
+        }
+    }
+
+    /**
+     * Removes all cached predictions.
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns number of cached predictions, including expired ones not removed yet.
+     *
+     * @return number of cached predictions
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns number of lookups finding a valid prediction.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of lookups finding no valid prediction.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Mixes bits of given hash, so hashes of similar documents differ in all bits.
+     *
+     * @param hash hash
+     * @return mixed hash
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Cached prediction with its expiration time.
+     */
+    private static final class Entry {
+
+        /**
+         * Cached prediction.
+         */
+        private final Prediction prediction;
+
+        /**
+         * Value of {@link System#nanoTime()} after which the prediction expires.
+         */
+        private final long expiresAt;
+
+        private Entry(Prediction prediction, long expiresAt) {
+            this.prediction = prediction;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
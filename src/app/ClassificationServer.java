@@ -0,0 +1,489 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.Prediction;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feature.IFeatureAlgorithm;
+import utils.Document;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves trained model over HTTP on localhost. Endpoints:
+ * <ul>
+ *     <li>{@code POST /classify} - body is one document, responds with JSON object with its class and score</li>
+ *     <li>{@code POST /classify/bulk} - each line of body is one document, responds with JSON array of results</li>
+ *     <li>{@code GET /stats} - responds with numbers of requests, batches and cache hits and p50 / p99 latency</li>
+ * </ul>
+ * Documents of concurrent requests are queued and classified together in batches, so work the classifier
+ * can share between documents is shared across requests. A batch is formed from whatever is waiting when
+ * a batching thread becomes free, so requests never wait for the batch to fill up. Predictions of documents
+ * may be kept in a {@link ClassificationCache}, so a repeated document is answered without being queued.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class ClassificationServer {
+
+    /**
+     * Port the server listens on when none is passed.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Maximal number of documents classified in one batch.
+     */
+    public static final int MAX_BATCH_SIZE = 64;
+
+    /**
+     * Number of threads handling requests for each batching thread. Handlers mostly wait for their batch.
+     */
+    private static final int HANDLERS_PER_BATCHER = 4;
+
+    /**
+     * Classifier of the model.
+     */
+    private final IClassifier classifier;
+
+    /**
+     * Feature algorithm of the model.
+     */
+    private final IFeatureAlgorithm featureAlgorithm;
+
+    /**
+     * Vocabulary of the model, only looked up.
+     */
+    private final Vocabulary vocabulary;
+
+    /**
+     * Port the server listens on.
+     */
+    private final int port;
+
+    /**
+     * Number of threads classifying batches.
+     */
+    private final int numOfBatchers;
+
+    /**
+     * Cache of predictions of the model, null if predictions are not cached.
+     */
+    private final ClassificationCache cache;
+
+    /**
+     * Documents waiting to be classified.
+     */
+    private final BlockingQueue<PendingDocument> pendingDocuments = new LinkedBlockingQueue<>();
+
+    /**
+     * Tokenizer of each handler thread.
+     */
+    private final ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Latencies of classify requests, from receiving the request to sending the response.
+     */
+    private final LatencyRecorder latencies = new LatencyRecorder();
+
+    /**
+     * Number of classified documents.
+     */
+    private final LongAdder numOfDocuments = new LongAdder();
+
+    /**
+     * Number of classified batches.
+     */
+    private final LongAdder numOfBatches = new LongAdder();
+
+    /**
+     * True once the server is stopping, documents are not accepted anymore.
+     */
+    private volatile boolean stopping;
+
+    /**
+     * The HTTP server, null when not running.
+     */
+    private HttpServer server;
+
+    /**
+     * Threads handling requests.
+     */
+    private ExecutorService handlers;
+
+    /**
+     * Threads classifying batches.
+     */
+    private ExecutorService batchers;
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.out.println("Usage: <model_name> [port] [batching_threads] [cache_size]");
+            return;
+        }
+        int port = DEFAULT_PORT;
+        int numOfBatchers = Runtime.getRuntime().availableProcessors();
+        int cacheSize = ClassificationCache.DEFAULT_CAPACITY;
+        try {
+            if (args.length >= 2) {
+                port = Integer.parseInt(args[1]);
+            }
+            if (args.length >= 3) {
+                numOfBatchers = Integer.parseInt(args[2]);
+            }
+            if (args.length == 4) {
+                cacheSize = Integer.parseInt(args[3]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port, number of threads or cache size! (passed: "
+                    + String.join(" ", args) + ")");
+            return;
+        }
+        if (port < 0 || port > 65535 || numOfBatchers < 1 || cacheSize < 0) {
+            System.out.println("Invalid port, number of threads or cache size! (passed: "
+                    + String.join(" ", args) + ")");
+            return;
+        }
+
+        DocumentClassifierApp app = new DocumentClassifierApp();
+        if (app.restoreModel(args[0], cacheSize) == null) {
+            return;
+        }
+        ClassificationServer server = new ClassificationServer(app.getClassifier(), app.getFeatureAlgorithm(),
+                app.getVocabulary(), port, numOfBatchers, app.getResultCache());
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.out.println("Server could not be started! (port: " + port + ")");
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Model \"" + args[0] + "\" served at http://localhost:" + server.getPort() + "/");
+    }
+
+    /**
+     * Creates server of given model. Given classifier must be fully trained, as it is used from several threads.
+     *
+     * @param classifier       classifier of the model
+     * @param featureAlgorithm feature algorithm of the model
+     * @param vocabulary       vocabulary of the model
+     * @param port             port to listen on, 0 for any free port
+     * @param numOfBatchers    number of threads classifying batches
+     */
+    public ClassificationServer(IClassifier classifier, IFeatureAlgorithm featureAlgorithm, Vocabulary vocabulary,
+                                int port, int numOfBatchers) {
+        this(classifier, featureAlgorithm, vocabulary, port, numOfBatchers, null);
+    }
+
+    /**
+     * Creates server of given model caching its predictions. Given classifier must be fully trained, as it is used
+     * from several threads.
+     *
+     * @param classifier       classifier of the model
+     * @param featureAlgorithm feature algorithm of the model
+     * @param vocabulary       vocabulary of the model
+     * @param port             port to listen on, 0 for any free port
+     * @param numOfBatchers    number of threads classifying batches
+     * @param cache            the cache of predictions of the same model, null to classify every document
+     */
+    public ClassificationServer(IClassifier classifier, IFeatureAlgorithm featureAlgorithm, Vocabulary vocabulary,
+                                int port, int numOfBatchers, ClassificationCache cache) {
+        this.classifier = classifier;
+        this.featureAlgorithm = featureAlgorithm;
+        this.vocabulary = vocabulary;
+        this.port = port;
+        this.numOfBatchers = numOfBatchers;
+        this.cache = cache;
+    }
+
+    /**
+     * Starts listening on localhost.
+     *
+     * @throws IOException thrown when the server cannot be bound to the port
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/classify", exchange -> handle(exchange, "/classify", false));
+        server.createContext("/classify/bulk", exchange -> handle(exchange, "/classify/bulk", true));
+        server.createContext("/stats", this::handleStats);
+        handlers = Executors.newFixedThreadPool(numOfBatchers * HANDLERS_PER_BATCHER);
+        server.setExecutor(handlers);
+
+        batchers = Executors.newFixedThreadPool(numOfBatchers);
+        for (int i = 0; i < numOfBatchers; i++) {
+            batchers.execute(this::classifyBatches);
+        }
+        server.start();
+    }
+
+    /**
+     * Stops the server. Requests already classified are answered, documents still waiting for classification
+     * are failed, so their requests are answered with 503.
+     */
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        stopping = true;
+        batchers.shutdownNow();
+        // handlers waiting for the documents answer before the server closes their connections
+        failPendingDocuments();
+        server.stop(1);
+        handlers.shutdown();
+        server = null;
+    }
+
+    /**
+     * Completes every document waiting in the queue exceptionally, so no handler waits for it forever.
+     */
+    private void failPendingDocuments() {
+        PendingDocument pendingDocument;
+        while ((pendingDocument = pendingDocuments.poll()) != null) {
+            pendingDocument.prediction.completeExceptionally(new RejectedExecutionException("server is stopping"));
+        }
+    }
+
+    /**
+     * Returns port the server listens on.
+     *
+     * @return port of the server
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * Handles classify request. Every request is answered, errors of classification with 500 and requests
+     * arriving while the server is stopping with 503.
+     *
+     * @param exchange request and response
+     * @param path     path of the endpoint, other paths under it are not found
+     * @param isBulk   true if each line of the request body is one document
+     * @throws IOException thrown when error occurs
+     */
+    private void handle(HttpExchange exchange, String path, boolean isBulk) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+                return;
+            }
+            classify(exchange, isBulk);
+        } catch (RejectedExecutionException e) {
+            respond(exchange, 503, "{\"error\":\"server is stopping\"}");
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "{\"error\":" + BatchClassifier.toJson(String.valueOf(e)) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Classifies documents in body of given request and sends the response.
+     *
+     * @param exchange request and response
+     * @param isBulk   true if each line of the request body is one document
+     * @throws IOException thrown when error occurs
+     */
+    private void classify(HttpExchange exchange, boolean isBulk) throws IOException {
+        long start = System.nanoTime();
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, "{\"error\":\"POST expected\"}");
+            return;
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        List<CompletableFuture<Prediction>> predictions = new ArrayList<>();
+        if (isBulk) {
+            for (String line : body.split("\n")) {
+                predictions.add(submit(line));
+            }
+        } else {
+            predictions.add(submit(body));
+        }
+
+        StringBuilder response = new StringBuilder();
+        try {
+            for (CompletableFuture<Prediction> prediction : predictions) {
+                response.append(response.length() == 0 ? "" : ",").append(toJson(prediction.get()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"error\":\"server is stopping\"}");
+            return;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                respond(exchange, 503, "{\"error\":\"server is stopping\"}");
+            } else {
+                respond(exchange, 500, "{\"error\":" + BatchClassifier.toJson(String.valueOf(e.getCause())) + "}");
+            }
+            return;
+        }
+        respond(exchange, 200, isBulk ? "[" + response + "]" : response.toString());
+        latencies.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Handles request for statistics.
+     *
+     * @param exchange request and response
+     * @throws IOException thrown when error occurs
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/stats")) {
+            respond(exchange, 404, "{\"error\":\"not found\"}");
+            return;
+        }
+        long batches = numOfBatches.sum();
+        long documents = numOfDocuments.sum();
+        respond(exchange, 200, String.format(Locale.ROOT,
+                "{\"requests\":%d,\"documents\":%d,\"batches\":%d,\"mean_batch_size\":%.2f,"
+                        + "\"cache_hits\":%d,\"cache_misses\":%d,\"cache_size\":%d,"
+                        + "\"mean_ms\":%.3f,\"p50_ms\":%.3f,\"p99_ms\":%.3f}",
+                latencies.getCount(), documents, batches, batches == 0 ? 0 : (double) documents / batches,
+                cache == null ? 0 : cache.getHits(), cache == null ? 0 : cache.getMisses(),
+                cache == null ? 0 : cache.size(),
+                latencies.getMeanMillis(), latencies.getPercentileMillis(50), latencies.getPercentileMillis(99)));
+    }
+
+    /**
+     * Computes features of given document in the calling thread and queues it for classification, unless its
+     * prediction is cached.
+     *
+     * @param content content of the document
+     * @return future completed with the prediction once the document is classified
+     * @throws RejectedExecutionException thrown when the server is stopping
+     */
+    private CompletableFuture<Prediction> submit(String content) {
+        if (stopping) {
+            throw new RejectedExecutionException("server is stopping");
+        }
+        long key = 0;
+        if (cache != null) {
+            key = cache.getKey(content);
+            Prediction prediction = cache.get(key);
+            if (prediction != null) {
+                return CompletableFuture.completedFuture(prediction);
+            }
+        }
+
+        Document document = new Document();
+        document.setContent(content);
+        document.setTerms(tokenizers.get().lookup(content, vocabulary));
+        featureAlgorithm.createFeatures(document);
+
+        PendingDocument pendingDocument = new PendingDocument(document);
+        if (cache != null) {
+            long documentKey = key;
+            long modelVersion = classifier.getModelVersion();
+            pendingDocument.prediction.thenAccept(prediction -> cache.put(documentKey, prediction, modelVersion));
+        }
+        pendingDocuments.add(pendingDocument);
+        if (stopping) {
+            // the queue may have been emptied by stop() before the document was added
+            failPendingDocuments();
+        }
+        return pendingDocument.prediction;
+    }
+
+    /**
+     * Takes waiting documents from the queue and classifies them in batches until interrupted.
+     */
+    private void classifyBatches() {
+        List<PendingDocument> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        List<Document> documents = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pendingDocuments.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingDocuments.drainTo(batch, MAX_BATCH_SIZE - 1);
+            for (PendingDocument pendingDocument : batch) {
+                documents.add(pendingDocument.document);
+            }
+
+            try {
+                List<Prediction> predictions = classifier.predictDocuments(documents);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).prediction.complete(predictions.get(i));
+                }
+            } catch (RuntimeException e) {
+                for (PendingDocument pendingDocument : batch) {
+                    pendingDocument.prediction.completeExceptionally(e);
+                }
+            }
+            numOfBatches.increment();
+            numOfDocuments.add(batch.size());
+            batch.clear();
+            documents.clear();
+        }
+    }
+
+    /**
+     * Sends response with given status and JSON body.
+     *
+     * @param exchange request and response
+     * @param status   HTTP status code
+     * @param json     body of the response
+     * @throws IOException thrown when error occurs
+     */
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Returns given prediction as JSON object.
+     *
+     * @param prediction prediction, or null if the document could not be classified
+     * @return JSON object with the class and score of the prediction
+     */
+    private static String toJson(Prediction prediction) {
+        if (prediction == null) {
+            return "{\"class\":null,\"score\":null}";
+        }
+        double score = prediction.getScore();
+        return "{\"class\":" + BatchClassifier.toJson(prediction.getClassificationClass().getName()) + ",\"score\":"
+                + (Double.isNaN(score) ? "null" : String.format(Locale.ROOT, "%.6f", score)) + "}";
+    }
+
+    /**
+     * Document waiting to be classified.
+     */
+    private static class PendingDocument {
+
+        /**
+         * Classified document.
+         */
+        private final Document document;
+
+        /**
+         * Future completed with the prediction once the document is classified.
+         */
+        private final CompletableFuture<Prediction> prediction = new CompletableFuture<>();
+
+        private PendingDocument(Document document) {
+            this.document = document;
+        }
+    }
+}
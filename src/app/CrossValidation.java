@@ -0,0 +1,256 @@
+package app;
+
+import classifier.ApproximateKNN;
+import classifier.IClassifier;
+import classifier.KNN;
+import classifier.Prediction;
+import feature.DocumentFrequencies;
+import feature.IFeatureAlgorithm;
+import feature.TFIDF;
+import feature.TermFrequency;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.SparseVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates accuracy of a classifier by k-fold cross-validation. The corpus is split into k folds, each fold is
+ * classified by a classifier trained on the other folds and the results of all folds are reported together.
+ * <p>
+ * The corpus is loaded and tokenized once. Features which do not depend on statistics of the corpus are computed
+ * once for each document and shared by all folds - for {@code tfidf} these are the term frequencies, which each
+ * fold only weighs by its own document frequencies. Document frequencies of a fold are the frequencies of the
+ * whole corpus without the held-out documents, so each fold counts only its own documents. Folds are run
+ * in parallel.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class CrossValidation {
+
+    /**
+     * Number of folds when none is passed.
+     */
+    public static final int DEFAULT_NUM_OF_FOLDS = 10;
+
+    /**
+     * Seed of random generator assigning documents to folds, so every run uses the same folds.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Documents of the corpus.
+     */
+    private final List<Document> corpus;
+
+    /**
+     * List of available classification classes.
+     */
+    private final List<ClassificationClass> classificationClasses;
+
+    /**
+     * Name of classifier.
+     */
+    private final String classifier;
+
+    /**
+     * Number of nearest neighbours of {@link KNN} and {@link ApproximateKNN}.
+     */
+    private final int neighbours;
+
+    /**
+     * Features of each document which are the same in every fold, indexed by position of the document in corpus.
+     * Term frequencies for {@code tfidf}, null for empty documents.
+     */
+    private final SparseVector[] sharedFeatures;
+
+    /**
+     * Document frequencies of the whole corpus, null if the feature algorithm does not need them.
+     */
+    private final DocumentFrequencies corpusFrequencies;
+
+    public static void main(String[] args) {
+        if (args.length < 4 || args.length > 6) {
+            System.out.println("Usage: <classes_file> <data_set_folder> <feature_algorithm> <classifier> [folds] [k]");
+            return;
+        }
+        int numOfFolds = DEFAULT_NUM_OF_FOLDS;
+        int neighbours = KNN.DEFAULT_K;
+        try {
+            if (args.length >= 5) {
+                numOfFolds = Integer.parseInt(args[4]);
+            }
+            if (args.length == 6) {
+                neighbours = Integer.parseInt(args[5]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of folds or neighbours! (passed: " + String.join(" ", args) + ")");
+            return;
+        }
+        if (numOfFolds < 2 || neighbours < 1) {
+            System.out.println("At least 2 folds and 1 neighbour are needed! (passed: " + String.join(" ", args) + ")");
+            return;
+        }
+        DocumentClassifierApp app = new DocumentClassifierApp();
+        if (!app.isFeatureAlgorithm(args[2]) || !app.isClassifier(args[3])) {
+            System.out.println("Invalid feature algorithm or classifier name passed! (passed: " + args[2] + " " + args[3] + ")");
+            return;
+        }
+        if (!DocumentClassifierApp.isCombinable(args[2], args[3])) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        FileLoader fileLoader = new FileLoader(DocumentClassifierApp.createVocabulary(args[2]));
+        List<ClassificationClass> classificationClasses = fileLoader.loadClassificationClasses(args[0]);
+        List<Document> corpus = fileLoader.loadDataSet(args[1]);
+        if (classificationClasses == null || corpus == null) {
+            return;
+        }
+        if (corpus.size() < numOfFolds) {
+            System.out.println("Data set has fewer documents than folds! (documents: " + corpus.size() + ")");
+            return;
+        }
+        CrossValidation crossValidation = new CrossValidation(corpus, classificationClasses, args[2], args[3], neighbours);
+        System.out.printf(Locale.ROOT, "Corpus loaded in %.3f s.%n", (System.nanoTime() - start) / 1e9);
+        crossValidation.run(numOfFolds);
+        System.out.printf(Locale.ROOT, "Cross-validation took %.3f s.%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Creates cross-validation of given classifier on given corpus, computing features shared by all folds.
+     *
+     * @param corpus                documents of the corpus
+     * @param classificationClasses list of available classification classes
+     * @param featureAlgorithm      name of feature algorithm
+     * @param classifier            name of classifier
+     * @param neighbours            number of nearest neighbours of {@link KNN} and {@link ApproximateKNN}
+     */
+    public CrossValidation(List<Document> corpus, List<ClassificationClass> classificationClasses,
+                           String featureAlgorithm, String classifier, int neighbours) {
+        this.corpus = corpus;
+        this.classificationClasses = classificationClasses;
+        this.classifier = classifier;
+        this.neighbours = neighbours;
+
+        boolean isTFIDF = featureAlgorithm.equals(DocumentClassifierApp.TF_IDF_FEATURE_ALG);
+        IFeatureAlgorithm sharedAlgorithm = isTFIDF
+                ? new TermFrequency() : DocumentClassifierApp.createFeatureAlgorithm(featureAlgorithm, corpus);
+        sharedAlgorithm.createFeatures(corpus);
+        this.sharedFeatures = new SparseVector[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) {
+            sharedFeatures[i] = corpus.get(i).getFeatures();
+        }
+        this.corpusFrequencies = isTFIDF ? DocumentFrequencies.count(corpus) : null;
+    }
+
+    /**
+     * Runs cross-validation with given number of folds and prints accuracy of each fold and report of all folds.
+     *
+     * @param numOfFolds number of folds
+     * @return report of classification of all documents, each classified by the classifier of its fold
+     */
+    public EvaluationReport run(int numOfFolds) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(SEED));
+        int[] folds = new int[corpus.size()];
+        for (int i = 0; i < order.size(); i++) {
+            folds[order.get(i)] = i % numOfFolds;
+        }
+
+        Prediction[] predictions = new Prediction[corpus.size()];
+        long[] latencies = new long[corpus.size()];
+        IntStream.range(0, numOfFolds).parallel().forEach(fold -> runFold(fold, folds, predictions, latencies));
+
+        double[] accuracies = new double[numOfFolds];
+        int[] sizes = new int[numOfFolds];
+        for (int i = 0; i < corpus.size(); i++) {
+            sizes[folds[i]]++;
+            if (predictions[i] != null && corpus.get(i).hasClassificationClass(predictions[i].getClassificationClass())) {
+                accuracies[folds[i]]++;
+            }
+        }
+        for (int fold = 0; fold < numOfFolds; fold++) {
+            accuracies[fold] /= sizes[fold];
+            System.out.printf(Locale.ROOT, "Fold %d: accuracy %.4f (%d documents)%n", fold + 1, accuracies[fold], sizes[fold]);
+        }
+        double mean = Arrays.stream(accuracies).average().orElse(0);
+        double variance = Arrays.stream(accuracies).map(accuracy -> (accuracy - mean) * (accuracy - mean)).sum()
+                / (numOfFolds - 1);
+        System.out.printf(Locale.ROOT, "Mean accuracy: %.4f +- %.4f (standard deviation of folds)%n%n", mean, Math.sqrt(variance));
+
+        // documents of each fold are classified in one thread, so the time of classification is the sum of latencies
+        EvaluationReport report = new EvaluationReport(corpus, Arrays.asList(predictions), latencies,
+                Arrays.stream(latencies).sum(), 1);
+        System.out.print(report.toText());
+        return report;
+    }
+
+    /**
+     * Trains classifier on all folds but given one and classifies documents of given fold by it.
+     *
+     * @param fold        index of the held-out fold
+     * @param folds       fold of each document, indexed by position of the document in corpus
+     * @param predictions prediction of each document, filled in for documents of the fold
+     * @param latencies   latency of classification of each document, filled in for documents of the fold
+     */
+    private void runFold(int fold, int[] folds, Prediction[] predictions, long[] latencies) {
+        List<Integer> heldOut = new ArrayList<>();
+        List<Integer> training = new ArrayList<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            (folds[i] == fold ? heldOut : training).add(i);
+        }
+
+        TFIDF tfidf = null;
+        if (corpusFrequencies != null) {
+            List<Document> heldOutDocuments = new ArrayList<>(heldOut.size());
+            for (int i : heldOut) {
+                heldOutDocuments.add(corpus.get(i));
+            }
+            tfidf = new TFIDF(corpusFrequencies.remove(heldOutDocuments));
+        }
+
+        List<Document> trainingSet = new ArrayList<>(training.size());
+        for (int i : training) {
+            trainingSet.add(copyWithFeatures(i, tfidf));
+        }
+        IClassifier foldClassifier = DocumentClassifierApp.createClassifier(classifier, trainingSet, classificationClasses,
+                neighbours, ApproximateKNN.DEFAULT_MAX_CONNECTIONS, ApproximateKNN.DEFAULT_EF_CONSTRUCTION,
+                ApproximateKNN.DEFAULT_EF_SEARCH);
+
+        for (int i : heldOut) {
+            Document document = copyWithFeatures(i, tfidf);
+            long start = System.nanoTime();
+            predictions[i] = foldClassifier.predictDocument(document);
+            latencies[i] = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Creates copy of document at given position with features of a fold, so folds do not share mutable documents.
+     *
+     * @param index position of the document in corpus
+     * @param tfidf feature algorithm of the fold, null if shared features are the features of each fold
+     * @return copy of the document
+     */
+    private Document copyWithFeatures(int index, TFIDF tfidf) {
+        Document original = corpus.get(index);
+        Document copy = new Document();
+        copy.setContent(original.getContent());
+        copy.setTerms(original.getTerms());
+        copy.setClassificationClasses(original.getClassificationClasses());
+        SparseVector features = sharedFeatures[index];
+        copy.setFeatures(tfidf == null || features == null ? features : tfidf.computeFeatures(features));
+        return copy;
+    }
+}
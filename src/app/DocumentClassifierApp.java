@@ -1,16 +1,27 @@
 package app;
 
+import classifier.ApproximateKNN;
 import classifier.IClassifier;
 import classifier.KNN;
 import classifier.NaiveBayesClassifier;
+import classifier.Prediction;
+import feature.CharacterNGramFrequency;
+import feature.FeatureSelection;
 import feature.IFeatureAlgorithm;
 import feature.TFIDF;
 import feature.TermBinary;
 import feature.TermFrequency;
+import feature.TermHashing;
+import feature.WordNGramFrequency;
 import utils.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -20,14 +31,44 @@ import java.util.List;
  */
 public class DocumentClassifierApp {
 
+    /**
+     * Prefix of command-line option with name of {@link TermNormalizer} of terms.
+     */
+    public static final String NORMALIZATION_OPTION = "--normalize=";
+    /**
+     * Command-line option adding labelled documents to trained model and saving it over the model file, followed
+     * by name of the model and folder with the documents.
+     */
+    public static final String UPDATE_OPTION = "--update";
     /**
      * Number of parameters required to perform supervised learning.
      */
     public static final int TRAINING_PARAMS_COUNT = 6;
+    /**
+     * Number of parameters required to perform supervised learning with given number of neighbours of {@link KNN}.
+     */
+    public static final int TRAINING_WITH_NEIGHBOURS_PARAMS_COUNT = 7;
+    /**
+     * Number of parameters required to perform supervised learning with given number of neighbours and parameters
+     * of the graph of {@link ApproximateKNN}.
+     */
+    public static final int TRAINING_WITH_GRAPH_PARAMS_COUNT = 10;
     /**
      * Number of parameters required to perform classifying of user input.
      */
     public static final int CLASSIFYING_PARAMS_COUNT = 1;
+    /**
+     * Number of parameters required to add labelled documents to trained model, including {@link #UPDATE_OPTION}.
+     */
+    public static final int UPDATING_PARAMS_COUNT = 3;
+    /**
+     * Number of parameters required to classify documents in a folder or on standard input without user interface.
+     */
+    public static final int BATCH_CLASSIFYING_PARAMS_COUNT = 3;
+    /**
+     * String passed as input folder in command-line to read documents from standard input, one per line.
+     */
+    public static final String STANDARD_INPUT = "-";
     /**
      * String representing name of {@link NaiveBayesClassifier} passed as parameter in command-line.
      */
@@ -36,6 +77,10 @@ public class DocumentClassifierApp {
      * String representing name of {@link KNN} passed as parameter in command-line.
      */
     public static final String KNN_CLASSIFIER = "knn";
+    /**
+     * String representing name of {@link ApproximateKNN} passed as parameter in command-line.
+     */
+    public static final String APPROXIMATE_KNN_CLASSIFIER = "hnsw";
     /**
      * String representing name of {@link TermFrequency} algorithm, passed as parameter in command-line.
      */
@@ -48,6 +93,18 @@ public class DocumentClassifierApp {
      * String representing name of {@link TermFrequency} algorithm, passed as parameter in command-line.
      */
     public static final String BIN_FEATURE_ALG = "binary";
+    /**
+     * String representing name of {@link TermHashing} algorithm, passed as parameter in command-line.
+     */
+    public static final String HASHING_FEATURE_ALG = "hashing";
+    /**
+     * String representing name of {@link WordNGramFrequency} algorithm, passed as parameter in command-line.
+     */
+    public static final String WORD_NGRAM_FEATURE_ALG = "wordngrams";
+    /**
+     * String representing name of {@link CharacterNGramFrequency} algorithm, passed as parameter in command-line.
+     */
+    public static final String CHAR_NGRAM_FEATURE_ALG = "charngrams";
 
     /**
      * List of available classification classes.
@@ -59,6 +116,41 @@ public class DocumentClassifierApp {
      */
     private List<Document> trainingSet;
 
+    /**
+     * Vocabulary of terms shared by all documents.
+     */
+    private Vocabulary vocabulary;
+
+    /**
+     * Number of nearest neighbours found by {@link KNN} classifier.
+     */
+    private int neighbours = KNN.DEFAULT_K;
+
+    /**
+     * Maximal number of neighbours of a document in each layer of the graph of {@link ApproximateKNN} classifier.
+     */
+    private int maxConnections = ApproximateKNN.DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * Number of candidates examined when building the graph of {@link ApproximateKNN} classifier.
+     */
+    private int efConstruction = ApproximateKNN.DEFAULT_EF_CONSTRUCTION;
+
+    /**
+     * Number of candidates examined when searching the graph of {@link ApproximateKNN} classifier.
+     */
+    private int efSearch = ApproximateKNN.DEFAULT_EF_SEARCH;
+
+    /**
+     * Selection of terms of vocabulary applied to the training set before its features are computed.
+     */
+    private FeatureSelection featureSelection = new FeatureSelection();
+
+    /**
+     * Normalizer of terms of the vocabulary created by supervised learning, null if terms are not normalized.
+     */
+    private TermNormalizer normalizer;
+
     /**
      * Classifier used to classify documents / input.
      */
@@ -69,6 +161,10 @@ public class DocumentClassifierApp {
      */
     private IFeatureAlgorithm featureAlgorithm;
 
+    /**
+     * Cache of predictions of the restored model, null if no model is restored or it is restored without a cache.
+     */
+    private ClassificationCache resultCache;
 
     public static void main(String[] args) {
         DocumentClassifierApp documentClassifierApp = new DocumentClassifierApp();
@@ -81,8 +177,60 @@ public class DocumentClassifierApp {
      * @param args arguments passed from command-line.
      */
     public void start(String[] args) {
+        // update rewrites the model file, so it is never run unless explicitly asked for
+        if (args.length > 0 && args[0].equals(UPDATE_OPTION)) {
+            if (args.length != UPDATING_PARAMS_COUNT) {
+                System.out.println("Usage: " + UPDATE_OPTION + " <model_name> <documents_folder>");
+                return;
+            }
+            System.out.println("Executing model update...");
+            doModelUpdate(args[1], args[2]);
+            return;
+        }
+
+        // options of normalization and feature selection may be passed anywhere among parameters of supervised learning
+        List<String> parameters = new ArrayList<>();
+        List<String> selectionOptions = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(NORMALIZATION_OPTION)) {
+                normalizer = TermNormalizer.forName(arg.substring(NORMALIZATION_OPTION.length()));
+                if (normalizer == null) {
+                    System.out.println("Unknown normalization of terms! (passed: " + arg + ")");
+                    System.out.println("Available normalizations: " + TermNormalizer.FOLDING + " - removing diacritics, "
+                            + TermNormalizer.STEMMING + " - light Czech stemming and removing diacritics");
+                    return;
+                }
+            } else {
+                (arg.startsWith(FeatureSelection.OPTION_PREFIX) ? selectionOptions : parameters).add(arg);
+            }
+        }
+        if (!selectionOptions.isEmpty()) {
+            featureSelection = FeatureSelection.parse(selectionOptions);
+            if (featureSelection == null) {
+                return;
+            }
+        }
+        if ((!selectionOptions.isEmpty() || normalizer != null) && parameters.size() < TRAINING_PARAMS_COUNT) {
+            System.out.println("Feature selection and normalization options can be passed only to supervised learning!");
+            return;
+        }
+        args = parameters.toArray(new String[0]);
+
         switch (args.length) {
             case TRAINING_PARAMS_COUNT:
+            case TRAINING_WITH_NEIGHBOURS_PARAMS_COUNT:
+            case TRAINING_WITH_GRAPH_PARAMS_COUNT:
+                if (args.length >= TRAINING_WITH_NEIGHBOURS_PARAMS_COUNT) {
+                    neighbours = parseParameter(args[6], "number of neighbours", 1);
+                }
+                if (args.length == TRAINING_WITH_GRAPH_PARAMS_COUNT) {
+                    maxConnections = parseParameter(args[7], "maximal number of connections", 2);
+                    efConstruction = parseParameter(args[8], "efConstruction", 1);
+                    efSearch = parseParameter(args[9], "efSearch", 1);
+                }
+                if (neighbours < 0 || maxConnections < 0 || efConstruction < 0 || efSearch < 0) {
+                    return;
+                }
                 System.out.println("Executing supervised learning...");
                 doSupervisedLearning(args[0], args[1], args[2], args[3], args[4], args[5]);
                 break;
@@ -90,59 +238,181 @@ public class DocumentClassifierApp {
                 System.out.println("Executing input classification...");
                 doInputClassification(args[0]);
                 break;
+            case BATCH_CLASSIFYING_PARAMS_COUNT:
+                int numOfThreads = parseParameter(args[2], "number of threads", 1);
+                if (numOfThreads < 0) {
+                    return;
+                }
+                doBatchClassification(args[0], args[1], numOfThreads);
+                break;
             default:
                 System.out.println("Invalid number of parameters inserted!");
                 break;
         }
     }
 
+    /**
+     * Parses integer parameter passed from command-line.
+     *
+     * @param value   passed value
+     * @param name    name of the parameter
+     * @param minimum minimal allowed value
+     * @return parsed value, or -1 if the value is invalid
+     */
+    private int parseParameter(String value, String name, int minimum) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= minimum) {
+                return parsed;
+            }
+            System.out.println("Parameter " + name + " must be at least " + minimum + "! (passed: " + value + ")");
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid " + name + "! (passed: " + value + ")");
+        }
+        return -1;
+    }
+
     /**
      * Executes user input classification process.
      *
      * @param modelName name of loaded model
      */
     private void doInputClassification(String modelName) {
+        if (restoreModel(modelName) == null) {
+            return;
+        }
+        createGui(modelName);
+    }
+
+    /**
+     * Executes model update process - adds labelled documents from given folder to trained model and saves it
+     * again. Only the added documents are processed, the model is not trained from scratch.
+     *
+     * @param modelName       name of updated model
+     * @param documentsFolder folder with added documents
+     */
+    private void doModelUpdate(String modelName, String documentsFolder) {
+        // added documents change the model, so its predictions are not cached
+        Model model = restoreModel(modelName, 0);
+        if (model == null) {
+            return;
+        }
+
+        System.out.println("Loading added documents...");
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        List<Document> addedDocuments = fileLoader.loadDataSet(documentsFolder);
+        if (addedDocuments == null) {
+            return;
+        }
+        if (featureAlgorithm instanceof TFIDF) {
+            ((TFIDF) featureAlgorithm).addDocuments(addedDocuments);
+        }
+        System.out.println("Computing features...");
+        featureAlgorithm.createFeatures(addedDocuments);
+        System.out.println("Adding " + addedDocuments.size() + " documents to model...");
+        classifier.addDocuments(addedDocuments);
+
+        saveModel(modelName, model.getClassificationClassesFile(), model.getFeatureAlgorithm(), model.getClassifier(),
+                model.getFeatureSelection());
+    }
+
+    /**
+     * Executes batch classification process - classifies documents in given folder, or on standard input,
+     * on given number of threads and writes the results to standard output as JSON objects, one per line.
+     * All other messages are written to standard error output, so they do not mix with the results.
+     *
+     * @param modelName    name of loaded model
+     * @param input        folder with classified documents, or {@link #STANDARD_INPUT}
+     * @param numOfThreads number of worker threads
+     */
+    private void doBatchClassification(String modelName, String input, int numOfThreads) {
+        PrintStream results = System.out;
+        // messages of loading the model and documents are written to standard output, they are redirected
+        // only while the results are written and the standard output is restored afterwards
+        System.setOut(System.err);
+        try {
+            System.err.println("Executing batch classification...");
+            if (restoreModel(modelName, 0) == null) {
+                return;
+            }
+
+            BatchClassifier batchClassifier = new BatchClassifier(classifier, featureAlgorithm, vocabulary, numOfThreads, results);
+            if (input.equals(STANDARD_INPUT)) {
+                batchClassifier.classifyLines(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+            } else {
+                batchClassifier.classifyFolder(input);
+            }
+        } finally {
+            System.setOut(results);
+        }
+    }
+
+    /**
+     * Loads model with given name and restores the classifier and feature algorithm saved in it, with a cache
+     * of its predictions holding {@link ClassificationCache#DEFAULT_CAPACITY} predictions.
+     *
+     * @param modelName name of loaded model
+     * @return loaded model, or null if the model could not be restored
+     */
+    Model restoreModel(String modelName) {
+        return restoreModel(modelName, ClassificationCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Loads model with given name and restores the classifier and feature algorithm saved in it, with a cache
+     * of its predictions. The cache is the only one of the model, as documents added to the model must clear it.
+     *
+     * @param modelName     name of loaded model
+     * @param cacheCapacity maximal number of cached predictions, 0 to create no cache
+     * @return loaded model, or null if the model could not be restored
+     */
+    Model restoreModel(String modelName, int cacheCapacity) {
         FileLoader fileLoader = new FileLoader();
         Model model = fileLoader.loadModel(modelName);
 
         if (model == null) {
             System.out.println("Model not found! (name: " + modelName + ")");
-            return;
+            return null;
         }
 
         this.classificationClasses = fileLoader.loadClassificationClasses(model.getClassificationClassesFile());
         this.trainingSet = model.getTrainingSet();
-        switch (model.getFeatureAlgorithm()) {
-            case TF_FEATURE_ALG:
-                this.featureAlgorithm = new TermFrequency();
-                break;
-            case TF_IDF_FEATURE_ALG:
-                this.featureAlgorithm = new TFIDF(trainingSet);
-                break;
-            case BIN_FEATURE_ALG:
-                this.featureAlgorithm = new TermBinary();
-                break;
-            default:
-                System.out.println("Invalid feature algorithm name! (name: " + model.getFeatureAlgorithm() + ")");
-                return;
+        this.vocabulary = model.getVocabulary();
+        if (model.getFeatureAlgorithm().equals(TF_IDF_FEATURE_ALG)) {
+            // documents of saved training set have no terms, so the document frequencies must be saved in the model
+            if (model.getDocumentFrequencies() == null) {
+                System.out.println("Model does not contain document frequencies! (name: " + modelName + ")");
+                return null;
+            }
+            this.featureAlgorithm = new TFIDF(model.getNumOfFrequencyDocuments(), model.getDocumentFrequencies());
+        } else {
+            this.featureAlgorithm = createFeatureAlgorithm(model.getFeatureAlgorithm(), trainingSet);
+        }
+        if (featureAlgorithm == null) {
+            System.out.println("Invalid feature algorithm name! (name: " + model.getFeatureAlgorithm() + ")");
+            return null;
         }
 
         switch (model.getClassifier()) {
             case NAIVE_BAYES_CLASSIFIER:
-                NaiveBayesClassifier classifier = new NaiveBayesClassifier(trainingSet, classificationClasses);
-                classifier.setTotalUniqueWords(model.getTotalUniqueWords());
-                classifier.setTotalWordsInClass(model.getTotalWordsInClass());
-                this.classifier = classifier;
+                this.classifier = new NaiveBayesClassifier(classificationClasses, model.getTotalUniqueWords(),
+                        model.getTotalWordsInClass(), model.getTermCountsInClass(), model.getDocumentsInClass(),
+                        model.getNumOfTrainingDocuments(), NaiveBayesClassifier.DEFAULT_SMOOTHING);
                 break;
             case KNN_CLASSIFIER:
-                this.classifier = new KNN(trainingSet);
+                this.classifier = new KNN(trainingSet, model.getNeighbours());
+                break;
+            case APPROXIMATE_KNN_CLASSIFIER:
+                this.classifier = new ApproximateKNN(trainingSet, model.getNeighbours(), model.getMaxConnections(),
+                        model.getEfConstruction(), model.getEfSearch(), model.getGraph());
                 break;
             default:
                 System.out.println("Invalid classifier name! (name: " + model.getClassifier() + ")");
-                return;
+                return null;
         }
-
-        createGui(modelName);
+        this.resultCache = cacheCapacity == 0 ? null : new ClassificationCache(this.classifier, featureAlgorithm,
+                vocabulary, cacheCapacity, ClassificationCache.DEFAULT_TIME_TO_LIVE);
+        return model;
     }
 
     /**
@@ -183,19 +453,15 @@ public class DocumentClassifierApp {
     }
 
     /**
-     * Classifies user input in given string.
+     * Classifies user input in given string. Input classified before is answered from the cache of predictions.
      *
      * @param userInput user input
      * @return name of classification class
      */
     private String classifyUserInput(String userInput) {
-        Document input = new Document();
-        input.setContent(userInput);
-
-        featureAlgorithm.createFeatures(input);
-        List<ClassificationClass> resultClass = classifier.classifyDocument(input);
-        if (resultClass != null && !resultClass.isEmpty()) {
-            return resultClass.get(0).getName();
+        Prediction prediction = resultCache.predict(userInput);
+        if (prediction != null) {
+            return prediction.getClassificationClass().getName();
         } else {
             return "";
         }
@@ -218,6 +484,7 @@ public class DocumentClassifierApp {
             System.out.println("Available classifiers:\n<passed_name> - <description>");
             System.out.println("bayes - Naive Bayes classifier");
             System.out.println("knn - k-nearest neighbours classifier");
+            System.out.println("hnsw - approximate k-nearest neighbours classifier");
             return;
         }
         if (!isFeatureAlgorithm(featureAlgorithm)) {
@@ -226,34 +493,140 @@ public class DocumentClassifierApp {
             System.out.println("tf - term frequency (document frequency) algorithm");
             System.out.println("tfidf - term frequency-inverse document frequency algorithm");
             System.out.println("binary - binary feature algorithm");
+            System.out.println("hashing - term frequency of terms hashed into fixed number of features");
+            System.out.println("wordngrams - frequency of single terms and pairs of terms");
+            System.out.println("charngrams - frequency of character n-grams of terms");
             return;
         }
-        FileLoader fileLoader = new FileLoader();
+        if (!isCombinable(featureAlgorithm, classifier)) {
+            return;
+        }
+        if (!featureSelection.isEmpty() && createVocabulary(featureAlgorithm).getNumOfHashedFeatures() > 0) {
+            System.out.println("Features cannot be selected when terms are hashed!");
+            return;
+        }
+        if (normalizer != null && (featureAlgorithm.equals(WORD_NGRAM_FEATURE_ALG) || featureAlgorithm.equals(CHAR_NGRAM_FEATURE_ALG))) {
+            System.out.println("Terms of n-grams are not normalized!");
+            return;
+        }
+        vocabulary = createVocabulary(featureAlgorithm);
+        vocabulary.setNormalizer(normalizer);
+        FileLoader fileLoader = new FileLoader(vocabulary);
         classificationClasses = fileLoader.loadClassificationClasses(classesFile);
 
         System.out.println("Loading training set...");
         trainingSet = fileLoader.loadDataSet(trainingSetFolder);
+        if (trainingSet == null) {
+            return;
+        }
+        if (!featureSelection.isEmpty()) {
+            System.out.println("Selecting features...");
+            // the testing set is tokenized by the pruned vocabulary, the same way classified documents are
+            vocabulary = featureSelection.select(trainingSet, vocabulary, classificationClasses);
+            fileLoader = new FileLoader(vocabulary);
+        }
         createFeatures(featureAlgorithm, trainingSet);
+        IFeatureAlgorithm trainingFeatureAlgorithm = this.featureAlgorithm;
 
         System.out.println("Loading testing set...");
         List<Document> testingSet = fileLoader.loadDataSet(testingSetFolder);
-        createFeatures(featureAlgorithm, testingSet);
+        if (testingSet == null) {
+            return;
+        }
+        // the saved model classifies new documents by statistics of the training set, so the testing set is too
+        System.out.println("Computing features...");
+        trainingFeatureAlgorithm.createFeatures(testingSet);
         classifyDocuments(classifier, trainingSet, testingSet, classificationClasses);
 
+        saveModel(modelName, classesFile, featureAlgorithm, classifier, featureSelection.toString());
+    }
+
+    /**
+     * Saves current classifier and statistics of current feature algorithm as model with given name.
+     *
+     * @param modelName        name of saved model
+     * @param classesFile      name of the file with list of classification classes
+     * @param featureAlgorithm name of feature algorithm
+     * @param classifier       name of classifier
+     * @param featureSelection options of feature selection which pruned the vocabulary, empty if it was not pruned
+     */
+    private void saveModel(String modelName, String classesFile, String featureAlgorithm, String classifier,
+                           String featureSelection) {
         Model model = new Model(modelName);
         model.setTrainingSet(trainingSet);
+        model.setVocabulary(vocabulary);
         model.setFeatureAlgorithm(featureAlgorithm);
         model.setClassifier(classifier);
         model.setClassificationClassesFile(classesFile);
+        model.setFeatureSelection(featureSelection);
+        model.setNormalization(vocabulary.getNormalizer() == null ? "" : vocabulary.getNormalizer().getName());
+        if (this.featureAlgorithm instanceof TFIDF) {
+            TFIDF tfidf = (TFIDF) this.featureAlgorithm;
+            model.setNumOfFrequencyDocuments(tfidf.getNumOfDocuments());
+            model.setDocumentFrequencies(tfidf.getDocumentFrequencies());
+        }
         if (this.classifier instanceof NaiveBayesClassifier) {
+            // Naive Bayes needs only statistics of the training set, so the documents are not saved
             NaiveBayesClassifier bayes = (NaiveBayesClassifier) this.classifier;
+            model.setTrainingSet(new ArrayList<>());
             model.setTotalUniqueWords(bayes.getTotalUniqueWords());
             model.setTotalWordsInClass(bayes.getTotalWordsInClass());
+            model.setTermCountsInClass(bayes.getTermCountsInClass());
+            model.setDocumentsInClass(bayes.getDocumentsInClass());
+            model.setNumOfTrainingDocuments(bayes.getNumOfDocuments());
+        } else if (this.classifier instanceof KNN) {
+            model.setTrainingSet(((KNN) this.classifier).getDocuments());
+            model.setNeighbours(((KNN) this.classifier).getK());
+        } else if (this.classifier instanceof ApproximateKNN) {
+            ApproximateKNN approximateKNN = (ApproximateKNN) this.classifier;
+            model.setTrainingSet(approximateKNN.getDocuments());
+            model.setNeighbours(approximateKNN.getK());
+            model.setMaxConnections(approximateKNN.getMaxConnections());
+            model.setEfConstruction(approximateKNN.getEfConstruction());
+            model.setEfSearch(approximateKNN.getEfSearch());
+            model.setGraph(approximateKNN.getGraph());
         }
         System.out.println("Saving model as \"" + modelName + "\"...");
         FileSaver fileSaver = new FileSaver();
-        fileSaver.saveModel(model);
-        System.out.println("Model \"" + modelName + "\" saved.");
+        if (fileSaver.saveModel(model)) {
+            System.out.println("Model \"" + modelName + "\" saved.");
+        }
+    }
+
+    /**
+     * Returns classifier used to classify documents.
+     *
+     * @return current classifier
+     */
+    IClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Returns feature algorithm used to compute features of documents.
+     *
+     * @return current feature algorithm
+     */
+    IFeatureAlgorithm getFeatureAlgorithm() {
+        return featureAlgorithm;
+    }
+
+    /**
+     * Returns cache of predictions of the restored model.
+     *
+     * @return current cache of predictions, or null if no model is restored or it is restored without a cache
+     */
+    ClassificationCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Returns vocabulary of terms shared by all documents.
+     *
+     * @return current vocabulary
+     */
+    Vocabulary getVocabulary() {
+        return vocabulary;
     }
 
     /**
@@ -263,7 +636,8 @@ public class DocumentClassifierApp {
      * @return true if classifier with given name exists
      */
     public boolean isClassifier(String classifierName) {
-        return classifierName.equals(NAIVE_BAYES_CLASSIFIER) || classifierName.equals(KNN_CLASSIFIER);
+        return classifierName.equals(NAIVE_BAYES_CLASSIFIER) || classifierName.equals(KNN_CLASSIFIER)
+                || classifierName.equals(APPROXIMATE_KNN_CLASSIFIER);
     }
 
     /**
@@ -274,41 +648,119 @@ public class DocumentClassifierApp {
      */
     public boolean isFeatureAlgorithm(String featureAlgName) {
         return featureAlgName.equals(TF_FEATURE_ALG) || featureAlgName.equals(TF_IDF_FEATURE_ALG)
-                || featureAlgName.equals(BIN_FEATURE_ALG);
+                || featureAlgName.equals(BIN_FEATURE_ALG) || featureAlgName.equals(HASHING_FEATURE_ALG)
+                || featureAlgName.equals(WORD_NGRAM_FEATURE_ALG) || featureAlgName.equals(CHAR_NGRAM_FEATURE_ALG);
     }
 
     /**
-     * Creates features for list of given documents with given algorithm.
+     * Returns true if given feature algorithm can be used by given classifier. Prints the reason if it cannot.
      *
      * @param featureAlgName name of feature algorithm
-     * @param documents      list of documents to create features for
+     * @param classifierName name of classifier
+     * @return true if the feature algorithm can be used by the classifier
      */
-    private void createFeatures(String featureAlgName, List<Document> documents) {
+    public static boolean isCombinable(String featureAlgName, String classifierName) {
+        if (featureAlgName.equals(HASHING_FEATURE_ALG) && classifierName.equals(NAIVE_BAYES_CLASSIFIER)) {
+            System.out.println("Naive Bayes classifier needs non-negative features, hashed features can be negative!");
+            return false;
+        }
+        if ((featureAlgName.equals(WORD_NGRAM_FEATURE_ALG) || featureAlgName.equals(CHAR_NGRAM_FEATURE_ALG))
+                && classifierName.equals(NAIVE_BAYES_CLASSIFIER)) {
+            // Naive Bayes scores counts of terms of a document, which are not the features of its n-grams
+            System.out.println("Naive Bayes classifier needs features of terms, n-gram features are hashed n-grams!");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates vocabulary for documents whose features are computed by feature algorithm with given name.
+     *
+     * @param featureAlgName name of feature algorithm
+     * @return hashing vocabulary for algorithms which do not need terms to be stored, empty vocabulary interning
+     * terms otherwise
+     */
+    public static Vocabulary createVocabulary(String featureAlgName) {
+        // n-gram algorithms hash the content themselves, terms of documents only tell whether they are empty
+        return featureAlgName.equals(HASHING_FEATURE_ALG) || featureAlgName.equals(WORD_NGRAM_FEATURE_ALG)
+                || featureAlgName.equals(CHAR_NGRAM_FEATURE_ALG)
+                ? Vocabulary.hashing(TermHashing.DEFAULT_NUM_OF_FEATURES) : new Vocabulary();
+    }
 
+    /**
+     * Creates feature algorithm with given name.
+     *
+     * @param featureAlgName name of feature algorithm
+     * @param documents      corpus of documents the algorithm computes statistics from, if it needs any
+     * @return created feature algorithm, or null if there is no algorithm with given name
+     */
+    public static IFeatureAlgorithm createFeatureAlgorithm(String featureAlgName, List<Document> documents) {
         switch (featureAlgName) {
             case TF_FEATURE_ALG:
-                featureAlgorithm = new TermFrequency();
-                break;
+                return new TermFrequency();
             case TF_IDF_FEATURE_ALG:
-                featureAlgorithm = new TFIDF(documents);
-                break;
+                return new TFIDF(documents);
             case BIN_FEATURE_ALG:
-                featureAlgorithm = new TermBinary();
-                break;
+                return new TermBinary();
+            case HASHING_FEATURE_ALG:
+                return new TermHashing();
+            case WORD_NGRAM_FEATURE_ALG:
+                return new WordNGramFrequency();
+            case CHAR_NGRAM_FEATURE_ALG:
+                return new CharacterNGramFrequency();
             default:
-                System.out.println("Invalid feature algorithm name passed! (passed name: " + featureAlgName + ")");
-                return;
+                return null;
         }
+    }
 
-        System.out.println("Computing features...");
-        for (Document document : documents) {
-            featureAlgorithm.createFeatures(document);
+    /**
+     * Creates classifier with given name trained on given documents.
+     *
+     * @param classifierName        name of classifier
+     * @param trainingSet           list of training documents with computed features
+     * @param classificationClasses list of available classification classes
+     * @param neighbours            number of nearest neighbours of {@link KNN} and {@link ApproximateKNN}
+     * @param maxConnections        maximal number of neighbours in the graph of {@link ApproximateKNN}
+     * @param efConstruction        number of candidates examined when building the graph of {@link ApproximateKNN}
+     * @param efSearch              number of candidates examined when searching the graph of {@link ApproximateKNN}
+     * @return created classifier, or null if there is no classifier with given name
+     */
+    public static IClassifier createClassifier(String classifierName, List<Document> trainingSet,
+                                               List<ClassificationClass> classificationClasses, int neighbours,
+                                               int maxConnections, int efConstruction, int efSearch) {
+        switch (classifierName) {
+            case NAIVE_BAYES_CLASSIFIER:
+                return new NaiveBayesClassifier(trainingSet, classificationClasses);
+            case KNN_CLASSIFIER:
+                return new KNN(trainingSet, neighbours);
+            case APPROXIMATE_KNN_CLASSIFIER:
+                return new ApproximateKNN(trainingSet, neighbours, maxConnections, efConstruction, efSearch);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates features for list of given documents with given algorithm.
+     *
+     * @param featureAlgName name of feature algorithm
+     * @param documents      list of documents to create features for
+     */
+    private void createFeatures(String featureAlgName, List<Document> documents) {
+        featureAlgorithm = createFeatureAlgorithm(featureAlgName, documents);
+        if (featureAlgorithm == null) {
+            System.out.println("Invalid feature algorithm name passed! (passed name: " + featureAlgName + ")");
+            return;
         }
+
+        System.out.println("Computing features...");
+        featureAlgorithm.createFeatures(documents);
         System.out.println("Features for document set computed.");
     }
 
     /**
-     * Classifies all documents in given list with given classifier.
+     * Classifies all documents in given list with given classifier on all available processors and prints
+     * the evaluation of the results.
      *
      * @param classifierName        name of classifier
      * @param trainingSet           list of training documents
@@ -318,35 +770,19 @@ public class DocumentClassifierApp {
     private void classifyDocuments(String classifierName, List<Document> trainingSet, List<Document> testingSet,
                                    List<ClassificationClass> classificationClasses) {
         System.out.println("Classifying documents...");
-        switch (classifierName) {
-            case NAIVE_BAYES_CLASSIFIER:
-                classifier = new NaiveBayesClassifier(trainingSet, classificationClasses);
-                break;
-            case KNN_CLASSIFIER:
-                classifier = new KNN(trainingSet);
-                break;
-            default:
-                System.out.println("Invalid classifier name passed! (passed name: " + classifierName + ")");
-                return;
+        classifier = createClassifier(classifierName, trainingSet, classificationClasses, neighbours, maxConnections,
+                efConstruction, efSearch);
+        if (classifier == null) {
+            System.out.println("Invalid classifier name passed! (passed name: " + classifierName + ")");
+            return;
         }
 
-        double numOfClassifiedDocuments = testingSet.size();     //double to evade integer division
-        int numOfCorrectlyClassified = 0;
-        for (Document document : testingSet) {
-            List<ClassificationClass> classified = classifier.classifyDocument(document);
-
-            for (ClassificationClass classificationClass : classified) {
-                if (document.getClassificationClasses().contains(classificationClass)) {
-                    numOfCorrectlyClassified++;
-                    break;
-                }
-            }
+        EvaluationReport report = new Evaluator(classifier, Runtime.getRuntime().availableProcessors()).evaluate(testingSet);
+        if (report == null) {
+            return;
         }
-        double accuracy = numOfCorrectlyClassified / numOfClassifiedDocuments;
         System.out.println("Classification complete.");
-        System.out.println("Number of classified documents: " + numOfClassifiedDocuments);
-        System.out.println("Number of correctly classified documents: " + numOfCorrectlyClassified);
-        System.out.println("Accuracy: " + accuracy);
+        System.out.print(report.toText());
     }
 
 }
\ No newline at end of file
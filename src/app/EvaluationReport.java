@@ -0,0 +1,446 @@
+package app;
+
+import classifier.Prediction;
+import utils.ClassificationClass;
+import utils.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of classification of a testing set - accuracy, confusion matrix, precision, recall and F1 score
+ * of each class, throughput and, if it was measured, distribution of latencies of classification of single
+ * documents.
+ * <p>
+ * Document of several classes counts as correctly classified when it is assigned any of its classes, as
+ * in accuracy. In confusion matrix, the actual class of such document is the assigned class if it is correct,
+ * the first class of the document otherwise.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class EvaluationReport {
+
+    /**
+     * Percentiles of latency included in reports.
+     */
+    private static final double[] REPORTED_PERCENTILES = {50, 95, 99};
+
+    /**
+     * Upper bound of the first bucket of latency histogram in nanoseconds, bounds of the next buckets double.
+     */
+    private static final long FIRST_BUCKET_BOUND = 1000;
+
+    /**
+     * Width of the longest bar of latency histogram in text report.
+     */
+    private static final int HISTOGRAM_WIDTH = 40;
+
+    /**
+     * Number of documents in testing set.
+     */
+    private final int numOfDocuments;
+
+    /**
+     * Number of documents which were assigned a class.
+     */
+    private final int numOfClassified;
+
+    /**
+     * Number of documents which were assigned one of their classes.
+     */
+    private final int numOfCorrect;
+
+    /**
+     * Classes occurring in testing set or assigned by classifier, ordered by name.
+     */
+    private final List<ClassificationClass> classes;
+
+    /**
+     * Number of documents of each actual class (row) assigned each class (column), indexed by position
+     * of the classes in {@link #classes}.
+     */
+    private final int[][] confusionMatrix;
+
+    /**
+     * Number of documents of each actual class, including documents which could not be classified, indexed
+     * by position of the classes in {@link #classes}.
+     */
+    private final int[] documentsInClass;
+
+    /**
+     * Latencies of classification of single documents in nanoseconds, sorted in ascending order, null if latency
+     * was not measured.
+     */
+    private final long[] latencies;
+
+    /**
+     * Duration of the whole evaluation in nanoseconds.
+     */
+    private final long elapsedTime;
+
+    /**
+     * Number of threads classifying documents.
+     */
+    private final int numOfThreads;
+
+    /**
+     * Creates report of classification of given testing set.
+     *
+     * @param testingSet   classified documents
+     * @param predictions  prediction of each document, null for documents which could not be classified
+     * @param latencies    latency of classification of each document in nanoseconds, null if latency was not
+     *                     measured
+     * @param elapsedTime  duration of the whole evaluation in nanoseconds
+     * @param numOfThreads number of threads classifying documents
+     */
+    public EvaluationReport(List<Document> testingSet, List<Prediction> predictions, long[] latencies,
+                            long elapsedTime, int numOfThreads) {
+        this.numOfDocuments = testingSet.size();
+        this.elapsedTime = elapsedTime;
+        this.numOfThreads = numOfThreads;
+        this.latencies = latencies == null ? null : latencies.clone();
+        if (this.latencies != null) {
+            Arrays.sort(this.latencies);
+        }
+
+        ClassificationClass[] actualClasses = new ClassificationClass[numOfDocuments];
+        boolean[] isClassPresent = new boolean[ClassificationClass.count()];
+        int classified = 0;
+        int correct = 0;
+        for (int i = 0; i < numOfDocuments; i++) {
+            Document document = testingSet.get(i);
+            Prediction prediction = predictions.get(i);
+            List<ClassificationClass> documentClasses = document.getClassificationClasses();
+            if (prediction != null) {
+                classified++;
+                isClassPresent[prediction.getClassificationClass().getId()] = true;
+                if (document.hasClassificationClass(prediction.getClassificationClass())) {
+                    correct++;
+                    actualClasses[i] = prediction.getClassificationClass();
+                }
+            }
+            if (actualClasses[i] == null && documentClasses != null && !documentClasses.isEmpty()) {
+                actualClasses[i] = documentClasses.get(0);
+            }
+            if (actualClasses[i] != null) {
+                isClassPresent[actualClasses[i].getId()] = true;
+            }
+        }
+        this.numOfClassified = classified;
+        this.numOfCorrect = correct;
+
+        List<ClassificationClass> presentClasses = new ArrayList<>();
+        for (int id = 0; id < isClassPresent.length; id++) {
+            if (isClassPresent[id]) {
+                presentClasses.add(ClassificationClass.get(id));
+            }
+        }
+        presentClasses.sort(Comparator.comparing(ClassificationClass::getName));
+        this.classes = presentClasses;
+
+        int[] positions = new int[isClassPresent.length];
+        for (int i = 0; i < classes.size(); i++) {
+            positions[classes.get(i).getId()] = i;
+        }
+        this.confusionMatrix = new int[classes.size()][classes.size()];
+        this.documentsInClass = new int[classes.size()];
+        for (int i = 0; i < numOfDocuments; i++) {
+            Prediction prediction = predictions.get(i);
+            if (actualClasses[i] != null) {
+                documentsInClass[positions[actualClasses[i].getId()]]++;
+            }
+            if (prediction != null && actualClasses[i] != null) {
+                confusionMatrix[positions[actualClasses[i].getId()]][positions[prediction.getClassificationClass().getId()]]++;
+            }
+        }
+    }
+
+    /**
+     * Returns share of documents which were assigned one of their classes.
+     *
+     * @return accuracy between 0 and 1
+     */
+    public double getAccuracy() {
+        return numOfDocuments == 0 ? 0 : (double) numOfCorrect / numOfDocuments;
+    }
+
+    /**
+     * Returns number of documents in testing set.
+     *
+     * @return number of documents
+     */
+    public int getNumOfDocuments() {
+        return numOfDocuments;
+    }
+
+    /**
+     * Returns number of documents which were assigned one of their classes.
+     *
+     * @return number of correctly classified documents
+     */
+    public int getNumOfCorrect() {
+        return numOfCorrect;
+    }
+
+    /**
+     * Returns classes occurring in testing set or assigned by classifier, ordered by name.
+     *
+     * @return classes of the report
+     */
+    public List<ClassificationClass> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Returns number of documents of given actual class assigned given class.
+     *
+     * @param actual   position of the actual class in {@link #getClasses()}
+     * @param assigned position of the assigned class in {@link #getClasses()}
+     * @return number of documents
+     */
+    public int getConfusion(int actual, int assigned) {
+        return confusionMatrix[actual][assigned];
+    }
+
+    /**
+     * Returns share of documents assigned given class which belong to it.
+     *
+     * @param position position of the class in {@link #getClasses()}
+     * @return precision between 0 and 1, 0 if the class was not assigned to any document
+     */
+    public double getPrecision(int position) {
+        int assigned = 0;
+        for (int[] row : confusionMatrix) {
+            assigned += row[position];
+        }
+        return assigned == 0 ? 0 : (double) confusionMatrix[position][position] / assigned;
+    }
+
+    /**
+     * Returns share of documents of given class which were assigned it.
+     *
+     * @param position position of the class in {@link #getClasses()}
+     * @return recall between 0 and 1, 0 if no document belongs to the class
+     */
+    public double getRecall(int position) {
+        int actual = documentsInClass[position];
+        return actual == 0 ? 0 : (double) confusionMatrix[position][position] / actual;
+    }
+
+    /**
+     * Returns harmonic mean of precision and recall of given class.
+     *
+     * @param position position of the class in {@link #getClasses()}
+     * @return F1 score between 0 and 1
+     */
+    public double getF1(int position) {
+        double precision = getPrecision(position);
+        double recall = getRecall(position);
+        return precision + recall == 0 ? 0 : 2 * precision * recall / (precision + recall);
+    }
+
+    /**
+     * Returns mean of F1 scores of all classes.
+     *
+     * @return macro-averaged F1 score between 0 and 1
+     */
+    public double getMacroF1() {
+        double sum = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            sum += getF1(i);
+        }
+        return classes.isEmpty() ? 0 : sum / classes.size();
+    }
+
+    /**
+     * Returns whether latency of classification of single documents was measured.
+     *
+     * @return true if the report has latencies of documents
+     */
+    public boolean isLatencyMeasured() {
+        return latencies != null;
+    }
+
+    /**
+     * Returns given percentile of latencies of classification of single documents.
+     *
+     * @param percentile wanted percentile between 0 and 100
+     * @return latency in milliseconds, 0 if no document was classified or latency was not measured
+     */
+    public double getLatencyPercentileMillis(double percentile) {
+        if (latencies == null || latencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+    }
+
+    /**
+     * Returns mean latency of classification of single documents.
+     *
+     * @return latency in milliseconds, 0 if no document was classified or latency was not measured
+     */
+    public double getMeanLatencyMillis() {
+        return latencies == null || latencies.length == 0 ? 0 : Arrays.stream(latencies).sum() / 1e6 / latencies.length;
+    }
+
+    /**
+     * Returns number of documents classified per second.
+     *
+     * @return throughput of the evaluation
+     */
+    public double getThroughput() {
+        return elapsedTime == 0 ? 0 : numOfDocuments / (elapsedTime / 1e9);
+    }
+
+    /**
+     * Returns number of documents in each bucket of latency histogram. Bucket {@code i} holds latencies up to
+     * {@link #getBucketBoundMillis(int)} of {@code i} and above the bound of the previous bucket.
+     *
+     * @return number of documents in each bucket, up to the last non-empty one, empty if latency was not measured
+     */
+    public int[] getLatencyHistogram() {
+        int[] histogram = new int[0];
+        if (latencies == null) {
+            return histogram;
+        }
+        for (long latency : latencies) {
+            int bucket = Long.SIZE - Long.numberOfLeadingZeros((latency - 1) / FIRST_BUCKET_BOUND);
+            if (bucket >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, bucket + 1);
+            }
+            histogram[bucket]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns upper bound of given bucket of latency histogram.
+     *
+     * @param bucket index of the bucket
+     * @return the highest latency in the bucket in milliseconds
+     */
+    public static double getBucketBoundMillis(int bucket) {
+        return (FIRST_BUCKET_BOUND << bucket) / 1e6;
+    }
+
+    /**
+     * Returns index of the first non-empty bucket of given latency histogram, so reports do not start
+     * with a row of empty buckets.
+     *
+     * @param histogram latency histogram
+     * @return index of the first non-empty bucket
+     */
+    private static int getFirstNonEmpty(int[] histogram) {
+        int bucket = 0;
+        while (bucket < histogram.length && histogram[bucket] == 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Returns report as human readable text.
+     *
+     * @return text of the report
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("Number of classified documents: ").append(numOfDocuments).append('\n');
+        text.append("Number of correctly classified documents: ").append(numOfCorrect).append('\n');
+        text.append("Accuracy: ").append(getAccuracy()).append('\n');
+        if (numOfClassified < numOfDocuments) {
+            text.append("Documents which could not be classified: ").append(numOfDocuments - numOfClassified).append('\n');
+        }
+
+        text.append("\nConfusion matrix (rows are actual classes, columns assigned classes):\n");
+        text.append(String.format("%6s", ""));
+        for (ClassificationClass classificationClass : classes) {
+            text.append(String.format(" %5.5s", classificationClass.getName()));
+        }
+        text.append('\n');
+        for (int i = 0; i < classes.size(); i++) {
+            text.append(String.format("%6.6s", classes.get(i).getName()));
+            for (int count : confusionMatrix[i]) {
+                text.append(String.format(" %5d", count));
+            }
+            text.append('\n');
+        }
+
+        text.append(String.format("%n%-10s %9s %9s %9s%n", "Class", "Precision", "Recall", "F1"));
+        for (int i = 0; i < classes.size(); i++) {
+            text.append(String.format(Locale.ROOT, "%-10s %9.3f %9.3f %9.3f%n", classes.get(i).getName(),
+                    getPrecision(i), getRecall(i), getF1(i)));
+        }
+        text.append(String.format(Locale.ROOT, "Macro-averaged F1: %.3f%n", getMacroF1()));
+
+        text.append(String.format(Locale.ROOT, "%nThroughput: %.1f documents/s on %d threads%n", getThroughput(), numOfThreads));
+        if (latencies == null) {
+            return text.toString();
+        }
+
+        text.append(String.format(Locale.ROOT, "Latency per document: mean %.3f ms", getMeanLatencyMillis()));
+        for (double percentile : REPORTED_PERCENTILES) {
+            text.append(String.format(Locale.ROOT, ", p%.0f %.3f ms", percentile, getLatencyPercentileMillis(percentile)));
+        }
+        text.append(String.format(Locale.ROOT, ", max %.3f ms%n", getLatencyPercentileMillis(100)));
+
+        int[] histogram = getLatencyHistogram();
+        int maxCount = Arrays.stream(histogram).max().orElse(0);
+        text.append("Latency histogram:\n");
+        for (int bucket = getFirstNonEmpty(histogram); bucket < histogram.length; bucket++) {
+            int width = maxCount == 0 ? 0 : (int) Math.ceil((double) histogram[bucket] * HISTOGRAM_WIDTH / maxCount);
+            text.append(String.format(Locale.ROOT, "  <= %9.3f ms %6d %s%n", getBucketBoundMillis(bucket),
+                    histogram[bucket], "#".repeat(width)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns report as JSON object.
+     *
+     * @return JSON object of the report
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append(String.format(Locale.ROOT, "\"documents\":%d,\"classified\":%d,\"correct\":%d,\"accuracy\":%.6f,",
+                numOfDocuments, numOfClassified, numOfCorrect, getAccuracy()));
+
+        json.append("\"classes\":[");
+        for (int i = 0; i < classes.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"name\":%s,\"precision\":%.6f,\"recall\":%.6f,\"f1\":%.6f}",
+                    BatchClassifier.toJson(classes.get(i).getName()), getPrecision(i), getRecall(i), getF1(i)));
+        }
+        json.append(String.format(Locale.ROOT, "],\"macro_f1\":%.6f,", getMacroF1()));
+
+        json.append("\"confusion_matrix\":[");
+        for (int i = 0; i < classes.size(); i++) {
+            json.append(i == 0 ? "[" : ",[");
+            for (int j = 0; j < classes.size(); j++) {
+                json.append(j == 0 ? "" : ",").append(confusionMatrix[i][j]);
+            }
+            json.append(']');
+        }
+
+        json.append(String.format(Locale.ROOT, "],\"throughput\":%.1f,\"threads\":%d", getThroughput(), numOfThreads));
+        if (latencies == null) {
+            return json.append('}').toString();
+        }
+
+        json.append(String.format(Locale.ROOT, ",\"latency_ms\":{\"mean\":%.3f", getMeanLatencyMillis()));
+        for (double percentile : REPORTED_PERCENTILES) {
+            json.append(String.format(Locale.ROOT, ",\"p%.0f\":%.3f", percentile, getLatencyPercentileMillis(percentile)));
+        }
+        json.append(String.format(Locale.ROOT, ",\"max\":%.3f},\"latency_histogram\":[", getLatencyPercentileMillis(100)));
+        int[] histogram = getLatencyHistogram();
+        for (int bucket = getFirstNonEmpty(histogram); bucket < histogram.length; bucket++) {
+            json.append(json.charAt(json.length() - 1) == '[' ? "" : ",").append(String.format(Locale.ROOT, "{\"le_ms\":%.3f,\"count\":%d}",
+                    getBucketBoundMillis(bucket), histogram[bucket]));
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,199 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.Prediction;
+import feature.IFeatureAlgorithm;
+import utils.Document;
+import utils.FileLoader;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates classifier on a testing set with computed features. Documents are classified in batches by
+ * {@link IClassifier#predictDocuments(List)} on a pool of threads, so classifiers with batch classification
+ * are evaluated by it. If latency is measured, documents are classified one by one instead, the way they are
+ * classified when the model is served, and latency of each document is reported as well as accuracy.
+ * <p>
+ * Can be run on saved model, printing the report to standard output as text or JSON. All other messages are
+ * written to standard error output.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class Evaluator {
+
+    /**
+     * Format of the report printed as text.
+     */
+    public static final String TEXT_FORMAT = "text";
+
+    /**
+     * Format of the report printed as JSON.
+     */
+    public static final String JSON_FORMAT = "json";
+
+    /**
+     * Option measuring latency of classification of single documents.
+     */
+    public static final String LATENCY_OPTION = "--latency";
+
+    /**
+     * Number of documents classified together by one call of {@link IClassifier#predictDocuments(List)}.
+     */
+    public static final int BATCH_SIZE = 256;
+
+    /**
+     * Evaluated classifier.
+     */
+    private final IClassifier classifier;
+
+    /**
+     * Number of threads classifying documents.
+     */
+    private final int numOfThreads;
+
+    /**
+     * True if documents are classified one by one and latency of each of them is measured.
+     */
+    private final boolean measuresLatency;
+
+    public static void main(String[] args) {
+        boolean measuresLatency = args.length > 0 && args[args.length - 1].equals(LATENCY_OPTION);
+        if (measuresLatency) {
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Usage: <model_name> <testing_set_folder> [threads] [" + TEXT_FORMAT + "|" + JSON_FORMAT
+                    + "] [" + LATENCY_OPTION + "]");
+            return;
+        }
+        int numOfThreads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 3) {
+            try {
+                numOfThreads = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                numOfThreads = 0;
+            }
+            if (numOfThreads < 1) {
+                System.out.println("Invalid number of threads! (passed: " + args[2] + ")");
+                return;
+            }
+        }
+        String format = args.length == 4 ? args[3] : TEXT_FORMAT;
+        if (!format.equals(TEXT_FORMAT) && !format.equals(JSON_FORMAT)) {
+            System.out.println("Invalid format of report! (passed: " + format + ")");
+            return;
+        }
+
+        PrintStream report = System.out;
+        // messages of loading the model and testing set are written to standard output, they are redirected
+        // only until the report is written and the standard output is restored afterwards
+        System.setOut(System.err);
+        try {
+            DocumentClassifierApp app = new DocumentClassifierApp();
+            if (app.restoreModel(args[0], 0) == null) {
+                return;
+            }
+            List<Document> testingSet = new FileLoader(app.getVocabulary()).loadDataSet(args[1]);
+            if (testingSet == null) {
+                return;
+            }
+            IFeatureAlgorithm featureAlgorithm = app.getFeatureAlgorithm();
+            featureAlgorithm.createFeatures(testingSet);
+
+            EvaluationReport evaluationReport = new Evaluator(app.getClassifier(), numOfThreads, measuresLatency)
+                    .evaluate(testingSet);
+            if (evaluationReport == null) {
+                return;
+            }
+            report.println(format.equals(JSON_FORMAT) ? evaluationReport.toJson() : evaluationReport.toText());
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    /**
+     * Creates evaluator of given classifier classifying documents in batches, without measuring latency.
+     *
+     * @param classifier   evaluated classifier
+     * @param numOfThreads number of threads classifying documents
+     */
+    public Evaluator(IClassifier classifier, int numOfThreads) {
+        this(classifier, numOfThreads, false);
+    }
+
+    /**
+     * Creates evaluator of given classifier.
+     *
+     * @param classifier      evaluated classifier
+     * @param numOfThreads    number of threads classifying documents
+     * @param measuresLatency true if documents are classified one by one and latency of each of them is measured,
+     *                        false if they are classified in batches
+     */
+    public Evaluator(IClassifier classifier, int numOfThreads, boolean measuresLatency) {
+        this.classifier = classifier;
+        this.numOfThreads = numOfThreads;
+        this.measuresLatency = measuresLatency;
+    }
+
+    /**
+     * Classifies every document of given testing set and reports the results.
+     *
+     * @param testingSet documents with computed features
+     * @return report of the evaluation, or null if the evaluation was interrupted or failed
+     */
+    public EvaluationReport evaluate(List<Document> testingSet) {
+        Prediction[] predictions = new Prediction[testingSet.size()];
+        long[] latencies = measuresLatency ? new long[testingSet.size()] : null;
+        AtomicInteger nextDocument = new AtomicInteger();
+        // each worker takes the next unclassified document or batch, so slow documents do not hold up the other workers
+        Callable<Void> worker = measuresLatency ? () -> {
+            int i;
+            while ((i = nextDocument.getAndIncrement()) < testingSet.size()) {
+                long start = System.nanoTime();
+                predictions[i] = classifier.predictDocument(testingSet.get(i));
+                latencies[i] = System.nanoTime() - start;
+            }
+            return null;
+        } : () -> {
+            int from;
+            while ((from = nextDocument.getAndAdd(BATCH_SIZE)) < testingSet.size()) {
+                int to = Math.min(from + BATCH_SIZE, testingSet.size());
+                List<Prediction> batch = classifier.predictDocuments(testingSet.subList(from, to));
+                for (int i = from; i < to; i++) {
+                    predictions[i] = batch.get(i - from);
+                }
+            }
+            return null;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
+        long start = System.nanoTime();
+        try {
+            List<Future<Void>> workers = executor.invokeAll(Collections.nCopies(numOfThreads, worker));
+            for (Future<Void> result : workers) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Evaluation was interrupted!");
+            return null;
+        } catch (ExecutionException e) {
+            System.out.println("Error while classifying documents! (" + e.getCause() + ")");
+            return null;
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedTime = System.nanoTime() - start;
+
+        return new EvaluationReport(testingSet, Arrays.asList(predictions), latencies, elapsedTime, numOfThreads);
+    }
+}
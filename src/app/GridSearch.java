@@ -0,0 +1,380 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.KNN;
+import classifier.NaiveBayesClassifier;
+import feature.DocumentFrequencies;
+import feature.TFIDF;
+import feature.TermFrequency;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.SparseVector;
+import utils.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Tunes the classification by trying every combination of feature algorithm, classifier and its parameters
+ * on a training and testing set, and prints the combinations ranked by accuracy with their training
+ * and classification times.
+ * <p>
+ * Everything the combinations have in common is computed once - both sets are loaded and tokenized once, term
+ * frequencies of each document are computed once and the other features are derived from them, with
+ * {@code tfidf} weighed by document frequencies of the training set. Sums of values of terms in classes
+ * of {@link NaiveBayesClassifier} are counted once for each feature algorithm and shared by all smoothing values.
+ * Combinations are then trained and evaluated in parallel, each classifying the testing set in a single thread.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class GridSearch {
+
+    /**
+     * Numbers of nearest neighbours of {@link KNN} tried when none are passed.
+     */
+    public static final int[] DEFAULT_NEIGHBOURS = {1, 3, 5, 10};
+
+    /**
+     * Smoothing values of {@link NaiveBayesClassifier} tried when none are passed.
+     */
+    public static final double[] DEFAULT_SMOOTHINGS = {0.1, 0.5, 1.0};
+
+    /**
+     * Names of tried feature algorithms.
+     */
+    private static final String[] FEATURE_ALGORITHMS = {DocumentClassifierApp.TF_FEATURE_ALG,
+            DocumentClassifierApp.TF_IDF_FEATURE_ALG, DocumentClassifierApp.BIN_FEATURE_ALG};
+
+    /**
+     * List of available classification classes.
+     */
+    private final List<ClassificationClass> classificationClasses;
+
+    /**
+     * Training documents with features of each feature algorithm, by name of the algorithm.
+     */
+    private final Map<String, List<Document>> trainingSets = new HashMap<>();
+
+    /**
+     * Testing documents with features of each feature algorithm, by name of the algorithm.
+     */
+    private final Map<String, List<Document>> testingSets = new HashMap<>();
+
+    /**
+     * Naive Bayes classifier with counted statistics of the training set for each feature algorithm, by name
+     * of the algorithm.
+     */
+    private final Map<String, NaiveBayesClassifier> bayesStatistics = new HashMap<>();
+
+    /**
+     * Time of counting statistics of {@link #bayesStatistics} in nanoseconds, by name of the algorithm.
+     */
+    private final Map<String, Long> bayesCountingTimes = new HashMap<>();
+
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 5) {
+            System.out.println("Usage: <classes_file> <training_set_folder> <testing_set_folder> [k,k,...] [smoothing,smoothing,...]");
+            return;
+        }
+        int[] neighbours = DEFAULT_NEIGHBOURS;
+        double[] smoothings = DEFAULT_SMOOTHINGS;
+        try {
+            if (args.length >= 4) {
+                neighbours = Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray();
+            }
+            if (args.length == 5) {
+                smoothings = Arrays.stream(args[4].split(",")).mapToDouble(Double::parseDouble).toArray();
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid numbers of neighbours or smoothing values! (passed: " + String.join(" ", args) + ")");
+            return;
+        }
+        if (Arrays.stream(neighbours).anyMatch(k -> k < 1) || Arrays.stream(smoothings).anyMatch(alpha -> !(alpha > 0))) {
+            System.out.println("Numbers of neighbours must be at least 1 and smoothing values greater than 0! (passed: "
+                    + String.join(" ", args) + ")");
+            return;
+        }
+
+        long start = System.nanoTime();
+        FileLoader fileLoader = new FileLoader(new Vocabulary());
+        List<ClassificationClass> classificationClasses = fileLoader.loadClassificationClasses(args[0]);
+        List<Document> trainingSet = fileLoader.loadDataSet(args[1]);
+        List<Document> testingSet = fileLoader.loadDataSet(args[2]);
+        if (classificationClasses == null || trainingSet == null || testingSet == null) {
+            return;
+        }
+        GridSearch gridSearch = new GridSearch(trainingSet, testingSet, classificationClasses);
+        System.out.printf(Locale.ROOT, "Data sets loaded and features computed in %.3f s.%n%n", (System.nanoTime() - start) / 1e9);
+        gridSearch.run(neighbours, smoothings);
+        System.out.printf(Locale.ROOT, "%nGrid search took %.3f s.%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Creates grid search on given data sets, computing features of every feature algorithm and statistics
+     * shared by the combinations.
+     *
+     * @param trainingSet           tokenized training documents
+     * @param testingSet            tokenized testing documents
+     * @param classificationClasses list of available classification classes
+     */
+    public GridSearch(List<Document> trainingSet, List<Document> testingSet,
+                      List<ClassificationClass> classificationClasses) {
+        this.classificationClasses = classificationClasses;
+
+        SparseVector[] trainingFrequencies = computeTermFrequencies(trainingSet);
+        SparseVector[] testingFrequencies = computeTermFrequencies(testingSet);
+        // a model classifies new documents by document frequencies of its training set, so the testing set does too
+        TFIDF tfidf = new TFIDF(DocumentFrequencies.count(trainingSet));
+        for (String featureAlgorithm : FEATURE_ALGORITHMS) {
+            List<Document> training = copyWithFeatures(trainingSet, trainingFrequencies, featureAlgorithm, tfidf);
+            trainingSets.put(featureAlgorithm, training);
+            testingSets.put(featureAlgorithm, copyWithFeatures(testingSet, testingFrequencies, featureAlgorithm, tfidf));
+
+            long start = System.nanoTime();
+            NaiveBayesClassifier bayes = new NaiveBayesClassifier(training, classificationClasses);
+            bayesCountingTimes.put(featureAlgorithm, System.nanoTime() - start);
+            bayesStatistics.put(featureAlgorithm, bayes);
+        }
+    }
+
+    /**
+     * Trains and evaluates every combination of feature algorithm with Naive Bayes classifier with given smoothing
+     * values and with k-NN classifier with given numbers of neighbours, and prints the combinations ranked
+     * by accuracy.
+     *
+     * @param neighbours numbers of nearest neighbours of {@link KNN}
+     * @param smoothings smoothing values of {@link NaiveBayesClassifier}
+     * @return results of the combinations, from the best one
+     */
+    public List<Result> run(int[] neighbours, double[] smoothings) {
+        List<Result> configurations = new ArrayList<>();
+        for (String featureAlgorithm : FEATURE_ALGORITHMS) {
+            for (double smoothing : smoothings) {
+                configurations.add(new Result(featureAlgorithm, DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER,
+                        String.format(Locale.ROOT, "smoothing=%s", smoothing), 0, smoothing));
+            }
+            for (int k : neighbours) {
+                configurations.add(new Result(featureAlgorithm, DocumentClassifierApp.KNN_CLASSIFIER, "k=" + k, k, 0));
+            }
+        }
+
+        List<Result> results = configurations.parallelStream()
+                .map(this::evaluate)
+                .filter(result -> result.report != null)
+                .sorted(Comparator.comparingDouble((Result result) -> result.report.getAccuracy()).reversed()
+                        .thenComparing(Comparator.comparingDouble((Result result) -> result.report.getMacroF1()).reversed())
+                        .thenComparingLong(result -> result.trainingTime + result.inferenceTime))
+                .collect(Collectors.toList());
+
+        System.out.printf(Locale.ROOT, "%4s  %-8s  %-10s  %-14s  %8s  %8s  %13s  %14s  %17s%n", "Rank", "Features",
+                "Classifier", "Parameters", "Accuracy", "Macro F1", "Training [ms]", "Inference [ms]", "Mean latency [ms]");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            System.out.printf(Locale.ROOT, "%4d  %-8s  %-10s  %-14s  %8.4f  %8.4f  %13.3f  %14.3f  %17.3f%n", i + 1,
+                    result.featureAlgorithm, result.classifier, result.parameters, result.report.getAccuracy(),
+                    result.report.getMacroF1(), result.trainingTime / 1e6, result.inferenceTime / 1e6,
+                    result.report.getMeanLatencyMillis());
+        }
+        return results;
+    }
+
+    /**
+     * Trains classifier of given combination and classifies the testing set by it, filling in the results.
+     *
+     * @param result combination to evaluate
+     * @return the evaluated combination
+     */
+    private Result evaluate(Result result) {
+        List<Document> trainingSet = trainingSets.get(result.featureAlgorithm);
+        long start = System.nanoTime();
+        IClassifier classifier;
+        if (result.classifier.equals(DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER)) {
+            NaiveBayesClassifier statistics = bayesStatistics.get(result.featureAlgorithm);
+            classifier = new NaiveBayesClassifier(classificationClasses, statistics.getTotalUniqueWords(),
+                    statistics.getTotalWordsInClass(), statistics.getTermCountsInClass(),
+                    statistics.getDocumentsInClass(), statistics.getNumOfDocuments(), result.smoothing);
+            // the shared statistics are part of the training of every combination
+            start -= bayesCountingTimes.get(result.featureAlgorithm);
+        } else {
+            classifier = new KNN(trainingSet, result.neighbours);
+        }
+        result.trainingTime = System.nanoTime() - start;
+
+        // the table reports mean latency of a document, so documents are classified one by one
+        result.report = new Evaluator(classifier, 1, true).evaluate(testingSets.get(result.featureAlgorithm));
+        if (result.report != null) {
+            result.inferenceTime = (long) (result.report.getMeanLatencyMillis() * 1e6 * result.report.getNumOfDocuments());
+        }
+        return result;
+    }
+
+    /**
+     * Computes term frequencies of given documents in parallel.
+     *
+     * @param documents tokenized documents
+     * @return term frequencies of each document, indexed by position of the document, null for empty documents
+     */
+    private static SparseVector[] computeTermFrequencies(List<Document> documents) {
+        TermFrequency termFrequency = new TermFrequency();
+        return documents.parallelStream()
+                .map(document -> document == null || document.isEmpty() ? null : termFrequency.computeTermFrequencies(document))
+                .toArray(SparseVector[]::new);
+    }
+
+    /**
+     * Creates copies of given documents with features of given feature algorithm derived from their term
+     * frequencies, so feature algorithms do not share mutable documents.
+     *
+     * @param documents        tokenized documents
+     * @param termFrequencies  term frequencies of each document, indexed by position of the document
+     * @param featureAlgorithm name of feature algorithm
+     * @param tfidf            algorithm weighing term frequencies by document frequencies of the training set
+     * @return copies of the documents
+     */
+    private static List<Document> copyWithFeatures(List<Document> documents, SparseVector[] termFrequencies,
+                                                   String featureAlgorithm, TFIDF tfidf) {
+        List<Document> copies = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document original = documents.get(i);
+            Document copy = new Document();
+            copy.setContent(original.getContent());
+            copy.setTerms(original.getTerms());
+            copy.setClassificationClasses(original.getClassificationClasses());
+            SparseVector features = termFrequencies[i];
+            if (features != null && featureAlgorithm.equals(DocumentClassifierApp.TF_IDF_FEATURE_ALG)) {
+                features = tfidf.computeFeatures(features);
+            } else if (features != null && featureAlgorithm.equals(DocumentClassifierApp.BIN_FEATURE_ALG)) {
+                double[] ones = new double[features.size()];
+                Arrays.fill(ones, 1.0);
+                features = new SparseVector(features.getIndices(), ones);
+            }
+            copy.setFeatures(features);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Combination of feature algorithm, classifier and its parameters with results of its evaluation.
+     */
+    public static class Result {
+
+        /**
+         * Name of feature algorithm.
+         */
+        private final String featureAlgorithm;
+
+        /**
+         * Name of classifier.
+         */
+        private final String classifier;
+
+        /**
+         * Description of parameters of the classifier.
+         */
+        private final String parameters;
+
+        /**
+         * Number of nearest neighbours of {@link KNN}.
+         */
+        private final int neighbours;
+
+        /**
+         * Smoothing of {@link NaiveBayesClassifier}.
+         */
+        private final double smoothing;
+
+        /**
+         * Time of training the classifier in nanoseconds.
+         */
+        private long trainingTime;
+
+        /**
+         * Time of classifying the testing set in nanoseconds.
+         */
+        private long inferenceTime;
+
+        /**
+         * Report of classification of the testing set, null until the combination is evaluated or if it failed.
+         */
+        private EvaluationReport report;
+
+        /**
+         * Creates combination with given parameters.
+         *
+         * @param featureAlgorithm name of feature algorithm
+         * @param classifier       name of classifier
+         * @param parameters       description of parameters of the classifier
+         * @param neighbours       number of nearest neighbours of {@link KNN}
+         * @param smoothing        smoothing of {@link NaiveBayesClassifier}
+         */
+        private Result(String featureAlgorithm, String classifier, String parameters, int neighbours, double smoothing) {
+            this.featureAlgorithm = featureAlgorithm;
+            this.classifier = classifier;
+            this.parameters = parameters;
+            this.neighbours = neighbours;
+            this.smoothing = smoothing;
+        }
+
+        /**
+         * Returns name of feature algorithm.
+         *
+         * @return name of feature algorithm
+         */
+        public String getFeatureAlgorithm() {
+            return featureAlgorithm;
+        }
+
+        /**
+         * Returns name of classifier.
+         *
+         * @return name of classifier
+         */
+        public String getClassifier() {
+            return classifier;
+        }
+
+        /**
+         * Returns description of parameters of the classifier.
+         *
+         * @return description of parameters
+         */
+        public String getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Returns time of training the classifier in nanoseconds.
+         *
+         * @return time of training
+         */
+        public long getTrainingTime() {
+            return trainingTime;
+        }
+
+        /**
+         * Returns time of classifying the testing set in nanoseconds.
+         *
+         * @return time of classification
+         */
+        public long getInferenceTime() {
+            return inferenceTime;
+        }
+
+        /**
+         * Returns report of classification of the testing set.
+         *
+         * @return report of the evaluation
+         */
+        public EvaluationReport getReport() {
+            return report;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package app;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies of operations and reports their percentiles. Keeps only a fixed number of the latest
+ * latencies, so memory does not grow with the number of operations. Can be used from several threads.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class LatencyRecorder {
+
+    /**
+     * Default number of the latest latencies kept.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The latest latencies in nanoseconds, overwritten cyclically.
+     */
+    private final long[] latencies;
+
+    /**
+     * Number of recorded latencies, including overwritten ones.
+     */
+    private long count;
+
+    /**
+     * Sum of all recorded latencies in nanoseconds.
+     */
+    private long totalLatency;
+
+    /**
+     * Creates recorder keeping {@link #DEFAULT_CAPACITY} latest latencies.
+     */
+    public LatencyRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates recorder keeping given number of latest latencies.
+     *
+     * @param capacity number of latest latencies kept
+     */
+    public LatencyRecorder(int capacity) {
+        this.latencies = new long[capacity];
+    }
+
+    /**
+     * Records latency of an operation.
+     *
+     * @param latency latency in nanoseconds
+     */
+    public synchronized void record(long latency) {
+        latencies[(int) (count % latencies.length)] = latency;
+        count++;
+        totalLatency += latency;
+    }
+
+    /**
+     * Returns number of recorded latencies.
+     *
+     * @return number of recorded latencies
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns mean of all recorded latencies.
+     *
+     * @return mean latency in milliseconds, 0 if nothing was recorded
+     */
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : totalLatency / 1e6 / count;
+    }
+
+    /**
+     * Returns given percentile of the latest recorded latencies.
+     *
+     * @param percentile wanted percentile between 0 and 100
+     * @return latency in milliseconds, 0 if nothing was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, (int) Math.min(count, latencies.length));
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
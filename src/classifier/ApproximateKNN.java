@@ -0,0 +1,598 @@
+package classifier;
+
+import utils.ClassificationClass;
+import utils.Document;
+import utils.SparseVector;
+
+import java.util.*;
+
+/**
+ * Approximate variant of {@link KNN}. Documents of the model are stored in a hierarchical navigable small world
+ * graph, which is searched greedily from the top layer for documents most similar to classified document.
+ * Only a small part of the model is visited, so classification is much faster than exact search on large models,
+ * in exchange for a chance of missing some of the nearest neighbours.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class ApproximateKNN implements IClassifier {
+
+    /**
+     * Default maximal number of neighbours of a document in each layer of the graph above the bottom one.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    /**
+     * Default number of candidates examined when a document is inserted into the graph.
+     */
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    /**
+     * Default number of candidates examined when searching for neighbours of classified document.
+     */
+    public static final int DEFAULT_EF_SEARCH = 50;
+
+    /**
+     * Seed of random generator assigning layers to documents, so the same documents always build the same graph.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * List of documents in model.
+     */
+    private List<Document> documents;
+
+    /**
+     * Classification classes of documents in model, indexed by their positions in {@link #documents}.
+     */
+    private final DocumentClasses documentClasses = new DocumentClasses();
+
+    /**
+     * Number of nearest neighbours to find.
+     */
+    private final int k;
+
+    /**
+     * Maximal number of neighbours of a document in each layer above the bottom one. The bottom layer allows
+     * twice as many.
+     */
+    private final int maxConnections;
+
+    /**
+     * Number of candidates examined when a document is inserted into the graph.
+     */
+    private final int efConstruction;
+
+    /**
+     * Number of candidates examined when searching for neighbours of classified document.
+     */
+    private final int efSearch;
+
+    /**
+     * The graph - for each document, for each layer the document is in, positions of its neighbours in model.
+     * Documents without features are in no layer.
+     */
+    private int[][][] graph;
+
+    /**
+     * Position of the document the search starts from, the one in the highest layer.
+     */
+    private int entryPoint = -1;
+
+    /**
+     * Highest layer of the graph.
+     */
+    private int topLayer = -1;
+
+    /**
+     * Zeroed dense vector indexed by term IDs, used while building the graph.
+     */
+    private double[] denseFeatures;
+
+    /**
+     * Per-thread marks of documents visited during the search.
+     */
+    private final ThreadLocal<VisitedMarks> visitedMarks;
+
+    /**
+     * Version of the model, incremented every time the model changes.
+     */
+    private volatile long modelVersion;
+
+    /**
+     * Creates classifier and builds the graph from given documents.
+     *
+     * @param documents      documents in model
+     * @param k              number of nearest neighbours to find
+     * @param maxConnections maximal number of neighbours of a document in each layer above the bottom one
+     * @param efConstruction number of candidates examined when a document is inserted into the graph
+     * @param efSearch       number of candidates examined when searching for neighbours
+     */
+    public ApproximateKNN(List<Document> documents, int k, int maxConnections, int efConstruction, int efSearch) {
+        this(documents, k, maxConnections, efConstruction, efSearch, null);
+    }
+
+    /**
+     * Creates classifier over given documents with previously built graph.
+     *
+     * @param documents      documents in model
+     * @param k              number of nearest neighbours to find
+     * @param maxConnections maximal number of neighbours of a document in each layer above the bottom one
+     * @param efConstruction number of candidates examined when a document is inserted into the graph
+     * @param efSearch       number of candidates examined when searching for neighbours
+     * @param graph          graph built over given documents, or null to build a new one
+     */
+    public ApproximateKNN(List<Document> documents, int k, int maxConnections, int efConstruction, int efSearch,
+                          int[][][] graph) {
+        if (k < 1 || maxConnections < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("Invalid parameters of approximate k-nearest neighbours! (k: " + k
+                    + ", M: " + maxConnections + ", efConstruction: " + efConstruction + ", efSearch: " + efSearch + ")");
+        }
+        this.documents = documents;
+        documentClasses.addAll(documents);
+        this.k = k;
+        this.maxConnections = maxConnections;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.visitedMarks = ThreadLocal.withInitial(() -> new VisitedMarks(this.documents.size()));
+
+        if (graph != null) {
+            if (graph.length != documents.size()) {
+                throw new IllegalArgumentException("Graph does not match documents of the model!");
+            }
+            this.graph = graph;
+            for (int node = 0; node < graph.length; node++) {
+                if (graph[node].length - 1 > topLayer) {
+                    topLayer = graph[node].length - 1;
+                    entryPoint = node;
+                }
+            }
+        } else {
+            this.graph = new int[documents.size()][][];
+            buildGraph();
+        }
+    }
+
+    @Override
+    public List<ClassificationClass> classifyDocument(Document document) {
+        List<Neighbour> nearestNeighbours = findNearestNeighbours(document);
+        if (nearestNeighbours == null) {
+            return null;
+        }
+        return KNN.vote(documentClasses, nearestNeighbours);
+    }
+
+    /**
+     * Classifies given document into the class most common among its approximate nearest neighbours. Score
+     * of the decision is the share of neighbours belonging to the class.
+     *
+     * @param document classified document
+     * @return the winning class with its share of votes, or null if the document has no neighbours
+     */
+    @Override
+    public Prediction predictDocument(Document document) {
+        List<Neighbour> nearestNeighbours = findNearestNeighbours(document);
+        if (nearestNeighbours == null) {
+            return null;
+        }
+        return KNN.predict(documentClasses, nearestNeighbours);
+    }
+
+    /**
+     * Returns approximately k documents in model most similar to given document, ordered from the most similar
+     * one. Documents not sharing any term with given document are never returned.
+     *
+     * @param document classified document
+     * @return nearest neighbours of given document, or null if the document has no features
+     */
+    public List<Neighbour> findNearestNeighbours(Document document) {
+        if (document == null || document.isEmpty() || document.getFeatures() == null) {
+            return null;
+        }
+        List<Neighbour> result = new ArrayList<>();
+        if (entryPoint < 0) {
+            return result;
+        }
+
+        SparseVector features = document.getFeatures();
+        Neighbour nearest = new Neighbour(entryPoint, similarity(features, entryPoint));
+        for (int layer = topLayer; layer > 0; layer--) {
+            nearest = Collections.max(searchLayer(features, Collections.singletonList(nearest), 1, layer));
+        }
+
+        List<Neighbour> candidates = searchLayer(features, Collections.singletonList(nearest), Math.max(efSearch, k), 0);
+        candidates.sort(Collections.reverseOrder());
+        for (Neighbour candidate : candidates) {
+            if (result.size() == k) {
+                break;
+            }
+            if (candidate.getSimilarity() > 0) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inserts all documents with features into the graph.
+     */
+    private void buildGraph() {
+        insertDocuments(0);
+    }
+
+    /**
+     * Adds given documents to the model and inserts them into the graph. Documents already in the graph are only
+     * linked to the new ones, so the cost depends on the added documents and not on the size of the model.
+     *
+     * @param newDocuments added documents
+     */
+    @Override
+    public void addDocuments(List<Document> newDocuments) {
+        if (!(documents instanceof ArrayList)) {
+            documents = new ArrayList<>(documents);
+        }
+        int firstDocument = documents.size();
+        documents.addAll(newDocuments);
+        documentClasses.addAll(newDocuments);
+        graph = Arrays.copyOf(graph, documents.size());
+        insertDocuments(firstDocument);
+        modelVersion++;
+    }
+
+    @Override
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Inserts documents from given position to the end of the model into the graph.
+     *
+     * @param firstDocument position of the first inserted document
+     */
+    private void insertDocuments(int firstDocument) {
+        Random random = new Random(SEED + firstDocument);
+        double levelMultiplier = 1 / Math.log(maxConnections);
+        // number of neighbours of each document in each layer, the neighbour arrays have spare capacity while building
+        int[][] sizes = new int[documents.size()][];
+        for (int node = 0; node < firstDocument; node++) {
+            sizes[node] = new int[graph[node].length];
+            for (int layer = 0; layer < graph[node].length; layer++) {
+                sizes[node][layer] = graph[node][layer].length;
+            }
+        }
+        int numOfTerms = 0;
+        for (int node = firstDocument; node < documents.size(); node++) {
+            SparseVector features = documents.get(node).getFeatures();
+            if (features != null && features.size() > 0) {
+                numOfTerms = Math.max(numOfTerms, features.getIndices()[features.size() - 1] + 1);
+            }
+        }
+        denseFeatures = new double[numOfTerms];
+
+        for (int node = firstDocument; node < documents.size(); node++) {
+            SparseVector features = documents.get(node).getFeatures();
+            if (features == null || features.size() == 0) {
+                graph[node] = new int[0][];
+                sizes[node] = new int[0];
+                continue;
+            }
+            int nodeLayer = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            graph[node] = new int[nodeLayer + 1][];
+            sizes[node] = new int[nodeLayer + 1];
+            for (int layer = 0; layer <= nodeLayer; layer++) {
+                graph[node][layer] = new int[getMaxConnections(layer) + 1];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                topLayer = nodeLayer;
+                continue;
+            }
+
+            Neighbour nearest = new Neighbour(entryPoint, similarity(features, entryPoint));
+            for (int layer = topLayer; layer > nodeLayer; layer--) {
+                nearest = Collections.max(searchLayer(features, Collections.singletonList(nearest), 1, layer, sizes));
+            }
+
+            List<Neighbour> entryPoints = Collections.singletonList(nearest);
+            for (int layer = Math.min(topLayer, nodeLayer); layer >= 0; layer--) {
+                List<Neighbour> candidates = searchLayer(features, entryPoints, efConstruction, layer, sizes);
+                List<Neighbour> neighbours = selectNeighbours(candidates, getMaxConnections(layer));
+                for (Neighbour neighbour : neighbours) {
+                    graph[node][layer][sizes[node][layer]++] = neighbour.getDocument();
+                    connect(neighbour.getDocument(), node, neighbour.getSimilarity(), layer, sizes);
+                }
+                entryPoints = candidates;
+            }
+
+            if (nodeLayer > topLayer) {
+                entryPoint = node;
+                topLayer = nodeLayer;
+            }
+        }
+
+        for (int node = 0; node < graph.length; node++) {
+            for (int layer = 0; layer < graph[node].length; layer++) {
+                if (graph[node][layer].length != sizes[node][layer]) {
+                    graph[node][layer] = Arrays.copyOf(graph[node][layer], sizes[node][layer]);
+                }
+            }
+        }
+        denseFeatures = null;
+    }
+
+    /**
+     * Adds given document to neighbours of given node. If the node has too many neighbours then, the least similar
+     * one is dropped - the diversity heuristic is used only for new documents, as it is too costly on sparse vectors.
+     *
+     * @param node       position of the node in model
+     * @param neighbour  position of new neighbour in model
+     * @param similarity similarity of the node and new neighbour
+     * @param layer      layer of the graph
+     * @param sizes      numbers of neighbours of each document in each layer
+     */
+    private void connect(int node, int neighbour, double similarity, int layer, int[][] sizes) {
+        if (graph[node][layer].length == sizes[node][layer]) {
+            // neighbours of documents inserted before are stored without spare capacity
+            graph[node][layer] = Arrays.copyOf(graph[node][layer], getMaxConnections(layer) + 1);
+        }
+        int[] links = graph[node][layer];
+        links[sizes[node][layer]++] = neighbour;
+        if (sizes[node][layer] <= getMaxConnections(layer)) {
+            return;
+        }
+
+        SparseVector features = documents.get(node).getFeatures();
+        List<Neighbour> candidates = new ArrayList<>(links.length);
+        for (int i = 0; i < links.length; i++) {
+            candidates.add(links[i] == neighbour ? new Neighbour(neighbour, similarity)
+                    : new Neighbour(links[i], similarity(features, links[i])));
+        }
+        candidates.sort(Collections.reverseOrder());
+        List<Neighbour> kept = candidates.subList(0, getMaxConnections(layer));
+        sizes[node][layer] = 0;
+        for (Neighbour keptNeighbour : kept) {
+            links[sizes[node][layer]++] = keptNeighbour.getDocument();
+        }
+    }
+
+    /**
+     * Selects at most given number of neighbours from candidates, preferring candidates which are nearer
+     * to the document than to already selected neighbours, so the neighbours point in different directions.
+     * Remaining places are filled with the nearest discarded candidates.
+     *
+     * @param candidates candidate neighbours with their similarities to the document
+     * @param count      maximal number of selected neighbours
+     * @return selected neighbours
+     */
+    private List<Neighbour> selectNeighbours(List<Neighbour> candidates, int count) {
+        List<Neighbour> sorted = new ArrayList<>(candidates);
+        sorted.sort(Collections.reverseOrder());
+        List<Neighbour> selected = new ArrayList<>(count);
+        List<Neighbour> discarded = new ArrayList<>();
+
+        for (Neighbour candidate : sorted) {
+            if (selected.size() == count) {
+                break;
+            }
+            // candidate is scattered into dense array, so its similarity to each selected neighbour costs
+            // only one pass over the features of the neighbour
+            SparseVector features = documents.get(candidate.getDocument()).getFeatures();
+            int[] terms = features.getIndices();
+            if (terms[terms.length - 1] >= denseFeatures.length) {
+                denseFeatures = new double[terms[terms.length - 1] + 1];
+            }
+            for (int i = 0; i < terms.length; i++) {
+                denseFeatures[terms[i]] = features.getValues()[i];
+            }
+            boolean isDiverse = true;
+            for (Neighbour neighbour : selected) {
+                SparseVector neighbourFeatures = documents.get(neighbour.getDocument()).getFeatures();
+                double similarity = neighbourFeatures.dot(denseFeatures) / (features.getNorm() * neighbourFeatures.getNorm());
+                if (similarity > candidate.getSimilarity()) {
+                    isDiverse = false;
+                    break;
+                }
+            }
+            for (int term : terms) {
+                denseFeatures[term] = 0;
+            }
+            if (isDiverse) {
+                selected.add(candidate);
+            } else {
+                discarded.add(candidate);
+            }
+        }
+        for (int i = 0; i < discarded.size() && selected.size() < count; i++) {
+            selected.add(discarded.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Searches given layer of finished graph for the documents most similar to given features.
+     *
+     * @param features    features of searched document
+     * @param entryPoints documents the search starts from
+     * @param ef          number of most similar documents to keep
+     * @param layer       searched layer
+     * @return at most ef most similar documents found
+     */
+    private List<Neighbour> searchLayer(SparseVector features, List<Neighbour> entryPoints, int ef, int layer) {
+        return searchLayer(features, entryPoints, ef, layer, null);
+    }
+
+    /**
+     * Searches given layer of the graph for the documents most similar to given features.
+     *
+     * @param features    features of searched document
+     * @param entryPoints documents the search starts from
+     * @param ef          number of most similar documents to keep
+     * @param layer       searched layer
+     * @param sizes       numbers of neighbours of each document in each layer while building, null for finished graph
+     * @return at most ef most similar documents found
+     */
+    private List<Neighbour> searchLayer(SparseVector features, List<Neighbour> entryPoints, int ef, int layer,
+                                        int[][] sizes) {
+        VisitedMarks visited = visitedMarks.get();
+        if (visited.marks.length < graph.length) {
+            visited = new VisitedMarks(graph.length);
+            visitedMarks.set(visited);
+        }
+        visited.clear();
+        PriorityQueue<Neighbour> candidates = new PriorityQueue<>(Collections.reverseOrder());
+        // the least similar of found documents on top
+        PriorityQueue<Neighbour> found = new PriorityQueue<>();
+        for (Neighbour entryPoint : entryPoints) {
+            visited.mark(entryPoint.getDocument());
+            candidates.add(entryPoint);
+            found.add(entryPoint);
+            if (found.size() > ef) {
+                found.poll();
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            Neighbour candidate = candidates.poll();
+            if (candidate.compareTo(found.peek()) < 0) {
+                break;
+            }
+            int[] links = graph[candidate.getDocument()][layer];
+            int numOfLinks = sizes == null ? links.length : sizes[candidate.getDocument()][layer];
+            for (int i = 0; i < numOfLinks; i++) {
+                if (!visited.mark(links[i])) {
+                    continue;
+                }
+                Neighbour neighbour = new Neighbour(links[i], similarity(features, links[i]));
+                if (found.size() < ef || neighbour.compareTo(found.peek()) > 0) {
+                    candidates.add(neighbour);
+                    found.add(neighbour);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Returns cosine similarity of given features and features of document at given position in model.
+     *
+     * @param features features of a document
+     * @param node     position of the document in model
+     * @return cosine similarity of the documents
+     */
+    private double similarity(SparseVector features, int node) {
+        SparseVector nodeFeatures = documents.get(node).getFeatures();
+        double norms = features.getNorm() * nodeFeatures.getNorm();
+        return norms == 0 ? 0 : features.dot(nodeFeatures) / norms;
+    }
+
+    /**
+     * Returns maximal number of neighbours of a document in given layer.
+     *
+     * @param layer layer of the graph
+     * @return maximal number of neighbours in the layer
+     */
+    private int getMaxConnections(int layer) {
+        return layer == 0 ? 2 * maxConnections : maxConnections;
+    }
+
+    /**
+     * Returns number of nearest neighbours this classifier finds.
+     *
+     * @return number of nearest neighbours
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns maximal number of neighbours of a document in each layer of the graph above the bottom one.
+     *
+     * @return maximal number of neighbours in a layer
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns number of candidates examined when a document is inserted into the graph.
+     *
+     * @return number of candidates examined when building
+     */
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    /**
+     * Returns number of candidates examined when searching for neighbours of classified document.
+     *
+     * @return number of candidates examined when searching
+     */
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * Returns documents in model.
+     *
+     * @return documents in model, including added ones
+     */
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the graph - for each document, for each layer the document is in, positions of its neighbours.
+     *
+     * @return the graph of documents
+     */
+    public int[][][] getGraph() {
+        return graph;
+    }
+
+    /**
+     * Marks of visited documents, cleared in constant time by changing the current mark.
+     */
+    private static class VisitedMarks {
+
+        /**
+         * Mark of each document, document is visited if its mark equals {@link #currentMark}.
+         */
+        private final int[] marks;
+
+        /**
+         * Mark of documents visited during current search.
+         */
+        private int currentMark;
+
+        private VisitedMarks(int numOfDocuments) {
+            this.marks = new int[numOfDocuments];
+        }
+
+        /**
+         * Unmarks all documents.
+         */
+        private void clear() {
+            currentMark++;
+            if (currentMark == 0) {
+                Arrays.fill(marks, 0);
+                currentMark = 1;
+            }
+        }
+
+        /**
+         * Marks given document as visited.
+         *
+         * @param document position of the document in model
+         * @return true if the document was not visited before
+         */
+        private boolean mark(int document) {
+            if (marks[document] == currentMark) {
+                return false;
+            }
+            marks[document] = currentMark;
+            return true;
+        }
+    }
+}
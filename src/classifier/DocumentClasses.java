@@ -0,0 +1,93 @@
+package classifier;
+
+import utils.ClassificationClass;
+import utils.Document;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classification classes of documents in model of a nearest neighbours classifier, indexed by positions
+ * of the documents and stored as compressed sparse rows. Neighbours vote by their classes kept here, so documents
+ * in model, which may be decoded from a mapped model file on every access, are not read to classify a document.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class DocumentClasses {
+
+    /**
+     * Offsets of the classes of each document into {@link #classes}, one more than there are documents,
+     * with spare capacity.
+     */
+    private int[] offsets = new int[16];
+
+    /**
+     * Classes of all documents, with spare capacity.
+     */
+    private ClassificationClass[] classes = new ClassificationClass[16];
+
+    /**
+     * Number of documents.
+     */
+    private int numOfDocuments;
+
+    /**
+     * Adds classes of given documents after the documents added before.
+     *
+     * @param documents added documents
+     */
+    void addAll(List<Document> documents) {
+        for (Document document : documents) {
+            add(document.getClassificationClasses());
+        }
+    }
+
+    /**
+     * Adds classes of the next document.
+     *
+     * @param documentClasses classification classes of the document
+     */
+    void add(List<ClassificationClass> documentClasses) {
+        if (numOfDocuments + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        int start = offsets[numOfDocuments];
+        if (start + documentClasses.size() > classes.length) {
+            classes = Arrays.copyOf(classes, Math.max(start + documentClasses.size(), classes.length * 2));
+        }
+        for (ClassificationClass classificationClass : documentClasses) {
+            classes[start++] = classificationClass;
+        }
+        offsets[++numOfDocuments] = start;
+    }
+
+    /**
+     * Returns position of the first class of document at given position.
+     *
+     * @param document position of the document in model
+     * @return position of the first class of the document
+     */
+    int getStart(int document) {
+        return offsets[document];
+    }
+
+    /**
+     * Returns position following the last class of document at given position.
+     *
+     * @param document position of the document in model
+     * @return position after the last class of the document
+     */
+    int getEnd(int document) {
+        return offsets[document + 1];
+    }
+
+    /**
+     * Returns class at given position.
+     *
+     * @param position position of the class, between start and end of a document
+     * @return classification class
+     */
+    ClassificationClass get(int position) {
+        return classes[position];
+    }
+}
@@ -3,6 +3,7 @@ package classifier;
 import utils.ClassificationClass;
 import utils.Document;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -19,4 +20,69 @@ public interface IClassifier {
      * @return classification classes assigned to document
      */
     List<ClassificationClass> classifyDocument(Document document);
+
+    /**
+     * Classifies given document into the most probable classification class and rates the decision. Classifiers
+     * able to rate their decisions override this method, by default the score is not known.
+     *
+     * @param document classified document
+     * @return assigned classification class with the score of the decision, or null if the document
+     * could not be classified
+     */
+    default Prediction predictDocument(Document document) {
+        List<ClassificationClass> classes = classifyDocument(document);
+        if (classes == null || classes.isEmpty()) {
+            return null;
+        }
+        return new Prediction(classes.get(0), Double.NaN);
+    }
+
+    /**
+     * Classifies each of given documents into one or more classification classes. Classifiers able to share
+     * work between documents override this method, by default documents are classified one by one.
+     *
+     * @param documents classified documents
+     * @return classification classes assigned to each document, in order of given documents
+     */
+    default List<List<ClassificationClass>> classifyDocuments(List<Document> documents) {
+        List<List<ClassificationClass>> result = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            result.add(classifyDocument(document));
+        }
+        return result;
+    }
+
+    /**
+     * Classifies each of given documents and rates the decisions. Classifiers able to share work between documents
+     * override this method, by default documents are classified one by one.
+     *
+     * @param documents classified documents
+     * @return assigned classification class with the score of the decision for each document, in order of given
+     * documents, null for documents which could not be classified
+     */
+    default List<Prediction> predictDocuments(List<Document> documents) {
+        List<Prediction> result = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            result.add(predictDocument(document));
+        }
+        return result;
+    }
+
+    /**
+     * Adds given labelled documents to the model of this classifier without training it again from scratch.
+     * Features of given documents must be computed by the same feature algorithm as features of documents
+     * already in model. Must not be called while documents are being classified.
+     *
+     * @param documents added documents
+     */
+    void addDocuments(List<Document> documents);
+
+    /**
+     * Returns version of the model of this classifier, which changes every time the model changes, for example
+     * when documents are added to it. Results computed at one version are not valid at any other, so whoever keeps
+     * them compares the versions instead of being notified of the changes.
+     *
+     * @return version of the model
+     */
+    long getModelVersion();
 }
@@ -2,66 +2,561 @@ package classifier;
 
 import utils.ClassificationClass;
 import utils.Document;
+import utils.SparseVector;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Finds k nearest neighbours of classified document and returns classification class based on theirs.
+ * Neighbours are the training documents with the highest cosine similarity to classified document. Only documents
+ * sharing at least one term with classified document are scored, using inverted index built when the classifier
+ * is created.
  *
  * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
  */
 public class KNN implements IClassifier {
 
+    /**
+     * Default number of nearest neighbours to find.
+     */
+    public static final int DEFAULT_K = 1;
+
+    /**
+     * Maximal number of documents classified together by one task in {@link #classifyDocuments(List)}.
+     */
+    private static final int QUERY_BLOCK_SIZE = 32;
+
+    /**
+     * Number of documents in model scored at once in {@link #classifyDocuments(List)}. Together with
+     * {@link #QUERY_BLOCK_SIZE} it keeps the accumulator of dot products within the size of L2 cache.
+     */
+    private static final int TILE_SIZE = 1024;
+
     /**
      * Number of nearest neighbours to find.
      */
-    private static final int K = 1;
+    private final int k;
 
     /**
      * List of documents in model.
      */
-    private final List<Document> documents;
+    private List<Document> documents;
+
+    /**
+     * Classification classes of documents in model, indexed by their positions in {@link #documents}.
+     */
+    private final DocumentClasses documentClasses = new DocumentClasses();
+
+    /**
+     * L2 norms of feature vectors of documents in model, indexed by position of document in {@link #documents}.
+     */
+    private double[] norms;
+
+    /**
+     * Inverted index - for each term ID, positions of documents in {@link #documents} containing the term.
+     */
+    private int[][] postingDocuments;
+
+    /**
+     * Values of the term in documents, parallel to {@link #postingDocuments}.
+     */
+    private double[][] postingValues;
+
+    /**
+     * Per-thread accumulator of dot products of classified document with each document in model.
+     */
+    private final ThreadLocal<double[]> accumulators;
+
+    /**
+     * Version of the model, incremented every time the model changes.
+     */
+    private volatile long modelVersion;
 
     public KNN(List<Document> documents) {
+        this(documents, DEFAULT_K);
+    }
+
+    /**
+     * Creates classifier finding given number of nearest neighbours in given documents.
+     *
+     * @param documents documents in model
+     * @param k         number of nearest neighbours to find
+     */
+    public KNN(List<Document> documents, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of nearest neighbours must be positive! (k: " + k + ")");
+        }
         this.documents = documents;
+        this.k = k;
+        this.norms = new double[documents.size()];
+
+        // documents may be decoded on every access, so they are read only twice - to count postings and to fill them
+        // with their classes
+        int numOfTerms = 0;
+        int[] postingLengths = new int[0];
+        for (Document document : documents) {
+            SparseVector features = document.getFeatures();
+            if (features == null || features.size() == 0) {
+                continue;
+            }
+            int[] terms = features.getIndices();
+            numOfTerms = Math.max(numOfTerms, terms[terms.length - 1] + 1);
+            if (numOfTerms > postingLengths.length) {
+                postingLengths = Arrays.copyOf(postingLengths, Math.max(numOfTerms, postingLengths.length * 2));
+            }
+            for (int term : terms) {
+                postingLengths[term]++;
+            }
+        }
+
+        this.postingDocuments = new int[numOfTerms][];
+        this.postingValues = new double[numOfTerms][];
+        for (int term = 0; term < numOfTerms; term++) {
+            postingDocuments[term] = new int[postingLengths[term]];
+            postingValues[term] = new double[postingLengths[term]];
+            postingLengths[term] = 0;
+        }
+
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            documentClasses.add(document.getClassificationClasses());
+            SparseVector features = document.getFeatures();
+            if (features == null) {
+                continue;
+            }
+            norms[i] = features.getNorm();
+            int[] terms = features.getIndices();
+            double[] values = features.getValues();
+            for (int j = 0; j < terms.length; j++) {
+                int position = postingLengths[terms[j]]++;
+                postingDocuments[terms[j]][position] = i;
+                postingValues[terms[j]][position] = values[j];
+            }
+        }
+
+        this.accumulators = ThreadLocal.withInitial(() -> new double[this.documents.size()]);
     }
 
     @Override
     public List<ClassificationClass> classifyDocument(Document document) {
-        if (document == null || document.getContent().isEmpty()) {
+        List<Neighbour> nearestNeighbours = findNearestNeighbours(document);
+        if (nearestNeighbours == null) {
+            return null;
+        }
+        return vote(documentClasses, nearestNeighbours);
+    }
+
+    /**
+     * Classifies given document into the class most common among its nearest neighbours. Score of the decision
+     * is the share of neighbours belonging to the class.
+     *
+     * @param document classified document
+     * @return the winning class with its share of votes, or null if the document has no neighbours
+     */
+    @Override
+    public Prediction predictDocument(Document document) {
+        List<Neighbour> nearestNeighbours = findNearestNeighbours(document);
+        if (nearestNeighbours == null) {
+            return null;
+        }
+        return predict(documentClasses, nearestNeighbours);
+    }
+
+    /**
+     * Returns k documents in model most similar to given document, ordered from the most similar one.
+     * Documents not sharing any term with given document are never returned.
+     *
+     * @param document classified document
+     * @return nearest neighbours of given document, or null if the document has no features
+     */
+    public List<Neighbour> findNearestNeighbours(Document document) {
+        if (document == null || document.isEmpty() || document.getFeatures() == null) {
             return null;
         }
-        Map<Document, Double> distances = new HashMap<>();
-        for (Document trainingDocument : documents) {
-            double distance = 0;
-            for (Map.Entry<String, Double> wordValue : document.getFeatures().entrySet()) {
-                double value = 0;
-                try {
-                    value = trainingDocument.getFeatures().get(wordValue.getKey());
-                } catch (NullPointerException e) {
-                    // if not found, we let value at 0
+
+        double[] accumulator = accumulators.get();
+        if (accumulator.length < documents.size()) {
+            accumulator = new double[documents.size()];
+            accumulators.set(accumulator);
+        }
+        int[] candidates = new int[Math.min(documents.size(), 16)];
+        int numOfCandidates = 0;
+
+        SparseVector features = document.getFeatures();
+        int[] terms = features.getIndices();
+        double[] values = features.getValues();
+        for (int i = 0; i < terms.length && terms[i] < postingDocuments.length; i++) {
+            int[] postings = postingDocuments[terms[i]];
+            double[] postingValue = postingValues[terms[i]];
+            for (int j = 0; j < postings.length; j++) {
+                if (accumulator[postings[j]] == 0) {
+                    if (numOfCandidates == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                    }
+                    candidates[numOfCandidates++] = postings[j];
                 }
-                distance += (wordValue.getValue() - value) *
-                        (wordValue.getValue() - value);
-            }
-            distance = Math.sqrt(distance);
-            distances.put(trainingDocument, distance);
-        }
-
-        Map<ClassificationClass, Integer> classificationClasses = new HashMap<>();
-        for (int i = 0; i < K; i++) {
-            Document nearestNeighbour = Collections.max(distances.entrySet(), Comparator.comparingDouble(Map.Entry::getValue)).getKey();
-            distances.remove(nearestNeighbour);
-            for (ClassificationClass classificationClass : nearestNeighbour.getClassificationClasses()) {
-                if (classificationClasses.containsKey(classificationClass)) {
-                    classificationClasses.put(classificationClass, classificationClasses.get(classificationClass) + 1);
-                } else {
-                    classificationClasses.put(classificationClass, 1);
+                accumulator[postings[j]] += values[i] * postingValue[j];
+            }
+        }
+
+        // min-heap of at most k most similar documents, the least similar one on top
+        PriorityQueue<Neighbour> nearestNeighbours = new PriorityQueue<>(k + 1);
+        for (int i = 0; i < numOfCandidates; i++) {
+            int candidate = candidates[i];
+            double similarity = accumulator[candidate] / (features.getNorm() * norms[candidate]);
+            accumulator[candidate] = 0;
+            if (Double.isNaN(similarity) || similarity <= 0) {
+                continue;
+            }
+            offer(nearestNeighbours, new Neighbour(candidate, similarity), k);
+        }
+
+        List<Neighbour> result = new ArrayList<>(nearestNeighbours);
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    /**
+     * Classifies given documents at once. Similarities of blocks of classified documents to tiles of documents
+     * in model are computed as a sparse matrix product in an accumulator small enough to stay in cache, and
+     * the blocks are processed in parallel on the common fork/join pool. Results are the same as when
+     * the documents are classified one by one.
+     *
+     * @param documents classified documents
+     * @return classification classes assigned to each document, in order of given documents
+     */
+    @Override
+    public List<List<ClassificationClass>> classifyDocuments(List<Document> documents) {
+        List<List<ClassificationClass>> result = new ArrayList<>(documents.size());
+        for (Collection<Neighbour> nearestNeighbours : findNearestNeighbours(documents)) {
+            result.add(nearestNeighbours == null ? null : vote(documentClasses, nearestNeighbours));
+        }
+        return result;
+    }
+
+    /**
+     * Classifies given documents at once, the same way as {@link #classifyDocuments(List)} does, and rates
+     * the decisions as {@link #predictDocument(Document)} does.
+     *
+     * @param documents classified documents
+     * @return the winning class with its share of votes for each document, in order of given documents
+     */
+    @Override
+    public List<Prediction> predictDocuments(List<Document> documents) {
+        List<Prediction> result = new ArrayList<>(documents.size());
+        for (Collection<Neighbour> nearestNeighbours : findNearestNeighbours(documents)) {
+            result.add(nearestNeighbours == null ? null : predict(documentClasses, nearestNeighbours));
+        }
+        return result;
+    }
+
+    /**
+     * Finds k documents in model most similar to each of given documents at once.
+     *
+     * @param queries classified documents
+     * @return nearest neighbours of each document in no particular order, null for documents without features
+     */
+    private List<Collection<Neighbour>> findNearestNeighbours(List<Document> queries) {
+        List<Collection<Neighbour>> result = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        ForkJoinPool.commonPool().invoke(new BatchTask(queries, result, 0, queries.size()));
+        return result;
+    }
+
+    /**
+     * Finds nearest neighbours of block of documents, storing them into given list.
+     *
+     * @param queries classified documents
+     * @param result  list the nearest neighbours are stored to, at positions of classified documents
+     * @param from    position of first classified document of the block, inclusive
+     * @param to      position of last classified document of the block, exclusive
+     */
+    private void classifyBlock(List<Document> queries, List<Collection<Neighbour>> result, int from, int to) {
+        int blockSize = to - from;
+        SparseVector[] features = new SparseVector[blockSize];
+        // position of the first posting of each query term not yet processed, postings are sorted by document
+        int[][] cursors = new int[blockSize][];
+        List<PriorityQueue<Neighbour>> nearestNeighbours = new ArrayList<>(blockSize);
+        for (int q = 0; q < blockSize; q++) {
+            Document query = queries.get(from + q);
+            if (query != null && !query.isEmpty() && query.getFeatures() != null) {
+                features[q] = query.getFeatures();
+                cursors[q] = new int[features[q].size()];
+            }
+            nearestNeighbours.add(new PriorityQueue<>(k + 1));
+        }
+
+        int tileSize = Math.min(TILE_SIZE, Math.max(documents.size(), 1));
+        double[] accumulator = new double[blockSize * tileSize];
+        for (int tileStart = 0; tileStart < documents.size(); tileStart += tileSize) {
+            int tileEnd = Math.min(tileStart + tileSize, documents.size());
+
+            for (int q = 0; q < blockSize; q++) {
+                if (features[q] == null) {
+                    continue;
+                }
+                int[] terms = features[q].getIndices();
+                double[] values = features[q].getValues();
+                int offset = q * tileSize - tileStart;
+                for (int i = 0; i < terms.length && terms[i] < postingDocuments.length; i++) {
+                    int[] postings = postingDocuments[terms[i]];
+                    double[] postingValue = postingValues[terms[i]];
+                    int j = cursors[q][i];
+                    for (; j < postings.length && postings[j] < tileEnd; j++) {
+                        accumulator[offset + postings[j]] += values[i] * postingValue[j];
+                    }
+                    cursors[q][i] = j;
+                }
+
+                for (int candidate = tileStart; candidate < tileEnd; candidate++) {
+                    double dotProduct = accumulator[offset + candidate];
+                    if (dotProduct == 0) {
+                        continue;
+                    }
+                    accumulator[offset + candidate] = 0;
+                    double similarity = dotProduct / (features[q].getNorm() * norms[candidate]);
+                    if (Double.isNaN(similarity) || similarity <= 0) {
+                        continue;
+                    }
+                    offer(nearestNeighbours.get(q), new Neighbour(candidate, similarity), k);
                 }
             }
         }
+
+        for (int q = 0; q < blockSize; q++) {
+            if (features[q] != null) {
+                result.set(from + q, nearestNeighbours.get(q));
+            }
+        }
+    }
+
+    /**
+     * Adds given neighbour to the heap of nearest neighbours if it is among the k nearest ones.
+     *
+     * @param nearestNeighbours min-heap of at most k nearest neighbours
+     * @param neighbour         candidate neighbour
+     * @param k                 number of nearest neighbours to find
+     */
+    static void offer(PriorityQueue<Neighbour> nearestNeighbours, Neighbour neighbour, int k) {
+        if (nearestNeighbours.size() < k) {
+            nearestNeighbours.add(neighbour);
+        } else if (neighbour.compareTo(nearestNeighbours.peek()) > 0) {
+            nearestNeighbours.poll();
+            nearestNeighbours.add(neighbour);
+        }
+    }
+
+    /**
+     * Adds given documents to the model and to the inverted index. Only postings of the terms of added documents
+     * are copied, so the cost depends on the added documents and not on the size of the model.
+     *
+     * @param newDocuments added documents
+     */
+    @Override
+    public void addDocuments(List<Document> newDocuments) {
+        if (!(documents instanceof ArrayList)) {
+            documents = new ArrayList<>(documents);
+        }
+        int firstDocument = documents.size();
+        documents.addAll(newDocuments);
+        documentClasses.addAll(newDocuments);
+        norms = Arrays.copyOf(norms, documents.size());
+
+        int numOfTerms = postingDocuments.length;
+        for (Document document : newDocuments) {
+            SparseVector features = document.getFeatures();
+            if (features != null && features.size() > 0) {
+                numOfTerms = Math.max(numOfTerms, features.getIndices()[features.size() - 1] + 1);
+            }
+        }
+        int[] addedPostings = new int[numOfTerms];
+        for (Document document : newDocuments) {
+            if (document.getFeatures() != null) {
+                for (int term : document.getFeatures().getIndices()) {
+                    addedPostings[term]++;
+                }
+            }
+        }
+
+        int oldNumOfTerms = postingDocuments.length;
+        postingDocuments = Arrays.copyOf(postingDocuments, numOfTerms);
+        postingValues = Arrays.copyOf(postingValues, numOfTerms);
+        // addedPostings then holds position the next posting of each term is stored at
+        for (int term = 0; term < numOfTerms; term++) {
+            int oldLength = term < oldNumOfTerms ? postingDocuments[term].length : 0;
+            if (term >= oldNumOfTerms) {
+                postingDocuments[term] = new int[0];
+                postingValues[term] = new double[0];
+            }
+            if (addedPostings[term] > 0) {
+                postingDocuments[term] = Arrays.copyOf(postingDocuments[term], oldLength + addedPostings[term]);
+                postingValues[term] = Arrays.copyOf(postingValues[term], oldLength + addedPostings[term]);
+            }
+            addedPostings[term] = oldLength;
+        }
+
+        for (int i = firstDocument; i < documents.size(); i++) {
+            SparseVector features = documents.get(i).getFeatures();
+            if (features == null) {
+                continue;
+            }
+            norms[i] = features.getNorm();
+            int[] terms = features.getIndices();
+            double[] values = features.getValues();
+            for (int j = 0; j < terms.length; j++) {
+                int position = addedPostings[terms[j]]++;
+                postingDocuments[terms[j]][position] = i;
+                postingValues[terms[j]][position] = values[j];
+            }
+        }
+        modelVersion++;
+    }
+
+    @Override
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Returns the classification class most common among given neighbours. Ties are broken by the sum
+     * of similarities of neighbours belonging to the class.
+     *
+     * @param documentClasses   classes of documents in model
+     * @param nearestNeighbours nearest neighbours of classified document
+     * @return list containing the winning classification class, empty if there are no neighbours
+     */
+    static List<ClassificationClass> vote(DocumentClasses documentClasses, Collection<Neighbour> nearestNeighbours) {
         List<ClassificationClass> result = new ArrayList<>();
-        result.add(Collections.min(classificationClasses.entrySet(), Comparator.comparingInt(Map.Entry::getValue)).getKey());
+        Prediction prediction = predict(documentClasses, nearestNeighbours);
+        if (prediction != null) {
+            result.add(prediction.getClassificationClass());
+        }
         return result;
     }
+
+    /**
+     * Returns the classification class most common among given neighbours, as
+     * {@link #vote(DocumentClasses, Collection)} does. Score of the decision is the share of neighbours belonging
+     * to the class.
+     *
+     * @param documentClasses   classes of documents in model
+     * @param nearestNeighbours nearest neighbours of classified document
+     * @return the winning classification class with its share of votes, or null if there are no neighbours
+     */
+    static Prediction predict(DocumentClasses documentClasses, Collection<Neighbour> nearestNeighbours) {
+        // indexed by class IDs, candidates are the classes with at least one vote
+        int[] votes = new int[ClassificationClass.count()];
+        double[] similarities = new double[votes.length];
+        List<ClassificationClass> candidates = new ArrayList<>();
+        for (Neighbour neighbour : nearestNeighbours) {
+            int end = documentClasses.getEnd(neighbour.getDocument());
+            for (int i = documentClasses.getStart(neighbour.getDocument()); i < end; i++) {
+                ClassificationClass classificationClass = documentClasses.get(i);
+                int id = classificationClass.getId();
+                if (votes[id]++ == 0) {
+                    candidates.add(classificationClass);
+                }
+                similarities[id] += neighbour.getSimilarity();
+            }
+        }
+
+        ClassificationClass best = null;
+        for (ClassificationClass candidate : candidates) {
+            if (best == null || isBetter(candidate, best, votes, similarities)) {
+                best = candidate;
+            }
+        }
+        return best == null ? null : new Prediction(best, (double) votes[best.getId()] / nearestNeighbours.size());
+    }
+
+    /**
+     * Returns true if given candidate class wins the vote over given class. Classes of the same neighbour often
+     * tie in both votes and similarities, such ties are broken by names of the classes, so the result does not
+     * depend on order of the neighbours.
+     *
+     * @param candidate    compared class
+     * @param best         the best class so far
+     * @param votes        number of neighbours in each class, indexed by class ID
+     * @param similarities sum of similarities of neighbours in each class, indexed by class ID
+     * @return true if the candidate wins
+     */
+    private static boolean isBetter(ClassificationClass candidate, ClassificationClass best, int[] votes,
+                                    double[] similarities) {
+        int candidateId = candidate.getId();
+        int bestId = best.getId();
+        if (votes[candidateId] != votes[bestId]) {
+            return votes[candidateId] > votes[bestId];
+        }
+        if (similarities[candidateId] != similarities[bestId]) {
+            return similarities[candidateId] > similarities[bestId];
+        }
+        return candidate.getName().compareTo(best.getName()) < 0;
+    }
+
+    /**
+     * Returns number of nearest neighbours this classifier finds.
+     *
+     * @return number of nearest neighbours
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns documents in model.
+     *
+     * @return documents in model, including added ones
+     */
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Task finding nearest neighbours of block of documents, splitting it in halves until it is small enough.
+     */
+    private class BatchTask extends RecursiveAction {
+
+        /**
+         * Version of the serialized form, tasks are never serialized though.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Classified documents.
+         */
+        private final List<Document> queries;
+
+        /**
+         * List the nearest neighbours are stored to.
+         */
+        private final List<Collection<Neighbour>> result;
+
+        /**
+         * Position of first classified document of the block, inclusive.
+         */
+        private final int from;
+
+        /**
+         * Position of last classified document of the block, exclusive.
+         */
+        private final int to;
+
+        private BatchTask(List<Document> queries, List<Collection<Neighbour>> result, int from, int to) {
+            this.queries = queries;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= QUERY_BLOCK_SIZE) {
+                classifyBlock(queries, result, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(queries, result, from, middle), new BatchTask(queries, result, middle, to));
+        }
+    }
 }
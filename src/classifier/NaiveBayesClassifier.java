@@ -2,16 +2,27 @@ package classifier;
 
 import utils.ClassificationClass;
 import utils.Document;
+import utils.SparseVector;
 
 import java.util.*;
 
 /**
  * Classifier based on probability model. Counts the probability of document belonging to classification class.
+ * <p>
+ * The classifier is trained when it is created and again whenever its statistics change. Documents are classified
+ * only by weights of the last training, so they can be classified from any number of threads, but not while
+ * documents are being added, see {@link IClassifier#addDocuments(List)}.
  *
  * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
  */
 public class NaiveBayesClassifier implements IClassifier {
 
+    /**
+     * Additive smoothing used unless other is set - Laplace smoothing, adding one occurrence of every term
+     * to every class.
+     */
+    public static final double DEFAULT_SMOOTHING = 1.0;
+
     /**
      * List of documents in model.
      */
@@ -28,126 +39,426 @@ public class NaiveBayesClassifier implements IClassifier {
      * Sum of unique words in training set.
      */
     private int totalUniqueWords;
+    /**
+     * Sum of values of each word in each class. Counted from the training set if it was not set before.
+     */
+    private Map<String, SparseVector> termCountsInClass;
+    /**
+     * Number of training documents in each class. Counted from the training set if it was not set before.
+     */
+    private Map<String, Integer> documentsInClass;
+    /**
+     * Number of documents in training set. Counted from the training set if it was not set before.
+     */
+    private int numOfDocuments;
+    /**
+     * Value added to the sum of values of each word in each class, so words not seen in a class do not make
+     * the probability of the class zero.
+     */
+    private double smoothing = DEFAULT_SMOOTHING;
+    /**
+     * Weights computed by the last training, null if there is no training document with features in any class.
+     */
+    private volatile Weights weights;
+    /**
+     * Version of the model, incremented every time the model changes.
+     */
+    private volatile long modelVersion;
 
 
+    /**
+     * Creates classifier trained on given documents.
+     *
+     * @param documents             training documents with computed features
+     * @param classificationClasses list of available classification classes
+     */
     public NaiveBayesClassifier(List<Document> documents, List<ClassificationClass> classificationClasses) {
         this.documents = documents;
         this.classificationClasses = classificationClasses;
+        train();
+    }
+
+    /**
+     * Creates classifier trained on given statistics of a training set, for example of a saved model, so the training
+     * set itself is not needed.
+     *
+     * @param classificationClasses list of available classification classes
+     * @param totalUniqueWords      number of unique words in training set
+     * @param totalWordsInClass     sums of values of all words in each classification class
+     * @param termCountsInClass     sums of values of each word in each classification class
+     * @param documentsInClass      number of training documents in each classification class
+     * @param numOfDocuments        number of documents in training set
+     * @param smoothing             additive smoothing, greater than 0
+     */
+    public NaiveBayesClassifier(List<ClassificationClass> classificationClasses, int totalUniqueWords,
+                                Map<String, Double> totalWordsInClass, Map<String, SparseVector> termCountsInClass,
+                                Map<String, Integer> documentsInClass, int numOfDocuments, double smoothing) {
+        this.documents = new ArrayList<>();
+        this.classificationClasses = classificationClasses;
+        this.totalUniqueWords = totalUniqueWords;
+        this.totalWordsInClass = totalWordsInClass;
+        this.termCountsInClass = termCountsInClass;
+        this.documentsInClass = documentsInClass;
+        this.numOfDocuments = numOfDocuments;
+        this.smoothing = smoothing;
+        train();
     }
 
     @Override
     public List<ClassificationClass> classifyDocument(Document document) {
-        if (document == null || document.getContent().isEmpty()) {
+        Prediction prediction = predictDocument(document);
+        if (prediction == null) {
             return null;
         }
-        if (totalUniqueWords == 0 && totalWordsInClass == null) {
-            this.totalWordsInClass = new HashMap<>();
-            getWordCounts();
-        }
-
         List<ClassificationClass> documentClasses = new ArrayList<>();
-        Map<ClassificationClass, Double> classProbabilities = new HashMap<>();
-
-        for (ClassificationClass classificationClass : classificationClasses) {
-            double p_documentClass = getClassProbability(classificationClass);
+        documentClasses.add(prediction.getClassificationClass());
+        return documentClasses;
+    }
 
-            for (String word : document.getContent().split(" ")) {
-                if (word.isEmpty()) {
-                    continue;
-                }
+    /**
+     * Classifies given document into the most probable classification class. Score of the decision is
+     * the posterior probability of the class.
+     *
+     * @param document classified document
+     * @return the most probable class with its probability, or null if the document is empty or the classifier
+     * has no training documents
+     */
+    @Override
+    public Prediction predictDocument(Document document) {
+        Weights weights = this.weights;
+        if (document == null || document.isEmpty() || weights == null) {
+            return null;
+        }
 
-                double termOccurence = getTermOccurrence(word, classificationClass);
+        SparseVector wordCounts = SparseVector.countTerms(document.getTerms());
+        int numOfWords = document.getTerms().length;
+        double[] logProbabilities = new double[classificationClasses.size()];
+        int best = 0;
 
-                double p_wordClass = (termOccurence + 1.0) / (this.totalWordsInClass.get(classificationClass.getName()) + totalUniqueWords);
-                // + slova v klasifikovanem dokumentu ??
-                p_documentClass *= p_wordClass;
+        // weights of each term of the document are added only to the classes the term occurs in
+        int[] terms = wordCounts.getIndices();
+        double[] counts = wordCounts.getValues();
+        int[] termOffsets = weights.termOffsets;
+        for (int i = 0; i < terms.length && terms[i] < termOffsets.length - 1; i++) {
+            for (int j = termOffsets[terms[i]]; j < termOffsets[terms[i] + 1]; j++) {
+                logProbabilities[weights.termClasses[j]] += counts[i] * weights.logTermWeights[j];
+            }
+        }
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            logProbabilities[i] = weights.logClassPriors[i] + logProbabilities[i]
+                    + numOfWords * weights.logWordWeights[i];
+            if (logProbabilities[i] > logProbabilities[best]) {
+                best = i;
             }
-            classProbabilities.put(classificationClass, p_documentClass);
         }
 
-        documentClasses.add(Collections.max(classProbabilities.entrySet(), Comparator.comparingDouble(Map.Entry::getValue)).getKey());
-        return documentClasses;
+        // probabilities relative to the best class, so they do not underflow
+        double sumOfProbabilities = 0;
+        for (double logProbability : logProbabilities) {
+            sumOfProbabilities += Math.exp(logProbability - logProbabilities[best]);
+        }
+        return new Prediction(classificationClasses.get(best), 1 / sumOfProbabilities);
     }
 
     /**
-     * Returns number of occurrences of given term in training data set of documents belonging to given classification class.
-     *
-     * @param term                term that we count occurrences of
-     * @param classificationClass classification class we look into
-     * @return number of occurrences of given term
+     * Computes weights needed for classification from statistics of the training set - logarithms of class priors
+     * and of sums of values of every term in each classification class. Statistics which were not set before
+     * are counted from the training set first. Classification cost then depends only on the length of classified
+     * document and number of classes, not on the size of training set.
+     * <p>
+     * Weights of terms are kept only for the classes each term occurs in, ordered by terms, so they take memory
+     * proportional to the number of terms plus the sum of numbers of distinct terms of the classes, not to
+     * the number of classes times the number of terms.
+     * <p>
+     * Called whenever the statistics change, the new weights replace the old ones at once.
      */
-    private double getTermOccurrence(String term, ClassificationClass classificationClass) {
-        int termOccurrence = 0;
+    public void train() {
+        if (termCountsInClass == null || documentsInClass == null) {
+            countTerms();
+        }
 
-        for (Document document : documents) {
-            if (document.getClassificationClasses().contains(classificationClass)) {
-                if (document.getFeatures().containsKey(term)) {
-                    termOccurrence += document.getFeatures().get(term);
-                }
+        int numOfTerms = 0;
+        for (SparseVector termCounts : termCountsInClass.values()) {
+            if (termCounts.size() > 0) {
+                numOfTerms = Math.max(numOfTerms, termCounts.getIndices()[termCounts.size() - 1] + 1);
             }
         }
 
-        return termOccurrence;
+        SparseVector[] classTermCounts = new SparseVector[classificationClasses.size()];
+        int[] termOffsets = new int[numOfTerms + 1];
+        for (int i = 0; i < classTermCounts.length; i++) {
+            classTermCounts[i] = termCountsInClass.getOrDefault(classificationClasses.get(i).getName(), SparseVector.EMPTY);
+            for (int term : classTermCounts[i].getIndices()) {
+                termOffsets[term + 1]++;
+            }
+        }
+        for (int term = 0; term < numOfTerms; term++) {
+            termOffsets[term + 1] += termOffsets[term];
+        }
+        int[] termClasses = new int[termOffsets[numOfTerms]];
+        double[] termWeights = new double[termClasses.length];
+        // termPositions then holds position the next weight of each term is stored at
+        int[] termPositions = Arrays.copyOf(termOffsets, numOfTerms);
+
+        double[] logPriors = new double[classificationClasses.size()];
+        double[] wordWeights = new double[classificationClasses.size()];
+        boolean hasDocuments = false;
+        double logSmoothing = Math.log(smoothing);
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            String className = classificationClasses.get(i).getName();
+            int classDocuments = documentsInClass.getOrDefault(className, 0);
+            hasDocuments |= classDocuments > 0;
+            logPriors[i] = classDocuments == 0 ? Double.NEGATIVE_INFINITY
+                    : Math.log((double) classDocuments / numOfDocuments);
+            // log(totalWordsInClass + smoothing * totalUniqueWords) is shared by every word of a document
+            wordWeights[i] = logSmoothing
+                    - Math.log(totalWordsInClass.getOrDefault(className, 0.0) + smoothing * totalUniqueWords);
+
+            int[] terms = classTermCounts[i].getIndices();
+            double[] values = classTermCounts[i].getValues();
+            for (int j = 0; j < terms.length; j++) {
+                // terms absent from the class have weight log(0 + smoothing) - log(smoothing) = 0, so they are not kept
+                int position = termPositions[terms[j]]++;
+                termClasses[position] = i;
+                termWeights[position] = Math.log(values[j] + smoothing) - Math.log(smoothing);
+            }
+        }
+
+        // without documents or their words the probabilities are not defined, 0 / 0
+        this.weights = hasDocuments && totalUniqueWords > 0
+                ? new Weights(termOffsets, termClasses, termWeights, logPriors, wordWeights) : null;
+        modelVersion++;
     }
 
     /**
-     * Counts number of unique words in corpus and each classification class.
+     * Counts sums of values of every term in each classification class and number of documents in each class
+     * from the training set. If they were not set before, counts number of unique words in training set and sum
+     * of values of all words in each class as well.
      */
-    private void getWordCounts() {
-        Map<String, List<String>> uniqueWordsInClass = new HashMap<>();
-        List<String> uniqueWords = new ArrayList<>();
+    private void countTerms() {
+        int[] classIndexes = indexClasses();
+
+        int numOfTerms = 0;
+        for (Document document : documents) {
+            if (document.getFeatures() != null && document.getFeatures().size() > 0) {
+                int[] terms = document.getFeatures().getIndices();
+                numOfTerms = Math.max(numOfTerms, terms[terms.length - 1] + 1);
+            }
+        }
 
-        for (ClassificationClass classificationClass : classificationClasses) {
-            uniqueWordsInClass.put(classificationClass.getName(), new ArrayList<>());
+        // features of documents of each class, summed class by class in one array
+        List<List<SparseVector>> classFeatures = new ArrayList<>(classificationClasses.size());
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            classFeatures.add(new ArrayList<>());
         }
+        Map<String, Integer> docsInClass = new HashMap<>();
+        Map<String, Double> wordsInClass = new HashMap<>();
+        boolean[] isWordInTrainingSet = new boolean[numOfTerms];
 
         for (Document document : documents) {
-            String[] terms = document.getContent().split(" ");
+            if (document.getFeatures() == null) {
+                continue;
+            }
+            int[] terms = document.getFeatures().getIndices();
+            double[] values = document.getFeatures().getValues();
+            for (int term : terms) {
+                isWordInTrainingSet[term] = true;
+            }
 
-            for (String term : terms) {
-                if (term.isEmpty()) {
+            for (ClassificationClass docClass : document.getClassificationClasses()) {
+                int classIndex = classIndexes[docClass.getId()];
+                if (classIndex < 0) {
                     continue;
                 }
-                if (!uniqueWords.contains(term)) {
-                    uniqueWords.add(term);
+                classFeatures.get(classIndex).add(document.getFeatures());
+                docsInClass.merge(docClass.getName(), 1, Integer::sum);
+
+                double sumOfValues = 0;
+                for (double value : values) {
+                    sumOfValues += value;
                 }
+                wordsInClass.merge(docClass.getName(), sumOfValues, Double::sum);
+            }
+        }
 
-                for (ClassificationClass docClass : document.getClassificationClasses()) {
-                    if (!uniqueWordsInClass.get(docClass.getName()).contains(term)) {
-                        uniqueWordsInClass.get(docClass.getName()).add(term);
-                    }
-                    if (totalWordsInClass.containsKey(docClass.getName())) {
-                        this.totalWordsInClass.put(docClass.getName(), this.totalWordsInClass.get(docClass.getName()) + document.getFeatures().get(term));
-                    } else {
-                        this.totalWordsInClass.put(docClass.getName(), document.getFeatures().get(term));
-                    }
+        int uniqueWords = 0;
+        for (boolean isWord : isWordInTrainingSet) {
+            if (isWord) {
+                uniqueWords++;
+            }
+        }
+
+        Map<String, SparseVector> countsInClass = new HashMap<>();
+        double[] sums = new double[numOfTerms];
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            for (SparseVector features : classFeatures.get(i)) {
+                int[] terms = features.getIndices();
+                double[] values = features.getValues();
+                for (int j = 0; j < terms.length; j++) {
+                    sums[terms[j]] += values[j];
                 }
             }
+            countsInClass.put(classificationClasses.get(i).getName(),
+                    merge(SparseVector.EMPTY, sums, classFeatures.get(i)));
         }
 
-        this.totalUniqueWords = uniqueWords.size();
+        if (totalUniqueWords == 0 && totalWordsInClass == null) {
+            this.totalUniqueWords = uniqueWords;
+            this.totalWordsInClass = wordsInClass;
+        }
+        this.termCountsInClass = countsInClass;
+        this.documentsInClass = docsInClass;
+        this.numOfDocuments = documents.size();
     }
 
     /**
-     * Returns the probability of document belonging to given classification class based on model data.
+     * Adds sums of values of terms of given documents to statistics of their classes and trains the classifier
+     * again. Only rows of the classes of added documents are updated, so the cost of counting depends on the added
+     * documents and not on the training set.
      *
-     * @param classificationClass classification class
-     * @return probability of document belonging to given classification class
+     * @param newDocuments added documents
      */
-    private double getClassProbability(ClassificationClass classificationClass) {
-        if (classificationClass == null) {
-            return 0;
+    @Override
+    public void addDocuments(List<Document> newDocuments) {
+        if (totalWordsInClass == null) {
+            totalWordsInClass = new HashMap<>();
         }
 
-        double documentsInClass = 0;
+        int[] classIndexes = indexClasses();
+        int numOfTerms = 0;
+        Map<String, List<SparseVector>> addedFeatures = new HashMap<>();
+        for (Document document : newDocuments) {
+            SparseVector features = document.getFeatures();
+            if (features == null) {
+                continue;
+            }
+            if (features.size() > 0) {
+                numOfTerms = Math.max(numOfTerms, features.getIndices()[features.size() - 1] + 1);
+            }
+            for (ClassificationClass docClass : document.getClassificationClasses()) {
+                if (classIndexes[docClass.getId()] >= 0) {
+                    addedFeatures.computeIfAbsent(docClass.getName(), name -> new ArrayList<>()).add(features);
+                }
+            }
+        }
 
-        for (Document document : documents) {
-            if (document.getClassificationClasses().contains(classificationClass)) {
-                documentsInClass++;
+        boolean[] isCounted = new boolean[numOfTerms];
+        for (Document document : newDocuments) {
+            if (document.getFeatures() == null) {
+                continue;
+            }
+            for (int term : document.getFeatures().getIndices()) {
+                if (!isCounted[term]) {
+                    isCounted[term] = true;
+                    if (isNewTerm(term)) {
+                        totalUniqueWords++;
+                    }
+                }
             }
         }
 
-        return documentsInClass / documents.size();
+        double[] sums = new double[numOfTerms];
+        for (Map.Entry<String, List<SparseVector>> classFeatures : addedFeatures.entrySet()) {
+            String className = classFeatures.getKey();
+            double sumOfValues = 0;
+            for (SparseVector features : classFeatures.getValue()) {
+                int[] terms = features.getIndices();
+                double[] values = features.getValues();
+                for (int i = 0; i < terms.length; i++) {
+                    sums[terms[i]] += values[i];
+                    sumOfValues += values[i];
+                }
+            }
+            SparseVector termCounts = termCountsInClass.getOrDefault(className, SparseVector.EMPTY);
+            termCountsInClass.put(className, merge(termCounts, sums, classFeatures.getValue()));
+            documentsInClass.merge(className, classFeatures.getValue().size(), Integer::sum);
+            totalWordsInClass.merge(className, sumOfValues, Double::sum);
+        }
+        numOfDocuments += newDocuments.size();
+        train();
+    }
+
+    @Override
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Returns position of each class in {@link #classificationClasses}, indexed by class ID. Classes which
+     * are not available to this classifier have position -1.
+     *
+     * @return positions of classes indexed by their IDs
+     */
+    private int[] indexClasses() {
+        int[] classIndexes = new int[ClassificationClass.count()];
+        Arrays.fill(classIndexes, -1);
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            classIndexes[classificationClasses.get(i).getId()] = i;
+        }
+        return classIndexes;
+    }
+
+    /**
+     * Returns true if given term is not counted in any classification class yet.
+     *
+     * @param term ID of the term
+     * @return true if the term is new to the training set
+     */
+    private boolean isNewTerm(int term) {
+        for (SparseVector termCounts : termCountsInClass.values()) {
+            if (termCounts.get(term) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds sums of values of terms of added documents to given sums of values of terms in a class. Added sums
+     * are zeroed afterwards, so the array can be used for the next class.
+     *
+     * @param termCounts    sums of values of terms in the class
+     * @param addedSums     sums of values of terms of added documents, indexed by term ID
+     * @param addedFeatures features of added documents of the class
+     * @return updated sums of values of terms in the class
+     */
+    private static SparseVector merge(SparseVector termCounts, double[] addedSums, List<SparseVector> addedFeatures) {
+        int numOfAddedTerms = 0;
+        for (SparseVector features : addedFeatures) {
+            numOfAddedTerms += features.size();
+        }
+        int[] addedTerms = new int[numOfAddedTerms];
+        numOfAddedTerms = 0;
+        for (SparseVector features : addedFeatures) {
+            System.arraycopy(features.getIndices(), 0, addedTerms, numOfAddedTerms, features.size());
+            numOfAddedTerms += features.size();
+        }
+        Arrays.sort(addedTerms);
+
+        int[] oldTerms = termCounts.getIndices();
+        double[] oldValues = termCounts.getValues();
+        int[] terms = new int[oldTerms.length + addedTerms.length];
+        double[] values = new double[terms.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < oldTerms.length || j < addedTerms.length) {
+            if (j == addedTerms.length || (i < oldTerms.length && oldTerms[i] < addedTerms[j])) {
+                terms[size] = oldTerms[i];
+                values[size++] = oldValues[i++];
+                continue;
+            }
+            int term = addedTerms[j];
+            double value = i < oldTerms.length && oldTerms[i] == term ? oldValues[i++] : 0;
+            terms[size] = term;
+            values[size++] = value + addedSums[term];
+            addedSums[term] = 0;
+            // skip the same term of other added documents
+            while (j < addedTerms.length && addedTerms[j] == term) {
+                j++;
+            }
+        }
+        return new SparseVector(Arrays.copyOf(terms, size), Arrays.copyOf(values, size));
     }
 
     /**
@@ -166,6 +477,7 @@ public class NaiveBayesClassifier implements IClassifier {
      */
     public void setTotalWordsInClass(Map<String, Double> totalWordsInClass) {
         this.totalWordsInClass = totalWordsInClass;
+        train();
     }
 
     /**
@@ -184,5 +496,128 @@ public class NaiveBayesClassifier implements IClassifier {
      */
     public void setTotalUniqueWords(int totalUniqueWords) {
         this.totalUniqueWords = totalUniqueWords;
+        train();
+    }
+
+    /**
+     * Returns sums of values of each word in each classification class
+     *
+     * @return sums of values of each word in each classification class
+     */
+    public Map<String, SparseVector> getTermCountsInClass() {
+        return termCountsInClass;
+    }
+
+    /**
+     * Sets sums of values of each word in each classification class, so the classifier does not need training set
+     *
+     * @param termCountsInClass sums of values of each word in each classification class
+     */
+    public void setTermCountsInClass(Map<String, SparseVector> termCountsInClass) {
+        this.termCountsInClass = termCountsInClass;
+        train();
+    }
+
+    /**
+     * Returns number of training documents in each classification class
+     *
+     * @return number of training documents in each classification class
+     */
+    public Map<String, Integer> getDocumentsInClass() {
+        return documentsInClass;
+    }
+
+    /**
+     * Sets number of training documents in each classification class
+     *
+     * @param documentsInClass number of training documents in each classification class
+     */
+    public void setDocumentsInClass(Map<String, Integer> documentsInClass) {
+        this.documentsInClass = documentsInClass;
+        train();
+    }
+
+    /**
+     * Returns number of documents in training set
+     *
+     * @return number of documents in training set
+     */
+    public int getNumOfDocuments() {
+        return numOfDocuments;
+    }
+
+    /**
+     * Returns value added to the sum of values of each word in each class
+     *
+     * @return additive smoothing
+     */
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Sets value added to the sum of values of each word in each class and trains the classifier again.
+     *
+     * @param smoothing additive smoothing, greater than 0
+     */
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+        train();
+    }
+
+    /**
+     * Sets number of documents in training set
+     *
+     * @param numOfDocuments number of documents in training set
+     */
+    public void setNumOfDocuments(int numOfDocuments) {
+        this.numOfDocuments = numOfDocuments;
+        train();
+    }
+
+    /**
+     * Weights computed from statistics of the training set by one training. Never changed, so they can be read
+     * by any number of threads.
+     */
+    private static final class Weights {
+
+        /**
+         * Offsets of the weights of each term into {@link #termClasses} and {@link #logTermWeights}, indexed
+         * by term ID, one more than there are terms.
+         */
+        private final int[] termOffsets;
+
+        /**
+         * Positions in {@link #classificationClasses} of the classes each term occurs in, ordered by terms.
+         */
+        private final int[] termClasses;
+
+        /**
+         * Logarithm of the sum of values of each word in each class it occurs in increased by {@link #smoothing},
+         * relative to the logarithm of the smoothing, so words absent from a class have weight 0 and are not kept.
+         * Parallel to {@link #termClasses}.
+         */
+        private final double[] logTermWeights;
+
+        /**
+         * Logarithm of the probability of document belonging to each class, indexed by position of the class
+         * in {@link #classificationClasses}.
+         */
+        private final double[] logClassPriors;
+
+        /**
+         * Logarithm of the smoothing relative to the sum of values of all words in each class, added for every
+         * word of a document, indexed by position of the class in {@link #classificationClasses}.
+         */
+        private final double[] logWordWeights;
+
+        private Weights(int[] termOffsets, int[] termClasses, double[] logTermWeights, double[] logClassPriors,
+                        double[] logWordWeights) {
+            this.termOffsets = termOffsets;
+            this.termClasses = termClasses;
+            this.logTermWeights = logTermWeights;
+            this.logClassPriors = logClassPriors;
+            this.logWordWeights = logWordWeights;
+        }
     }
 }
@@ -0,0 +1,61 @@
+package classifier;
+
+/**
+ * Document of a model found as a neighbour of classified document.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class Neighbour implements Comparable<Neighbour> {
+
+    /**
+     * Position of the document in model.
+     */
+    private final int document;
+
+    /**
+     * Cosine similarity of the document to classified document.
+     */
+    private final double similarity;
+
+    /**
+     * Creates neighbour at given position in model with given similarity to classified document.
+     *
+     * @param document   position of the document in model
+     * @param similarity cosine similarity of the document to classified document
+     */
+    public Neighbour(int document, double similarity) {
+        this.document = document;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Returns position of the document in model.
+     *
+     * @return position of the document in model
+     */
+    public int getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns cosine similarity of the document to classified document.
+     *
+     * @return cosine similarity of the document to classified document
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    /**
+     * Compares neighbours by similarity. Of equally similar neighbours, the one appearing earlier in model
+     * is greater, so the choice of neighbours does not depend on the order they are found in.
+     *
+     * @param other compared neighbour
+     * @return positive number if this neighbour is nearer than the other one
+     */
+    @Override
+    public int compareTo(Neighbour other) {
+        int comparison = Double.compare(similarity, other.similarity);
+        return comparison != 0 ? comparison : Integer.compare(other.document, document);
+    }
+}
@@ -0,0 +1,51 @@
+package classifier;
+
+import utils.ClassificationClass;
+
+/**
+ * Classification class assigned to a document together with the score of the decision.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class Prediction {
+
+    /**
+     * Assigned classification class.
+     */
+    private final ClassificationClass classificationClass;
+
+    /**
+     * Score of the decision between 0 and 1, higher meaning more confident, or NaN if the classifier
+     * does not rate its decisions.
+     */
+    private final double score;
+
+    /**
+     * Creates prediction of given class with given score.
+     *
+     * @param classificationClass assigned classification class
+     * @param score               score of the decision between 0 and 1, or NaN if it is not known
+     */
+    public Prediction(ClassificationClass classificationClass, double score) {
+        this.classificationClass = classificationClass;
+        this.score = score;
+    }
+
+    /**
+     * Returns assigned classification class.
+     *
+     * @return assigned classification class
+     */
+    public ClassificationClass getClassificationClass() {
+        return classificationClass;
+    }
+
+    /**
+     * Returns score of the decision.
+     *
+     * @return score of the decision between 0 and 1, or NaN if it is not known
+     */
+    public double getScore() {
+        return score;
+    }
+}
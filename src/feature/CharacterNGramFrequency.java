@@ -0,0 +1,92 @@
+package feature;
+
+import utils.Tokenizer;
+
+/**
+ * Feature algorithm creating features from character n-grams of terms of document. Each term is padded by a space
+ * on both sides, so n-grams at the start and end of a term differ from the ones inside it, and hash of each n-gram
+ * is computed from the hash of the previous one by adding the new character and removing the oldest one. Terms
+ * shorter than an n-gram give a single n-gram of the whole padded term.
+ * <p>
+ * N-grams share features between inflected forms of a word, which suits short Czech texts.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class CharacterNGramFrequency extends NGramFrequency {
+
+    /**
+     * Length of the shortest n-gram unless other is set.
+     */
+    public static final int DEFAULT_MIN_LENGTH = 3;
+
+    /**
+     * Length of the longest n-gram unless other is set.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 5;
+
+    /**
+     * Character padding the terms.
+     */
+    private static final char PADDING = ' ';
+
+    /**
+     * Creates algorithm with n-grams of 3 to 5 characters hashed to {@link TermHashing#DEFAULT_NUM_OF_FEATURES}.
+     */
+    public CharacterNGramFrequency() {
+        this(DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH, TermHashing.DEFAULT_NUM_OF_FEATURES);
+    }
+
+    /**
+     * Creates algorithm with n-grams of given numbers of characters.
+     *
+     * @param minLength     number of characters of the shortest n-gram
+     * @param maxLength     number of characters of the longest n-gram
+     * @param numOfFeatures number of features n-grams are hashed to, a power of two
+     */
+    public CharacterNGramFrequency(int minLength, int maxLength, int numOfFeatures) {
+        super(minLength, maxLength, numOfFeatures);
+    }
+
+    @Override
+    protected void extractNGrams(Tokenizer tokenizer, CharSequence content, NGrams nGrams) {
+        int[] powers = new int[maxLength + 1];
+        for (int length = 1; length <= maxLength; length++) {
+            powers[length] = power(length);
+        }
+
+        tokenizer.tokenize(content, (buffer, length) -> {
+            int paddedLength = length + 2;
+            for (int n = minLength; n <= maxLength; n++) {
+                int hash = 0;
+                for (int i = 0; i < paddedLength; i++) {
+                    hash = hash * BASE + charAt(buffer, length, i);
+                    if (i >= n) {
+                        hash -= charAt(buffer, length, i - n) * powers[n];
+                    }
+                    if (i + 1 >= n) {
+                        nGrams.add(hash, n);
+                    }
+                }
+                if (paddedLength <= n) {
+                    // the whole term is the n-gram, longer n-grams would be the same
+                    if (paddedLength < n) {
+                        nGrams.add(hash, paddedLength);
+                    }
+                    break;
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns character of padded term at given position.
+     *
+     * @param buffer   buffer containing the term
+     * @param length   length of the term
+     * @param position position in the padded term
+     * @return character at the position
+     */
+    private static char charAt(char[] buffer, int length, int position) {
+        return position == 0 || position > length ? PADDING : buffer[position - 1];
+    }
+}
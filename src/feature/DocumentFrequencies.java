@@ -0,0 +1,179 @@
+package feature;
+
+import utils.Document;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable snapshot of document frequencies of a corpus - number of documents in the corpus and number
+ * of documents containing each term. Adding documents creates a new snapshot, so a snapshot can be read
+ * from any number of threads while the corpus grows.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public final class DocumentFrequencies {
+
+    /**
+     * Snapshot of an empty corpus.
+     */
+    public static final DocumentFrequencies EMPTY = new DocumentFrequencies(0, new int[0]);
+
+    /**
+     * Number of documents in corpus.
+     */
+    private final int numOfDocuments;
+
+    /**
+     * Number of documents in corpus containing each term, indexed by term ID.
+     */
+    private final int[] frequencies;
+
+    /**
+     * Creates snapshot with given statistics. The array is not copied and must not be modified afterwards.
+     *
+     * @param numOfDocuments number of documents in corpus
+     * @param frequencies    number of documents in corpus containing each term, indexed by term ID
+     */
+    public DocumentFrequencies(int numOfDocuments, int[] frequencies) {
+        this.numOfDocuments = numOfDocuments;
+        this.frequencies = frequencies;
+    }
+
+    /**
+     * Counts document frequencies of given corpus. Documents are counted in parallel.
+     *
+     * @param documents documents of the corpus
+     * @return snapshot of the corpus
+     */
+    public static DocumentFrequencies count(List<Document> documents) {
+        return EMPTY.add(documents);
+    }
+
+    /**
+     * Returns snapshot of corpus of this snapshot extended by given documents. Documents are counted
+     * in parallel, each thread counting its part of them in its own array, and the arrays are summed.
+     *
+     * @param documents added documents
+     * @return new snapshot, this one is not changed
+     */
+    public DocumentFrequencies add(List<Document> documents) {
+        Counter counter = documents.parallelStream().collect(Counter::new, Counter::add, Counter::merge);
+        int[] sum = Arrays.copyOf(frequencies, Math.max(frequencies.length, counter.numOfTerms));
+        for (int term = 0; term < counter.numOfTerms; term++) {
+            sum[term] += counter.frequencies[term];
+        }
+        return new DocumentFrequencies(numOfDocuments + documents.size(), sum);
+    }
+
+    /**
+     * Returns snapshot of corpus of this snapshot without given documents, which must be part of the corpus.
+     * Statistics of a part of the corpus are computed this way in time proportional to the removed documents.
+     *
+     * @param documents removed documents
+     * @return new snapshot, this one is not changed
+     */
+    public DocumentFrequencies remove(List<Document> documents) {
+        Counter counter = documents.parallelStream().collect(Counter::new, Counter::add, Counter::merge);
+        int[] difference = frequencies.clone();
+        for (int term = 0; term < counter.numOfTerms; term++) {
+            difference[term] -= counter.frequencies[term];
+        }
+        return new DocumentFrequencies(numOfDocuments - documents.size(), difference);
+    }
+
+    /**
+     * Returns number of documents in corpus.
+     *
+     * @return number of documents in corpus
+     */
+    public int getNumOfDocuments() {
+        return numOfDocuments;
+    }
+
+    /**
+     * Returns number of documents in corpus containing given term.
+     *
+     * @param term ID of wanted term
+     * @return number of documents in corpus containing given term
+     */
+    public int getFrequency(int term) {
+        return term < frequencies.length ? frequencies[term] : 0;
+    }
+
+    /**
+     * Returns number of documents in corpus containing each term. Returned array must not be modified.
+     *
+     * @return array where indexes are term IDs and values are numbers of documents containing them
+     */
+    public int[] getFrequencies() {
+        return frequencies;
+    }
+
+    /**
+     * Counts document frequencies of part of a corpus in a single thread.
+     */
+    private static class Counter {
+
+        /**
+         * Number of counted documents containing each term, may be longer than {@link #numOfTerms}.
+         */
+        private int[] frequencies = new int[0];
+
+        /**
+         * Index of the last document each term was counted for, so terms repeated in a document are counted once.
+         */
+        private int[] lastDocument = new int[0];
+
+        /**
+         * Number of counted documents.
+         */
+        private int numOfDocuments;
+
+        /**
+         * The highest counted term ID increased by one.
+         */
+        private int numOfTerms;
+
+        /**
+         * Counts terms of given document.
+         *
+         * @param document counted document
+         */
+        private void add(Document document) {
+            numOfDocuments++;
+            if (document == null || document.isEmpty()) {
+                return;
+            }
+            for (int term : document.getTerms()) {
+                if (term >= frequencies.length) {
+                    int newLength = Math.max(term + 1, frequencies.length * 2);
+                    frequencies = Arrays.copyOf(frequencies, newLength);
+                    lastDocument = Arrays.copyOf(lastDocument, newLength);
+                }
+                numOfTerms = Math.max(numOfTerms, term + 1);
+                if (lastDocument[term] != numOfDocuments) {
+                    lastDocument[term] = numOfDocuments;
+                    frequencies[term]++;
+                }
+            }
+        }
+
+        /**
+         * Adds counts of other part of the corpus to this one.
+         *
+         * @param other counter of the other part
+         */
+        private void merge(Counter other) {
+            if (other.numOfTerms > frequencies.length) {
+                frequencies = Arrays.copyOf(frequencies, other.numOfTerms);
+                lastDocument = Arrays.copyOf(lastDocument, other.numOfTerms);
+            }
+            for (int term = 0; term < other.numOfTerms; term++) {
+                frequencies[term] += other.frequencies[term];
+            }
+            numOfTerms = Math.max(numOfTerms, other.numOfTerms);
+            numOfDocuments += other.numOfDocuments;
+        }
+    }
+}
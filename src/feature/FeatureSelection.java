@@ -0,0 +1,351 @@
+package feature;
+
+import utils.ClassificationClass;
+import utils.Document;
+import utils.SparseVector;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Selects terms of vocabulary worth being features before features of the training set are computed. Terms can be
+ * removed by their document frequency in the training set and by a list of stop words, and the rest can be
+ * limited to the terms most associated with each classification class by chi-square statistic or information gain.
+ * <p>
+ * Selected terms form a new, pruned vocabulary, and other terms are removed from the training documents. Texts
+ * tokenized by a pruned vocabulary lose the removed terms too, so classified documents get features the same way
+ * as the training documents did.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class FeatureSelection {
+
+    /**
+     * Prefix of command-line options of feature selection.
+     */
+    public static final String OPTION_PREFIX = "--";
+
+    /**
+     * Option with minimal number of training documents containing a selected term.
+     */
+    public static final String MIN_DF_OPTION = "min-df";
+
+    /**
+     * Option with maximal fraction of training documents containing a selected term.
+     */
+    public static final String MAX_DF_OPTION = "max-df";
+
+    /**
+     * Option with path to file with stop words, which are never selected.
+     */
+    public static final String STOP_WORDS_OPTION = "stop-words";
+
+    /**
+     * Option with number of terms with the highest chi-square statistic selected for each class.
+     */
+    public static final String CHI_SQUARE_OPTION = "chi2";
+
+    /**
+     * Option with number of terms with the highest information gain selected for each class.
+     */
+    public static final String INFORMATION_GAIN_OPTION = "ig";
+
+    /**
+     * Minimal number of training documents containing a selected term.
+     */
+    private int minDocumentFrequency = 1;
+
+    /**
+     * Maximal fraction of training documents containing a selected term.
+     */
+    private double maxDocumentFrequency = 1.0;
+
+    /**
+     * Path to file with stop words, null if there is none.
+     */
+    private String stopWordsFile;
+
+    /**
+     * Text of file with stop words, null if there is none.
+     */
+    private String stopWords;
+
+    /**
+     * Criterion of association of terms with classes, {@link #CHI_SQUARE_OPTION}, {@link #INFORMATION_GAIN_OPTION}
+     * or null if terms are not limited per class.
+     */
+    private String criterion;
+
+    /**
+     * Number of terms selected for each class by {@link #criterion}.
+     */
+    private int termsPerClass;
+
+    /**
+     * Parses feature selection from command-line options in form {@code --name=value}.
+     *
+     * @param options command-line options
+     * @return parsed feature selection, or null if any option is invalid
+     */
+    public static FeatureSelection parse(List<String> options) {
+        FeatureSelection selection = new FeatureSelection();
+        for (String option : options) {
+            int separator = option.indexOf('=');
+            if (!option.startsWith(OPTION_PREFIX) || separator < 0) {
+                System.out.println("Invalid feature selection option! (passed: " + option + ")");
+                return null;
+            }
+            String name = option.substring(OPTION_PREFIX.length(), separator);
+            String value = option.substring(separator + 1);
+            try {
+                switch (name) {
+                    case MIN_DF_OPTION:
+                        selection.minDocumentFrequency = Integer.parseInt(value);
+                        break;
+                    case MAX_DF_OPTION:
+                        selection.maxDocumentFrequency = Double.parseDouble(value);
+                        break;
+                    case STOP_WORDS_OPTION:
+                        selection.stopWordsFile = value;
+                        selection.stopWords = new String(Files.readAllBytes(Paths.get(value)), StandardCharsets.UTF_8);
+                        break;
+                    case CHI_SQUARE_OPTION:
+                    case INFORMATION_GAIN_OPTION:
+                        if (selection.criterion != null) {
+                            System.out.println("Only one of options " + CHI_SQUARE_OPTION + " and " + INFORMATION_GAIN_OPTION
+                                    + " can be passed! (passed: " + option + ")");
+                            return null;
+                        }
+                        selection.criterion = name;
+                        selection.termsPerClass = Integer.parseInt(value);
+                        break;
+                    default:
+                        System.out.println("Unknown feature selection option! (passed: " + option + ")");
+                        return null;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid value of feature selection option! (passed: " + option + ")");
+                return null;
+            } catch (IOException e) {
+                System.out.println("File with stop words could not be read! (path: " + value + ")");
+                return null;
+            }
+        }
+        if (selection.minDocumentFrequency < 1 || !(selection.maxDocumentFrequency > 0)
+                || selection.maxDocumentFrequency > 1 || (selection.criterion != null && selection.termsPerClass < 1)) {
+            System.out.println("Minimal document frequency and number of terms per class must be at least 1 and maximal "
+                    + "document frequency between 0 and 1! (passed: " + String.join(" ", options) + ")");
+            return null;
+        }
+        return selection;
+    }
+
+    /**
+     * Returns true if this selection keeps every term.
+     *
+     * @return true if no option of the selection was set
+     */
+    public boolean isEmpty() {
+        return minDocumentFrequency == 1 && maxDocumentFrequency == 1.0 && stopWords == null && criterion == null;
+    }
+
+    /**
+     * Selects terms of given vocabulary by statistics of given training set and removes other terms from
+     * the training documents, renumbering the selected terms by their order in the new vocabulary.
+     *
+     * @param trainingSet           tokenized training documents, their terms are replaced
+     * @param vocabulary            vocabulary of the training documents
+     * @param classificationClasses list of available classification classes
+     * @return pruned vocabulary of selected terms
+     */
+    public Vocabulary select(List<Document> trainingSet, Vocabulary vocabulary,
+                             List<ClassificationClass> classificationClasses) {
+        int numOfTerms = vocabulary.size();
+        int[] classIndexes = new int[ClassificationClass.count()];
+        Arrays.fill(classIndexes, -1);
+        for (int i = 0; i < classificationClasses.size(); i++) {
+            classIndexes[classificationClasses.get(i).getId()] = i;
+        }
+
+        // number of documents containing each term, in the whole training set and in each class
+        int[] frequencies = new int[numOfTerms];
+        int[][] classFrequencies = criterion == null ? null : new int[classificationClasses.size()][numOfTerms];
+        int[] documentsInClass = new int[classificationClasses.size()];
+        for (Document document : trainingSet) {
+            int[] terms = document.isEmpty() ? new int[0] : SparseVector.countTerms(document.getTerms()).getIndices();
+            for (int term : terms) {
+                frequencies[term]++;
+            }
+            for (ClassificationClass classificationClass : document.getClassificationClasses()) {
+                int index = classificationClass.getId() < classIndexes.length ? classIndexes[classificationClass.getId()] : -1;
+                if (index < 0) {
+                    continue;
+                }
+                documentsInClass[index]++;
+                if (classFrequencies != null) {
+                    for (int term : terms) {
+                        classFrequencies[index][term]++;
+                    }
+                }
+            }
+        }
+
+        boolean[] allowed = new boolean[numOfTerms];
+        double maxFrequency = maxDocumentFrequency * trainingSet.size();
+        for (int term = 0; term < numOfTerms; term++) {
+            allowed[term] = frequencies[term] >= minDocumentFrequency && frequencies[term] <= maxFrequency;
+        }
+        if (stopWords != null) {
+            // stop words are looked up the same way as terms of documents, normalized by the normalizer
+            // of the vocabulary, stop words missing from the vocabulary get IDs following its IDs
+            for (int term : new Tokenizer().lookup(stopWords, vocabulary)) {
+                if (term < numOfTerms) {
+                    allowed[term] = false;
+                }
+            }
+        }
+
+        boolean[] selected = allowed;
+        if (criterion != null) {
+            selected = new boolean[numOfTerms];
+            for (int i = 0; i < classificationClasses.size(); i++) {
+                for (int term : selectBestTerms(allowed, frequencies, classFrequencies[i], documentsInClass[i], trainingSet.size())) {
+                    selected[term] = true;
+                }
+            }
+        }
+
+        Vocabulary prunedVocabulary = new Vocabulary();
+        int[] newIds = new int[numOfTerms];
+        for (int term = 0; term < numOfTerms; term++) {
+            newIds[term] = selected[term] ? prunedVocabulary.intern(vocabulary.getTerm(term)) : Vocabulary.UNKNOWN_TERM;
+        }
+        prunedVocabulary.setPruned(true);
+        // selected terms are normalized already, terms tokenized from now on are normalized the same way
+        prunedVocabulary.setNormalizer(vocabulary.getNormalizer());
+
+        for (Document document : trainingSet) {
+            if (document.isEmpty()) {
+                continue;
+            }
+            int[] terms = document.getTerms();
+            int[] selectedTerms = new int[terms.length];
+            int size = 0;
+            for (int term : terms) {
+                if (newIds[term] != Vocabulary.UNKNOWN_TERM) {
+                    selectedTerms[size++] = newIds[term];
+                }
+            }
+            document.setTerms(Arrays.copyOf(selectedTerms, size));
+        }
+        System.out.println("Selected " + prunedVocabulary.size() + " of " + numOfTerms + " terms.");
+        return prunedVocabulary;
+    }
+
+    /**
+     * Returns allowed terms most associated with a class by {@link #criterion}, at most {@link #termsPerClass}
+     * of them. Only terms occurring in documents of the class are returned.
+     *
+     * @param allowed          true for terms which can be selected, indexed by term ID
+     * @param frequencies      number of training documents containing each term
+     * @param classFrequencies number of training documents of the class containing each term
+     * @param documentsInClass number of training documents of the class
+     * @param numOfDocuments   number of training documents
+     * @return IDs of selected terms
+     */
+    private List<Integer> selectBestTerms(boolean[] allowed, int[] frequencies, int[] classFrequencies,
+                                          int documentsInClass, int numOfDocuments) {
+        double[] scores = new double[allowed.length];
+        List<Integer> candidates = new ArrayList<>();
+        for (int term = 0; term < allowed.length; term++) {
+            if (allowed[term] && classFrequencies[term] > 0) {
+                scores[term] = criterion.equals(CHI_SQUARE_OPTION)
+                        ? chiSquare(classFrequencies[term], frequencies[term], documentsInClass, numOfDocuments)
+                        : informationGain(classFrequencies[term], frequencies[term], documentsInClass, numOfDocuments);
+                candidates.add(term);
+            }
+        }
+        candidates.sort((first, second) -> Double.compare(scores[second], scores[first]));
+        return candidates.subList(0, Math.min(termsPerClass, candidates.size()));
+    }
+
+    /**
+     * Returns chi-square statistic of independence of a term and a class.
+     *
+     * @param inClass          number of documents of the class containing the term
+     * @param withTerm         number of documents containing the term
+     * @param documentsInClass number of documents of the class
+     * @param numOfDocuments   number of documents
+     * @return chi-square statistic, 0 if the term or the class is in every document
+     */
+    private static double chiSquare(int inClass, int withTerm, int documentsInClass, int numOfDocuments) {
+        double a = inClass;
+        double b = withTerm - inClass;
+        double c = documentsInClass - inClass;
+        double d = numOfDocuments - withTerm - c;
+        double denominator = (a + c) * (b + d) * (a + b) * (c + d);
+        return denominator == 0 ? 0 : numOfDocuments * (a * d - c * b) * (a * d - c * b) / denominator;
+    }
+
+    /**
+     * Returns information gain of knowing whether a document contains a term about whether it is in a class.
+     *
+     * @param inClass          number of documents of the class containing the term
+     * @param withTerm         number of documents containing the term
+     * @param documentsInClass number of documents of the class
+     * @param numOfDocuments   number of documents
+     * @return information gain in bits
+     */
+    private static double informationGain(int inClass, int withTerm, int documentsInClass, int numOfDocuments) {
+        int withoutTerm = numOfDocuments - withTerm;
+        double conditionalEntropy = (double) withTerm / numOfDocuments * entropy(inClass, withTerm)
+                + (double) withoutTerm / numOfDocuments * entropy(documentsInClass - inClass, withoutTerm);
+        return entropy(documentsInClass, numOfDocuments) - conditionalEntropy;
+    }
+
+    /**
+     * Returns entropy of a binary variable true in given number of cases.
+     *
+     * @param positive number of cases where the variable is true
+     * @param total    number of cases
+     * @return entropy in bits
+     */
+    private static double entropy(int positive, int total) {
+        if (positive == 0 || positive == total) {
+            return 0;
+        }
+        double p = (double) positive / total;
+        return -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / Math.log(2);
+    }
+
+    /**
+     * Returns options of this selection in the form they are passed from command-line, without the prefix,
+     * so they can be saved with the model.
+     *
+     * @return options separated by spaces, empty if the selection keeps every term
+     */
+    @Override
+    public String toString() {
+        List<String> options = new ArrayList<>();
+        if (minDocumentFrequency != 1) {
+            options.add(MIN_DF_OPTION + "=" + minDocumentFrequency);
+        }
+        if (maxDocumentFrequency != 1.0) {
+            options.add(MAX_DF_OPTION + "=" + maxDocumentFrequency);
+        }
+        if (stopWordsFile != null) {
+            options.add(STOP_WORDS_OPTION + "=" + stopWordsFile);
+        }
+        if (criterion != null) {
+            options.add(criterion + "=" + termsPerClass);
+        }
+        return String.join(" ", options);
+    }
+}
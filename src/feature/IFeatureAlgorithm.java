@@ -2,8 +2,11 @@ package feature;
 
 import utils.Document;
 
+import java.util.List;
+
 /**
- * Interface implemented by each feature algorithm.
+ * Interface implemented by each feature algorithm. Implementations must be thread-safe, as features of a corpus
+ * are computed for several documents at once.
  *
  * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
  */
@@ -15,4 +18,14 @@ public interface IFeatureAlgorithm {
      * @param document document for which we want to create features
      */
     void createFeatures(Document document);
+
+    /**
+     * Creates feature vectors of all given documents, in parallel. Features are the same as if they were created
+     * one by one.
+     *
+     * @param documents documents for which we want to create features
+     */
+    default void createFeatures(List<Document> documents) {
+        documents.parallelStream().forEach(this::createFeatures);
+    }
 }
@@ -0,0 +1,140 @@
+package feature;
+
+import utils.Document;
+import utils.SparseVector;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * Base of feature algorithms creating features from n-grams of document content, based on their frequency divided
+ * by the total number of n-grams in document. N-grams are never created as strings - each is given a hash, updated
+ * by a rolling hash as the n-gram window moves over the text, and the hash is mapped to one of a fixed number
+ * of features. Features do not depend on any vocabulary, so the algorithms have no statistics to keep.
+ * <p>
+ * Content of document is tokenized again the same way {@link Tokenizer} tokenizes it for the vocabulary, so terms
+ * of n-grams are the same as the terms of the document.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public abstract class NGramFrequency implements IFeatureAlgorithm {
+
+    /**
+     * Multiplier of the rolling hashes.
+     */
+    protected static final int BASE = 0x01000193;
+
+    /**
+     * Length of the shortest n-gram.
+     */
+    protected final int minLength;
+
+    /**
+     * Length of the longest n-gram.
+     */
+    protected final int maxLength;
+
+    /**
+     * Number of features n-grams are hashed to, a power of two.
+     */
+    private final int numOfFeatures;
+
+    /**
+     * Tokenizer of each thread, as tokenizer keeps its buffer between texts.
+     */
+    private final ThreadLocal<Tokenizer> tokenizers = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Creates algorithm with n-grams of given lengths.
+     *
+     * @param minLength     length of the shortest n-gram
+     * @param maxLength     length of the longest n-gram
+     * @param numOfFeatures number of features n-grams are hashed to, a power of two
+     */
+    protected NGramFrequency(int minLength, int maxLength, int numOfFeatures) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.numOfFeatures = numOfFeatures;
+    }
+
+    @Override
+    public void createFeatures(Document document) {
+        if (document == null || document.isEmpty() || document.getContent() == null) {
+            return;
+        }
+        NGrams nGrams = new NGrams(Math.max(16, document.getTerms().length * (maxLength - minLength + 1)));
+        extractNGrams(tokenizers.get(), document.getContent(), nGrams);
+        if (nGrams.size == 0) {
+            return;
+        }
+
+        SparseVector counts = SparseVector.countTerms(Arrays.copyOf(nGrams.features, nGrams.size));
+        double[] frequencies = counts.getValues().clone();
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] /= nGrams.size;
+        }
+        document.setFeatures(new SparseVector(counts.getIndices(), frequencies));
+    }
+
+    /**
+     * Passes hash of every n-gram of given text to given collector.
+     *
+     * @param tokenizer tokenizer splitting the text into terms
+     * @param content   content of document
+     * @param nGrams    collector of hashes of the n-grams
+     */
+    protected abstract void extractNGrams(Tokenizer tokenizer, CharSequence content, NGrams nGrams);
+
+    /**
+     * Returns {@link #BASE} raised to given power.
+     *
+     * @param exponent exponent
+     * @return the power, overflowing as the rolling hashes do
+     */
+    protected static int power(int exponent) {
+        int power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power *= BASE;
+        }
+        return power;
+    }
+
+    /**
+     * Collector of features of n-grams of one document.
+     */
+    protected final class NGrams {
+
+        /**
+         * Features of the collected n-grams, with spare capacity.
+         */
+        private int[] features;
+
+        /**
+         * Number of collected n-grams.
+         */
+        private int size;
+
+        /**
+         * Creates collector with given initial capacity.
+         *
+         * @param initialCapacity expected number of n-grams
+         */
+        private NGrams(int initialCapacity) {
+            this.features = new int[initialCapacity];
+        }
+
+        /**
+         * Adds n-gram with given hash and length.
+         *
+         * @param hash   rolling hash of the n-gram
+         * @param length length of the n-gram, so n-grams of different lengths with equal hashes differ
+         */
+        public void add(int hash, int length) {
+            if (size == features.length) {
+                features = Arrays.copyOf(features, features.length * 2);
+            }
+            features[size++] = Vocabulary.mix(hash + length * 0x9E3779B9) & (numOfFeatures - 1);
+        }
+    }
+}
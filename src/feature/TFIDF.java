@@ -1,9 +1,9 @@
 package feature;
 
 import utils.Document;
+import utils.SparseVector;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Feature algorithm creating document features (representative words) based on term frequency
@@ -14,45 +14,97 @@ import java.util.Map;
 public class TFIDF extends TermFrequency {
 
     /**
-     * List of documents to search for term occurrencies.
+     * Document frequencies of corpus. Replaced by a new snapshot when documents are added to corpus, so features
+     * computed concurrently always use statistics of one version of the corpus.
      */
-    private final List<Document> documents;
+    private volatile DocumentFrequencies documentFrequencies;
 
     public TFIDF(List<Document> documents) {
-        this.documents = documents;
+        this(DocumentFrequencies.count(documents));
+    }
+
+    /**
+     * Creates algorithm with previously computed statistics of the corpus, for example from a saved model.
+     *
+     * @param numOfDocuments      number of documents in corpus
+     * @param documentFrequencies number of documents in corpus containing each term, indexed by term ID
+     */
+    public TFIDF(int numOfDocuments, int[] documentFrequencies) {
+        this(new DocumentFrequencies(numOfDocuments, documentFrequencies));
+    }
+
+    /**
+     * Creates algorithm with given snapshot of document frequencies of the corpus.
+     *
+     * @param documentFrequencies document frequencies of corpus
+     */
+    public TFIDF(DocumentFrequencies documentFrequencies) {
+        this.documentFrequencies = documentFrequencies;
     }
 
     @Override
     public void createFeatures(Document document) {
-        if (document == null || document.getContent().isEmpty()) {
+        if (document == null || document.isEmpty()) {
             return;
         }
 
-        Map<String, Double> tfidfMap = computeTermFrequencies(document);
+        document.setFeatures(computeFeatures(computeTermFrequencies(document)));
+    }
+
+    /**
+     * Computes features from given term frequencies of a document, so term frequencies computed before can be
+     * reused with different statistics of the corpus.
+     *
+     * @param termFrequencies term frequencies of the terms of a document
+     * @return vector of features of the document
+     */
+    public SparseVector computeFeatures(SparseVector termFrequencies) {
+        DocumentFrequencies snapshot = documentFrequencies;
+        int[] terms = termFrequencies.getIndices();
+        double[] tfidf = termFrequencies.getValues().clone();
 
-        for (Map.Entry<String, Double> pair : tfidfMap.entrySet()) {
-            double idf = Math.log(documents.size() / (getTermOccurence(pair.getKey()) + 1.0));    // +1 adjustment so we never divide by 0
-            pair.setValue(pair.getValue() * idf);
+        for (int i = 0; i < terms.length; i++) {
+            double idf = Math.log(snapshot.getNumOfDocuments() / (snapshot.getFrequency(terms[i]) + 1.0));    // +1 adjustment so we never divide by 0
+            tfidf[i] *= idf;
         }
 
-        document.setFeatures(tfidfMap);
+        return new SparseVector(terms, tfidf);
     }
 
     /**
      * Returns number of documents in corpus containing given term.
      *
-     * @param term wanted term
+     * @param term ID of wanted term
      * @return number of documents in corpus containing given term
      */
-    public int getTermOccurence(String term) {
-        int occurrence = 0;
+    public int getTermOccurence(int term) {
+        return documentFrequencies.getFrequency(term);
+    }
 
-        for (Document document : documents) {
-            if (document.getContent().contains(term)) {
-                occurrence++;
-            }
-        }
+    /**
+     * Returns number of documents in corpus.
+     *
+     * @return number of documents in corpus
+     */
+    public int getNumOfDocuments() {
+        return documentFrequencies.getNumOfDocuments();
+    }
+
+    /**
+     * Returns number of documents in corpus containing each term. Returned array must not be modified.
+     *
+     * @return array where indexes are term IDs and values are numbers of documents containing them
+     */
+    public int[] getDocumentFrequencies() {
+        return documentFrequencies.getFrequencies();
+    }
 
-        return occurrence;
+    /**
+     * Adds given documents to corpus. Features of documents created before are not changed.
+     *
+     * @param documents added documents
+     */
+    public void addDocuments(List<Document> documents) {
+        documentFrequencies = documentFrequencies.add(documents);
     }
 }
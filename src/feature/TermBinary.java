@@ -1,9 +1,9 @@
 package feature;
 
 import utils.Document;
+import utils.SparseVector;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Simple binary feature algorithm, assigning value to 1 to every word appearing in given document.
@@ -14,14 +14,13 @@ public class TermBinary implements IFeatureAlgorithm {
 
     @Override
     public void createFeatures(Document document) {
-        Map<String, Double> features = new HashMap<>();
-
-        for (String term : document.getContent().split(" ")) {
-            if (!term.isEmpty() && !features.containsKey(term)) {
-                features.put(term, 1.0);
-            }
+        if (document == null || document.isEmpty()) {
+            return;
         }
+        int[] terms = SparseVector.countTerms(document.getTerms()).getIndices();
+        double[] features = new double[terms.length];
+        Arrays.fill(features, 1.0);
 
-        document.setFeatures(features);
+        document.setFeatures(new SparseVector(terms, features));
     }
 }
@@ -1,9 +1,7 @@
 package feature;
 
 import utils.Document;
-
-import java.util.HashMap;
-import java.util.Map;
+import utils.SparseVector;
 
 /**
  * Feature algorithm creating document features (representative words) based on their frequency divided
@@ -16,11 +14,11 @@ public class TermFrequency implements IFeatureAlgorithm {
 
     @Override
     public void createFeatures(Document document) {
-        if (document == null || document.getContent().isEmpty()) {
+        if (document == null || document.isEmpty()) {
             return;
         }
 
-        Map<String, Double> termFrequencies = computeTermFrequencies(document);
+        SparseVector termFrequencies = computeTermFrequencies(document);
         document.setFeatures(termFrequencies);
     }
 
@@ -28,30 +26,19 @@ public class TermFrequency implements IFeatureAlgorithm {
      * Computes term frequencies for each term occurring in document.
      *
      * @param document document to count term frequencies in
-     * @return map where keys are terms of the document and values are their term frequencies
+     * @return vector of term frequencies of the terms of the document
      */
-    public Map<String, Double> computeTermFrequencies(Document document) {
-        Map<String, Double> termFrequencies = new HashMap<>();
-        String[] terms = document.getContent().split(" ");
-        int totalNumOfWords = 0;
-
-        for (String term : terms) {
-            if (term.isEmpty()) {
-                continue;
-            }
-            if (termFrequencies.containsKey(term)) {
-                termFrequencies.replace(term, termFrequencies.get(term) + 1);
-            } else {
-                termFrequencies.put(term, 1.0);
-            }
-            totalNumOfWords++;
-        }
-
-        for (Map.Entry<String, Double> pair : termFrequencies.entrySet()) {
-            pair.setValue(pair.getValue() / totalNumOfWords);
+    public SparseVector computeTermFrequencies(Document document) {
+        SparseVector termCounts = SparseVector.countTerms(document.getTerms());
+        int totalNumOfWords = document.getTerms().length;
+
+        double[] termFrequencies = new double[termCounts.size()];
+        double[] counts = termCounts.getValues();
+        for (int i = 0; i < termFrequencies.length; i++) {
+            termFrequencies[i] = counts[i] / totalNumOfWords;
         }
-        return termFrequencies;
+        return new SparseVector(termCounts.getIndices(), termFrequencies);
     }
 
 
-}
\ No newline at end of file
+}
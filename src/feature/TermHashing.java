@@ -0,0 +1,53 @@
+package feature;
+
+import utils.Document;
+import utils.SparseVector;
+import utils.Vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * Feature algorithm hashing terms into a fixed number of features. Terms of documents must be tokenized
+ * by {@link Vocabulary#hashing(int) hashing vocabulary}, which gives every term the index of its feature and a sign.
+ * Value of each feature is the sum of frequencies of its terms, each multiplied by its sign, divided by the total
+ * number of words in document.
+ * <p>
+ * No statistics of terms are kept, so memory of a model is bounded by the number of features and new terms
+ * never grow it. Features can be negative, so the algorithm cannot be used by Naive Bayes classifier.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class TermHashing implements IFeatureAlgorithm {
+
+    /**
+     * Number of features terms are hashed to, unless other is set.
+     */
+    public static final int DEFAULT_NUM_OF_FEATURES = 1 << 18;
+
+    @Override
+    public void createFeatures(Document document) {
+        if (document == null || document.isEmpty()) {
+            return;
+        }
+        SparseVector termCounts = SparseVector.countTerms(document.getTerms());
+        int totalNumOfWords = document.getTerms().length;
+
+        // IDs of terms are ordered, and both IDs of one feature differ only in sign, so they are next to each other
+        int[] ids = termCounts.getIndices();
+        double[] counts = termCounts.getValues();
+        int[] features = new int[ids.length];
+        double[] values = new double[ids.length];
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int feature = Vocabulary.getFeature(ids[i]);
+            double value = Vocabulary.getSign(ids[i]) * counts[i] / totalNumOfWords;
+            if (size > 0 && features[size - 1] == feature) {
+                values[size - 1] += value;
+            } else {
+                features[size] = feature;
+                values[size++] = value;
+            }
+        }
+        document.setFeatures(new SparseVector(Arrays.copyOf(features, size), Arrays.copyOf(values, size)));
+    }
+}
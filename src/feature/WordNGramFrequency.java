@@ -0,0 +1,72 @@
+package feature;
+
+import utils.Tokenizer;
+
+/**
+ * Feature algorithm creating features from word n-grams - sequences of consecutive terms of document. Each term
+ * is hashed and the hash of the n-gram ending with it is computed from the hash of the previous n-gram by adding
+ * the new term and removing the oldest one.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class WordNGramFrequency extends NGramFrequency {
+
+    /**
+     * Length of the shortest n-gram unless other is set - single terms.
+     */
+    public static final int DEFAULT_MIN_LENGTH = 1;
+
+    /**
+     * Length of the longest n-gram unless other is set - pairs of terms.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 2;
+
+    /**
+     * Creates algorithm with single terms and pairs of terms hashed to {@link TermHashing#DEFAULT_NUM_OF_FEATURES}.
+     */
+    public WordNGramFrequency() {
+        this(DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH, TermHashing.DEFAULT_NUM_OF_FEATURES);
+    }
+
+    /**
+     * Creates algorithm with n-grams of given numbers of terms.
+     *
+     * @param minLength     number of terms of the shortest n-gram
+     * @param maxLength     number of terms of the longest n-gram
+     * @param numOfFeatures number of features n-grams are hashed to, a power of two
+     */
+    public WordNGramFrequency(int minLength, int maxLength, int numOfFeatures) {
+        super(minLength, maxLength, numOfFeatures);
+    }
+
+    @Override
+    protected void extractNGrams(Tokenizer tokenizer, CharSequence content, NGrams nGrams) {
+        // hashes of the last maxLength terms, in a ring, and rolling hash of the n-gram of each length ending there
+        int[] terms = new int[maxLength];
+        int[] hashes = new int[maxLength + 1];
+        int[] powers = new int[maxLength + 1];
+        for (int length = 1; length <= maxLength; length++) {
+            powers[length] = power(length);
+        }
+        int[] numOfTerms = {0};
+
+        tokenizer.tokenize(content, (buffer, length) -> {
+            int term = 0x811C9DC5;
+            for (int i = 0; i < length; i++) {
+                term = (term ^ buffer[i]) * 0x01000193;
+            }
+            int position = numOfTerms[0]++;
+            for (int n = 1; n <= maxLength; n++) {
+                hashes[n] = hashes[n] * BASE + term;
+                if (position >= n) {
+                    // the term n positions back leaves the n-gram
+                    hashes[n] -= terms[(position - n) % maxLength] * powers[n];
+                }
+                if (n >= minLength && position + 1 >= n) {
+                    nGrams.add(hashes[n], n);
+                }
+            }
+            terms[position % maxLength] = term;
+        });
+    }
+}
@@ -1,28 +1,112 @@
 package utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Classification class given to classified documents.
+ * Classification class given to classified documents. Classes are interned - there is exactly one instance
+ * for each name, numbered by a small dense ID, so classes can be compared by reference and statistics of classes
+ * can be kept in arrays indexed by their IDs. Classes can be created and counted from any number of threads.
  *
  * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
  */
-public class ClassificationClass {
+public final class ClassificationClass {
 
-    private static final Map<String, Integer> numberOfDocumentsInClasses = new HashMap<>();
-    private final String NAME;
+    /**
+     * Registry of all classes, by their names.
+     */
+    private static final ConcurrentMap<String, ClassificationClass> classesByName = new ConcurrentHashMap<>();
+
+    /**
+     * Registry of all classes, indexed by their IDs. Replaced by a longer copy when it is full.
+     */
+    private static volatile ClassificationClass[] classesById = new ClassificationClass[16];
+
+    /**
+     * Number of registered classes. Written only while registering a class, after the class is added
+     * to {@link #classesById}, so it is read without locking.
+     */
+    private static volatile int numOfClasses;
+
+    /**
+     * Name of the classification class.
+     */
+    private final String name;
+
+    /**
+     * ID of the classification class, assigned in order of registration starting from 0.
+     */
+    private final int id;
+
+    /**
+     * Number of documents that fall into this classification class.
+     */
+    private final LongAdder documentsInClass = new LongAdder();
+
+    /**
+     * Creates new classification class instance with given name and ID.
+     *
+     * @param name name of the classification class
+     * @param id   ID of the classification class
+     */
+    private ClassificationClass(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Returns classification class with given name, registering it with the next free ID if it does not exist yet.
+     *
+     * @param name name of the classification class
+     * @return the only classification class with given name
+     */
+    public static ClassificationClass of(String name) {
+        ClassificationClass classificationClass = classesByName.get(name);
+        if (classificationClass != null) {
+            return classificationClass;
+        }
+        return classesByName.computeIfAbsent(name, ClassificationClass::register);
+    }
 
     /**
-     * Creates new classification class instance with given name.
+     * Creates classification class with the next free ID and adds it to registry of IDs.
      *
      * @param name name of the classification class
+     * @return created classification class
      */
-    public ClassificationClass(String name) {
-        this.NAME = name;
-        if (!numberOfDocumentsInClasses.containsKey(this.NAME)) {
-            numberOfDocumentsInClasses.put(this.NAME, 0);
+    private static synchronized ClassificationClass register(String name) {
+        int id = numOfClasses;
+        ClassificationClass classificationClass = new ClassificationClass(name, id);
+        ClassificationClass[] classes = classesById;
+        if (id == classes.length) {
+            classes = Arrays.copyOf(classes, classes.length * 2);
         }
+        classes[id] = classificationClass;
+        classesById = classes;
+        numOfClasses = id + 1;
+        return classificationClass;
+    }
+
+    /**
+     * Returns classification class with given ID.
+     *
+     * @param id ID of the classification class
+     * @return classification class with given ID
+     */
+    public static ClassificationClass get(int id) {
+        return classesById[id];
+    }
+
+    /**
+     * Returns number of registered classification classes. IDs of all classes are lower than this number.
+     * Called on every classification, so it does not lock.
+     *
+     * @return number of registered classification classes
+     */
+    public static int count() {
+        return numOfClasses;
     }
 
     /**
@@ -31,7 +115,16 @@ public class ClassificationClass {
      * @return name of the classification class
      */
     public String getName() {
-        return NAME;
+        return name;
+    }
+
+    /**
+     * Returns ID of the classification class.
+     *
+     * @return ID of the classification class
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -40,39 +133,42 @@ public class ClassificationClass {
      * @return number of documents that fall into this classification class.
      */
     public int getDocumentsInClass() {
-        return numberOfDocumentsInClasses.get(this.NAME);
+        return documentsInClass.intValue();
     }
 
     /**
      * Increments the number of documents that fall into this classification class by one.
      */
     public void incDocumentsInClass() {
-        numberOfDocumentsInClasses.replace(this.NAME, getDocumentsInClass() + 1);
+        documentsInClass.increment();
     }
 
     /**
      * Decrements the number of documents that fall into this classification class by one.
      */
     public void decDocumentsInClass() {
-        numberOfDocumentsInClasses.replace(this.NAME, getDocumentsInClass() - 1);
+        documentsInClass.decrement();
     }
 
     /**
-     * Returns true if this classification class is the same (has the same name) as given
-     * classification class. Returns {@code false} if parameter is {@code null} or is not
-     * an instance of ClassificationClass.
+     * Returns true if this classification class is the same as given classification class. Classes are
+     * interned, so classes with the same name are the same instance.
      *
      * @param object compared classification class
      * @return true if this classification class has the same name
      */
     @Override
     public boolean equals(Object object) {
-        if (!(object instanceof ClassificationClass)) {
-            return false;
-        }
+        return this == object;
+    }
 
-        ClassificationClass obj = (ClassificationClass) object;
-        return obj.getName().equals(this.NAME);
+    @Override
+    public int hashCode() {
+        return id;
     }
 
+    @Override
+    public String toString() {
+        return name;
+    }
 }
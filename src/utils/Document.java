@@ -1,7 +1,7 @@
 package utils;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Document to be classified or to train the classifier by.
@@ -15,15 +15,25 @@ public class Document {
      */
     private String content;
 
+    /**
+     * IDs of the terms of this document in order of their occurrence, interned in {@link Vocabulary}.
+     */
+    private int[] terms;
+
     /**
      * Classification classes which this document belongs to.
      */
     private List<ClassificationClass> classificationClasses;
 
+    /**
+     * IDs of classification classes which this document belongs to, for checking membership in constant time.
+     */
+    private BitSet labels = new BitSet();
+
     /**
      * List of features representing this document, selected by feature any {@link feature.IFeatureAlgorithm}
      */
-    private Map<String, Double> features;
+    private SparseVector features;
 
     /**
      * Returns content of this document.
@@ -43,6 +53,33 @@ public class Document {
         this.content = content;
     }
 
+    /**
+     * Returns IDs of the terms of this document in order of their occurrence.
+     *
+     * @return IDs of the terms of this document
+     */
+    public int[] getTerms() {
+        return terms;
+    }
+
+    /**
+     * Sets IDs of the terms of this document to given array.
+     *
+     * @param terms IDs of the terms in order of their occurrence
+     */
+    public void setTerms(int[] terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Returns true if this document has no terms.
+     *
+     * @return true if this document has no terms
+     */
+    public boolean isEmpty() {
+        return terms == null || terms.length == 0;
+    }
+
     /**
      * Returns list of classification classes which this document belongs to.
      *
@@ -58,24 +95,41 @@ public class Document {
      * @param classificationClasses desired list of classification classes
      */
     public void setClassificationClasses(List<ClassificationClass> classificationClasses) {
+        BitSet labels = new BitSet();
+        if (classificationClasses != null) {
+            for (ClassificationClass classificationClass : classificationClasses) {
+                labels.set(classificationClass.getId());
+            }
+        }
         this.classificationClasses = classificationClasses;
+        this.labels = labels;
+    }
+
+    /**
+     * Returns true if this document belongs to given classification class.
+     *
+     * @param classificationClass classification class
+     * @return true if this document belongs to given classification class
+     */
+    public boolean hasClassificationClass(ClassificationClass classificationClass) {
+        return labels.get(classificationClass.getId());
     }
 
     /**
-     * Returns vector (list) of features (words) representing this document.
+     * Returns vector (list) of features (term IDs) representing this document.
      *
      * @return vector of features representing this document
      */
-    public Map<String, Double> getFeatures() {
+    public SparseVector getFeatures() {
         return features;
     }
 
     /**
-     * Sets the vector (list) of features (words) representing this document to given vector.
+     * Sets the vector (list) of features (term IDs) representing this document to given vector.
      *
      * @param features desired vector of features
      */
-    public void setFeatures(Map<String, Double> features) {
+    public void setFeatures(SparseVector features) {
         this.features = features;
     }
 }
@@ -1,9 +1,17 @@
 package utils;
 
-import app.DocumentClassifierApp;
-
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Utility class to load data from files.
@@ -13,9 +21,39 @@ import java.util.*;
 public class FileLoader extends ModelOperator {
 
     /**
-     * Buffered reader to load data.
+     * Vocabulary the terms of loaded documents are interned in.
+     */
+    private final Vocabulary vocabulary;
+
+    /**
+     * Tokenizer of each thread reading documents.
+     */
+    private static final ThreadLocal<Tokenizer> TOKENIZERS = ThreadLocal.withInitial(Tokenizer::new);
+
+    /**
+     * Creates file loader interning terms of loaded documents into new vocabulary.
      */
-    private BufferedReader reader;
+    public FileLoader() {
+        this(new Vocabulary());
+    }
+
+    /**
+     * Creates file loader interning terms of loaded documents into given vocabulary.
+     *
+     * @param vocabulary vocabulary shared by loaded documents
+     */
+    public FileLoader(Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * Returns the vocabulary the terms of loaded documents are interned in.
+     *
+     * @return vocabulary of loaded documents
+     */
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
 
     /**
      * Loads document at given path.
@@ -25,35 +63,8 @@ public class FileLoader extends ModelOperator {
      */
     public Document loadDocument(File file) {
         try {
-            reader = new BufferedReader(new FileReader(file));
-            Document document = new Document();
-            String line;
-            StringBuilder buffer = new StringBuilder();
-            boolean isFirstLine = true;
-
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) {
-                    continue;
-                }
-                if (isFirstLine) {   //if we are loading the first line of document, we are loading it's classification classes
-                    String[] classes = line.split(" ");
-                    List<ClassificationClass> classificationClasses = new ArrayList<>();
-
-                    for (String className : classes) {
-                        classificationClasses.add(new ClassificationClass(className));
-                    }
-
-                    document.setClassificationClasses(classificationClasses);
-                    isFirstLine = false;
-                } else {
-                    buffer.append(line);
-                }
-            }
-            document.setContent(buffer.toString().replaceAll("[^a-zA-Zá-žÁ-Ž ]", "").toLowerCase());
-            reader.close();
-            return document;
-
-        } catch (FileNotFoundException fileNotFoundException) {
+            return createDocument(parseDocument(file.toPath(), null));
+        } catch (NoSuchFileException fileNotFoundException) {
             System.out.println("File was not found! (file: " + file.getAbsolutePath() + ")");
             return null;
         } catch (IOException ioException) {
@@ -63,37 +74,165 @@ public class FileLoader extends ModelOperator {
     }
 
     /**
-     * Loads data set in given folder.
+     * Loads data set in given folder. Files are read, parsed and tokenized in parallel, documents are returned
+     * in order of their file names. Each worker thread interns terms into its own vocabulary, whose new terms
+     * are then interned into the shared vocabulary in order of the documents, so IDs of terms are the same
+     * as if the documents were tokenized one by one.
      *
      * @param folderPath path to folder with data
      * @return List of loaded documents
      */
     public List<Document> loadDataSet(String folderPath) {
-        File dataSetFolder = new File(folderPath);
-        if (!dataSetFolder.isDirectory()) {
+        Path dataSetFolder = Paths.get(folderPath);
+        if (!Files.isDirectory(dataSetFolder)) {
             System.out.println("Directory in given path was not found! (path: " + folderPath + ")");
             return null;
         }
 
-        List<Document> dataSet = new ArrayList<>();
-        try {
-            for (File file : Objects.requireNonNull(dataSetFolder.listFiles())) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dataSetFolder, Files::isRegularFile)) {
+            directoryStream.forEach(files::add);
+        } catch (IOException e) {
+            System.out.println("Error while reading directory! (path: " + folderPath + ")");
+            return null;
+        }
+        Collections.sort(files);
 
-                Document document = loadDocument(file);
+        // hashing vocabulary is thread-safe, so workers compute the IDs of terms by it themselves
+        boolean isHashing = vocabulary.getNumOfHashedFeatures() > 0;
+        ThreadLocal<WorkerTerms> workerTerms = ThreadLocal.withInitial(() -> new WorkerTerms(vocabulary.getNormalizer()));
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<ParsedDocument>> parsedDocuments = new ArrayList<>(files.size());
+        List<Document> dataSet = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                parsedDocuments.add(executor.submit(() -> parseDocument(file, isHashing ? null : workerTerms.get())));
+            }
+            // terms and classes are registered sequentially, so their IDs do not depend on the order of reading
+            for (int i = 0; i < files.size(); i++) {
+                Document document;
+                try {
+                    document = createDocument(parsedDocuments.get(i).get());
+                } catch (ExecutionException e) {
+                    System.out.println("Error while reading from file! (file: " + files.get(i).toAbsolutePath() + ")");
+                    continue;
+                }
                 for (ClassificationClass docClass : document.getClassificationClasses()) {
                     docClass.incDocumentsInClass();
                 }
 
                 dataSet.add(document);
             }
-        } catch (Exception e) {
-            System.out.println("Directory is empty! (path: " + folderPath + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Loading of data set was interrupted! (path: " + folderPath + ")");
             return null;
+        } finally {
+            executor.shutdownNow();
         }
         System.out.println("Data set loaded.");
         return dataSet;
     }
 
+    /**
+     * Reads document in given file, splits it into the line with classification classes and content and tokenizes
+     * the content. With given terms of a worker thread the content is tokenized by the vocabulary of the worker,
+     * which is the only state touched, so documents can be read from several threads at once. Otherwise it is
+     * tokenized by the shared vocabulary.
+     *
+     * @param file        file with the document
+     * @param workerTerms terms of the thread reading the document, null to tokenize by the shared vocabulary
+     * @return parsed document
+     * @throws IOException thrown when error occurs
+     */
+    private ParsedDocument parseDocument(Path file, WorkerTerms workerTerms) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        int lineStart = 0;
+        int lineEnd = 0;
+
+        //the first non-empty line of document contains it's classification classes, the rest is content
+        while (lineStart < text.length()) {
+            lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            if (!text.substring(lineStart, lineEnd).trim().isEmpty()) {
+                break;
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (lineStart >= text.length()) {
+            return new ParsedDocument(new String[0], "", new int[0], null, 0, null);
+        }
+
+        String[] classNames = text.substring(lineStart, lineEnd).trim().split(" ");
+        String content = lineEnd < text.length() ? text.substring(lineEnd + 1) : "";
+        if (workerTerms == null) {
+            int[] termIds = TOKENIZERS.get().tokenize(content, vocabulary);
+            return new ParsedDocument(classNames, content, termIds, null, 0, null);
+        }
+
+        Vocabulary localTerms = workerTerms.terms;
+        int firstNewTerm = localTerms.size();
+        int[] termIds = TOKENIZERS.get().tokenize(content, localTerms);
+        String[] newTerms = new String[localTerms.size() - firstNewTerm];
+        for (int i = 0; i < newTerms.length; i++) {
+            newTerms[i] = localTerms.getTerm(firstNewTerm + i);
+        }
+        return new ParsedDocument(classNames, content, termIds, workerTerms, firstNewTerm, newTerms);
+    }
+
+    /**
+     * Creates document from parsed document. Terms the document was the first of its worker thread to contain
+     * are interned into vocabulary in order of their occurrence, the same order tokenizing the content
+     * by the vocabulary would intern them in, other terms of the worker have their IDs already. Terms missing
+     * from a pruned vocabulary are removed. Documents of one worker thread must be created in order they were
+     * parsed in.
+     *
+     * @param parsedDocument parsed document
+     * @return created document
+     */
+    private Document createDocument(ParsedDocument parsedDocument) {
+        Document document = new Document();
+        List<ClassificationClass> classificationClasses = new ArrayList<>();
+
+        for (String className : parsedDocument.classNames) {
+            classificationClasses.add(ClassificationClass.of(className));
+        }
+
+        document.setClassificationClasses(classificationClasses);
+        document.setContent(parsedDocument.content);
+
+        WorkerTerms workerTerms = parsedDocument.workerTerms;
+        if (workerTerms == null) {
+            document.setTerms(parsedDocument.termIds);
+            return document;
+        }
+
+        int firstNewTerm = parsedDocument.firstNewTerm;
+        String[] newTerms = parsedDocument.newTerms;
+        int numOfWorkerTerms = firstNewTerm + newTerms.length;
+        if (workerTerms.ids.length < numOfWorkerTerms) {
+            workerTerms.ids = Arrays.copyOf(workerTerms.ids, Math.max(numOfWorkerTerms, 2 * workerTerms.ids.length));
+        }
+        int[] ids = workerTerms.ids;
+        Arrays.fill(ids, firstNewTerm, numOfWorkerTerms, WorkerTerms.NOT_INTERNED);
+        int[] terms = new int[parsedDocument.termIds.length];
+        int numOfTerms = 0;
+        for (int termId : parsedDocument.termIds) {
+            if (ids[termId] == WorkerTerms.NOT_INTERNED) {
+                String term = newTerms[termId - firstNewTerm];
+                ids[termId] = vocabulary.isPruned()
+                        ? vocabulary.getIdNormalized(term) : vocabulary.internNormalized(term);
+            }
+            if (ids[termId] != Vocabulary.UNKNOWN_TERM) {
+                terms[numOfTerms++] = ids[termId];
+            }
+        }
+        document.setTerms(numOfTerms == terms.length ? terms : Arrays.copyOf(terms, numOfTerms));
+        return document;
+    }
+
     /**
      * Loads list of classification classes from given file.
      *
@@ -101,116 +240,363 @@ public class FileLoader extends ModelOperator {
      * @return list of classification classes
      */
     public List<ClassificationClass> loadClassificationClasses(String filePath) {
-        try {
-            reader = new BufferedReader(new FileReader(filePath));
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             List<ClassificationClass> classificationClasses = new ArrayList<>();
             String line;
 
             while ((line = reader.readLine()) != null) {
-                classificationClasses.add(new ClassificationClass(line));
+                classificationClasses.add(ClassificationClass.of(line));
             }
             System.out.println("Classification classes loaded.");
-            reader.close();
             return classificationClasses;
-        } catch (Exception e) {
+        } catch (IOException e) {
             System.out.println("File containing classification classes not found! (" + filePath + ")");
             return null;
         }
     }
 
     /**
-     * Loads trained model with given name. Returns null if given file name is not found.
+     * Loads trained model with given name. Returns null if given file name is not found. Sections of the file
+     * are mapped into memory, training documents are decoded only when they are accessed.
+     * <p>
+     * Only the training set stays mapped. Vocabulary, graph of approximate k-nearest neighbours classifier
+     * and class statistics are copied onto the heap, as the classifiers keep them in their own structures
+     * which grow when documents are added - the hash table of terms, the graph and the weights of Naive Bayes.
+     * Features of the training documents, which the mapped training set holds, are usually most of the model.
      *
      * @param modelName name of the model (and it's file)
      * @return loaded model
      */
     public Model loadModel(String modelName) {
-        try {
-            reader = new BufferedReader(new FileReader(modelName + MODEL_FILE_EXTENSION));
-            Model model = new Model(modelName);
+        String fileName = modelName + MODEL_FILE_EXTENSION;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MODEL_HEADER_SIZE));
+            if (header.limit() < MODEL_HEADER_SIZE || header.getInt(0) != MODEL_MAGIC) {
+                System.out.println("Invalid model file format!");
+                return null;
+            }
+            if (header.getInt(4) != MODEL_FORMAT_VERSION) {
+                System.out.println("Unsupported version of model file! (version: " + header.getInt(4) + ")");
+                return null;
+            }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                switch (line) {
-                    case MODEL_CLASSIFICATION_CLASSES_FILE_TAG:
-                        model.setClassificationClassesFile(reader.readLine());
-                        break;
-                    case MODEL_FEATURE_ALGORITHM_TAG:
-                        model.setFeatureAlgorithm(reader.readLine());
-                        break;
-                    case MODEL_CLASSIFIER_TAG:
-                        loadClassifier(model);
-                        break;
-                    case MODEL_TRAINING_SET_TAG:
-                        model.setTrainingSet(new ArrayList<>());
-                        break;
-                    case MODEL_DOCUMENT_TAG:
-                        loadModelDocument(model);
-                        break;
-                    default:
-                        System.out.println("Invalid model file format!");
-                        reader.close();
-                        return null;
-                }
+            int numOfSections = header.getInt(8);
+            ByteBuffer sectionTable = channel.map(FileChannel.MapMode.READ_ONLY, MODEL_HEADER_SIZE,
+                    (long) numOfSections * MODEL_SECTION_ENTRY_SIZE);
+            Map<Integer, ByteBuffer> sections = new HashMap<>();
+            for (int i = 0; i < numOfSections; i++) {
+                int entry = i * MODEL_SECTION_ENTRY_SIZE;
+                sections.put(sectionTable.getInt(entry), channel.map(FileChannel.MapMode.READ_ONLY,
+                        sectionTable.getLong(entry + 4), sectionTable.getLong(entry + 12)));
             }
 
-            reader.close();
+            Model model = new Model(modelName);
+            loadMetadata(model, sections.get(MODEL_METADATA_SECTION));
+            if (model.getVocabulary() == null) {
+                // hashing vocabulary is created from metadata, it has no terms
+                model.setVocabulary(loadVocabulary(sections.get(MODEL_VOCABULARY_SECTION)));
+                model.getVocabulary().setPruned(!model.getFeatureSelection().isEmpty());
+            }
+            if (!model.getNormalization().isEmpty()) {
+                TermNormalizer normalizer = TermNormalizer.forName(model.getNormalization());
+                if (normalizer == null) {
+                    System.out.println("Unknown normalization of terms! (name: " + model.getNormalization() + ")");
+                    return null;
+                }
+                model.getVocabulary().setNormalizer(normalizer);
+            }
+            List<ClassificationClass> modelClasses = loadClasses(sections.get(MODEL_CLASSES_SECTION));
+            if (sections.containsKey(MODEL_TRAINING_SET_SECTION)) {
+                model.setTrainingSet(new MappedTrainingSet(sections.get(MODEL_TRAINING_SET_SECTION), modelClasses));
+            } else {
+                model.setTrainingSet(new ArrayList<>());
+            }
+            if (sections.containsKey(MODEL_CLASS_STATISTICS_SECTION)
+                    && !loadClassStatistics(model, sections.get(MODEL_CLASS_STATISTICS_SECTION), modelClasses)) {
+                System.out.println("Invalid class statistics in model file! (path: " + fileName + ")");
+                return null;
+            }
+            if (sections.containsKey(MODEL_DOCUMENT_FREQUENCIES_SECTION)
+                    && !loadDocumentFrequencies(model, sections.get(MODEL_DOCUMENT_FREQUENCIES_SECTION))) {
+                System.out.println("Invalid document frequencies in model file! (path: " + fileName + ")");
+                return null;
+            }
+            if (sections.containsKey(MODEL_GRAPH_SECTION)) {
+                model.setGraph(loadGraph(sections.get(MODEL_GRAPH_SECTION)));
+            }
             return model;
 
-        } catch (IOException fileNotFoundException) {
-            System.out.println("Model file not found! (path: " + modelName + MODEL_FILE_EXTENSION + ")");
+        } catch (NoSuchFileException fileNotFoundException) {
+            System.out.println("Model file not found! (path: " + fileName + ")");
+            return null;
+        } catch (IOException | RuntimeException exception) {
+            System.out.println("Error while reading model file! (path: " + fileName + ")");
             return null;
         }
-
     }
 
     /**
-     * Loads classifier data into the model
+     * Loads metadata section of model file into given model.
      *
-     * @param model loaded model
+     * @param model   loaded model
+     * @param section mapped metadata section
+     * @throws IOException thrown when error occurs
      */
-    private void loadClassifier(Model model) throws IOException {
-        model.setClassifier(reader.readLine());
+    private void loadMetadata(Model model, ByteBuffer section) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(toArray(section)));
+        model.setClassificationClassesFile(input.readUTF());
+        model.setFeatureAlgorithm(input.readUTF());
+        model.setClassifier(input.readUTF());
+        model.setTotalUniqueWords(input.readInt());
+        model.setNeighbours(input.readInt());
+        model.setMaxConnections(input.readInt());
+        model.setEfConstruction(input.readInt());
+        model.setEfSearch(input.readInt());
 
-        if (model.getClassifier().equals(DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER)) {
-            model.setTotalUniqueWords(Integer.parseInt(reader.readLine()));
-            Map<String, Double> totalWordsMap = new HashMap<>();
-            String[] uniqueWordsInClasses = reader.readLine().split(" ");
-            for (String totalWordsInClass : uniqueWordsInClasses) {
-                String[] classWordsPair = totalWordsInClass.split(";");
-                totalWordsMap.put(classWordsPair[0], Double.parseDouble(classWordsPair[1]));
+        int numOfClasses = input.readInt();
+        if (numOfClasses >= 0) {
+            Map<String, Double> totalWordsInClass = new HashMap<>();
+            for (int i = 0; i < numOfClasses; i++) {
+                totalWordsInClass.put(input.readUTF(), input.readDouble());
+            }
+            model.setTotalWordsInClass(totalWordsInClass);
+        }
+        // models saved before feature selection, hashing or normalization of terms was added end here
+        if (input.available() > 0) {
+            model.setFeatureSelection(input.readUTF());
+        }
+        if (input.available() > 0) {
+            int numOfHashedFeatures = input.readInt();
+            if (numOfHashedFeatures > 0) {
+                model.setVocabulary(Vocabulary.hashing(numOfHashedFeatures));
             }
-            model.setTotalWordsInClass(totalWordsMap);
         }
+        if (input.available() > 0) {
+            model.setNormalization(input.readUTF());
+        }
+    }
+
+    /**
+     * Loads vocabulary from vocabulary section of model file.
+     *
+     * @param section mapped vocabulary section
+     * @return loaded vocabulary
+     */
+    private Vocabulary loadVocabulary(ByteBuffer section) {
+        int numOfTerms = section.getInt(0);
+        int dataStart = Integer.BYTES * (numOfTerms + 2);
+        byte[] data = new byte[section.limit() - dataStart];
+        section.get(dataStart, data);
+
+        Vocabulary modelVocabulary = new Vocabulary();
+        for (int id = 0; id < numOfTerms; id++) {
+            int start = section.getInt(Integer.BYTES * (id + 1));
+            int end = section.getInt(Integer.BYTES * (id + 2));
+            modelVocabulary.intern(new String(data, start, end - start, StandardCharsets.UTF_8));
+        }
+        return modelVocabulary;
     }
 
     /**
-     * Loads document from model file and stores it into training set of given model.
+     * Loads classification classes from classes section of model file.
      *
-     * @param model loaded model
+     * @param section mapped classes section
+     * @return classification classes indexed by their IDs in model file
      * @throws IOException thrown when error occurs
      */
-    private void loadModelDocument(Model model) throws IOException {
-        Document document = new Document();
+    private List<ClassificationClass> loadClasses(ByteBuffer section) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(toArray(section)));
+        int numOfClasses = input.readInt();
+        List<ClassificationClass> classificationClasses = new ArrayList<>(numOfClasses);
+        for (int i = 0; i < numOfClasses; i++) {
+            classificationClasses.add(ClassificationClass.of(input.readUTF()));
+        }
+        return classificationClasses;
+    }
 
-        List<ClassificationClass> classificationClasses = new ArrayList<>();
-        String[] classes = reader.readLine().split(" ");
+    /**
+     * Loads number of training documents in each class and sums of values of each term in each class from class
+     * statistics section of model file into given model. No class can have more documents than the training set
+     * the statistics were counted from.
+     *
+     * @param model        loaded model
+     * @param section      mapped class statistics section
+     * @param modelClasses classification classes indexed by their IDs in model file
+     * @return true if the statistics were loaded, false if the numbers of documents are not valid
+     */
+    private boolean loadClassStatistics(Model model, ByteBuffer section, List<ClassificationClass> modelClasses) {
+        IntBuffer ints = section.asIntBuffer();
+        int numOfTrainingDocuments = ints.get(0);
+        int numOfClasses = ints.get(1);
+        int numOfTerms = ints.get(2);
+        int documentCounts = 4;
+        int termOffsets = documentCounts + numOfClasses;
+        int termsStart = (int) align((long) (termOffsets + numOfClasses + 1) * Integer.BYTES);
+        IntBuffer terms = section.slice(termsStart, numOfTerms * Integer.BYTES).asIntBuffer();
+        DoubleBuffer values = section.slice((int) align(termsStart + (long) numOfTerms * Integer.BYTES),
+                numOfTerms * Double.BYTES).asDoubleBuffer();
+
+        Map<String, Integer> documentsInClass = new HashMap<>();
+        Map<String, SparseVector> termCountsInClass = new HashMap<>();
+        for (int i = 0; i < numOfClasses; i++) {
+            String className = modelClasses.get(i).getName();
+            int numOfDocumentsInClass = ints.get(documentCounts + i);
+            if (numOfDocumentsInClass < 0 || numOfDocumentsInClass > numOfTrainingDocuments) {
+                return false;
+            }
+            documentsInClass.put(className, numOfDocumentsInClass);
 
-        for (String clazz : classes) {
-            classificationClasses.add(new ClassificationClass(clazz));
+            int start = ints.get(termOffsets + i);
+            int[] classTerms = new int[ints.get(termOffsets + i + 1) - start];
+            double[] classValues = new double[classTerms.length];
+            terms.get(start, classTerms);
+            values.get(start, classValues);
+            termCountsInClass.put(className, new SparseVector(classTerms, classValues));
         }
-        document.setClassificationClasses(classificationClasses);
 
-        Map<String, Double> documentFeatures = new HashMap<>();
-        String[] features = reader.readLine().split(" ");
-        StringBuilder content = new StringBuilder();
-        for (String feature : features) {
-            String[] featureParts = feature.split(";");
-            documentFeatures.put(featureParts[0], Double.parseDouble(featureParts[1]));
-            content.append(featureParts[0]).append(" ");
-        }
-        document.setFeatures(documentFeatures);
-        document.setContent(content.toString());
-        model.getTrainingSet().add(document);
+        model.setNumOfTrainingDocuments(numOfTrainingDocuments);
+        model.setDocumentsInClass(documentsInClass);
+        model.setTermCountsInClass(termCountsInClass);
+        return true;
+    }
+
+    /**
+     * Loads document frequencies of terms and number of documents they were counted from from document frequencies
+     * section of model file into given model. No term can occur in more documents than there were.
+     *
+     * @param model   loaded model
+     * @param section mapped document frequencies section
+     * @return true if the frequencies were loaded, false if they are not valid
+     */
+    private boolean loadDocumentFrequencies(Model model, ByteBuffer section) {
+        IntBuffer ints = section.asIntBuffer();
+        int numOfFrequencyDocuments = ints.get(0);
+        int[] frequencies = new int[ints.get(1)];
+        ints.get(2, frequencies);
+        for (int frequency : frequencies) {
+            if (frequency < 0 || frequency > numOfFrequencyDocuments) {
+                return false;
+            }
+        }
+
+        model.setNumOfFrequencyDocuments(numOfFrequencyDocuments);
+        model.setDocumentFrequencies(frequencies);
+        return true;
+    }
+
+    /**
+     * Loads graph of approximate k-nearest neighbours classifier from graph section of model file.
+     *
+     * @param section mapped graph section
+     * @return for each document of training set, for each layer, positions of neighbours of the document
+     */
+    private int[][][] loadGraph(ByteBuffer section) {
+        IntBuffer ints = section.asIntBuffer();
+        int numOfDocuments = ints.get(0);
+        int numOfLayers = ints.get(1);
+        int layerOffsets = 2;
+        int neighbourOffsets = layerOffsets + numOfDocuments + 1;
+        int neighbours = neighbourOffsets + numOfLayers + 1;
+
+        int[][][] graph = new int[numOfDocuments][][];
+        for (int node = 0; node < numOfDocuments; node++) {
+            int firstLayer = ints.get(layerOffsets + node);
+            graph[node] = new int[ints.get(layerOffsets + node + 1) - firstLayer][];
+            for (int layer = 0; layer < graph[node].length; layer++) {
+                int start = ints.get(neighbourOffsets + firstLayer + layer);
+                int end = ints.get(neighbourOffsets + firstLayer + layer + 1);
+                graph[node][layer] = new int[end - start];
+                ints.get(neighbours + start, graph[node][layer]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Copies content of given mapped section into an array.
+     *
+     * @param section mapped section
+     * @return content of the section
+     */
+    private static byte[] toArray(ByteBuffer section) {
+        byte[] bytes = new byte[section.limit()];
+        section.get(0, bytes);
+        return bytes;
+    }
+
+    /**
+     * Document read from file and tokenized, before its classes and terms are registered.
+     */
+    private static class ParsedDocument {
+
+        /**
+         * Names of classification classes of the document.
+         */
+        private final String[] classNames;
+
+        /**
+         * Content of the document.
+         */
+        private final String content;
+
+        /**
+         * IDs of the terms in order of their occurrence in the content - IDs in vocabulary of {@link #workerTerms},
+         * or in the shared vocabulary if it is null.
+         */
+        private final int[] termIds;
+
+        /**
+         * Terms of the worker thread which tokenized the document, null if it was tokenized by the shared vocabulary.
+         */
+        private final WorkerTerms workerTerms;
+
+        /**
+         * ID of the first term added to vocabulary of {@link #workerTerms} by the document.
+         */
+        private final int firstNewTerm;
+
+        /**
+         * Terms added to vocabulary of {@link #workerTerms} by the document, in order of their IDs.
+         */
+        private final String[] newTerms;
+
+        private ParsedDocument(String[] classNames, String content, int[] termIds, WorkerTerms workerTerms,
+                               int firstNewTerm, String[] newTerms) {
+            this.classNames = classNames;
+            this.content = content;
+            this.termIds = termIds;
+            this.workerTerms = workerTerms;
+            this.firstNewTerm = firstNewTerm;
+            this.newTerms = newTerms;
+        }
+    }
+
+    /**
+     * Terms of documents tokenized by one worker thread while a data set is loaded. The vocabulary is used only
+     * by the worker thread and IDs in the shared vocabulary only by the thread creating documents, which learns
+     * the terms of the worker from {@link ParsedDocument#newTerms}.
+     */
+    private static class WorkerTerms {
+
+        /**
+         * ID of a term of the worker not interned into the shared vocabulary yet.
+         */
+        private static final int NOT_INTERNED = Vocabulary.UNKNOWN_TERM - 1;
+
+        /**
+         * Vocabulary of all the documents tokenized by the worker, normalizing the terms the way the shared
+         * vocabulary does.
+         */
+        private final Vocabulary terms = new Vocabulary();
+
+        /**
+         * IDs of the terms in the shared vocabulary, indexed by their IDs in {@link #terms}, with spare capacity.
+         * {@link Vocabulary#UNKNOWN_TERM} for terms missing from a pruned vocabulary.
+         */
+        private int[] ids = new int[0];
+
+        private WorkerTerms(TermNormalizer normalizer) {
+            terms.setNormalizer(normalizer);
+        }
     }
 }
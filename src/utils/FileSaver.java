@@ -1,9 +1,17 @@
 package utils;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * File saver is used to save information into files.
@@ -13,50 +21,398 @@ import java.util.Map;
 public class FileSaver extends ModelOperator {
 
     /**
-     * Saves given model into {@code .model} file with name matching the name of given model.
+     * Extension added to name of model file while the model is being written.
+     */
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    /**
+     * Saves given model into {@code .model} file with name matching the name of given model. The model is written
+     * to a temporary file in the same folder first, which then replaces the model file, so a model saved over
+     * the file it was loaded from never changes the sections still mapped from the old file, and a failed save
+     * leaves the old file as it was.
      *
      * @param model saved model
+     * @return true if the model was saved
      */
-    public void saveModel(Model model) {
+    public boolean saveModel(Model model) {
+        Path modelFile = Paths.get(model.getName() + MODEL_FILE_EXTENSION);
+        Path temporaryFile = Paths.get(model.getName() + MODEL_FILE_EXTENSION + TEMPORARY_FILE_EXTENSION);
+        if (!writeModel(model, temporaryFile.toString())) {
+            System.out.println("Error while saving model!");
+            deleteQuietly(temporaryFile);
+            return false;
+        }
+
         try {
-            File outputFile = new File(model.getName() + MODEL_FILE_EXTENSION);
-            outputFile.createNewFile();
-
-            PrintWriter printWriter = new PrintWriter(model.getName() + MODEL_FILE_EXTENSION);
-            //saving classification classes file
-            printWriter.println(MODEL_CLASSIFICATION_CLASSES_FILE_TAG);
-            printWriter.println(model.getClassificationClassesFile());
-
-            printWriter.println(MODEL_FEATURE_ALGORITHM_TAG);
-            printWriter.println(model.getFeatureAlgorithm());
-
-            printWriter.println(MODEL_CLASSIFIER_TAG);
-            printWriter.println(model.getClassifier());
-            if (model.getTotalUniqueWords() != 0 && model.getTotalWordsInClass() != null) {
-                printWriter.println(model.getTotalUniqueWords());
-                for (Map.Entry<String, Double> classWords : model.getTotalWordsInClass().entrySet()) {
-                    printWriter.print(classWords.getKey() + ";" + classWords.getValue() + " ");
-                }
-                printWriter.println();
+            try {
+                Files.move(temporaryFile, modelFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, modelFile, StandardCopyOption.REPLACE_EXISTING);
             }
+        } catch (IOException ioException) {
+            System.out.println("Error while saving model!");
+            deleteQuietly(temporaryFile);
+            return false;
+        }
+        return true;
+    }
 
-            printWriter.println(MODEL_TRAINING_SET_TAG);
-            for (Document document : model.getTrainingSet()) {
-                printWriter.println(MODEL_DOCUMENT_TAG);
-                for (ClassificationClass classificationClass : document.getClassificationClasses()) {
-                    printWriter.print(classificationClass.getName() + " ");
+    /**
+     * Deletes given file if it exists, ignoring errors.
+     *
+     * @param file deleted file
+     */
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // nothing more can be done, the file is only left behind
+        }
+    }
+
+    /**
+     * Writes given model into file with given name.
+     *
+     * @param model    saved model
+     * @param fileName name of the file
+     * @return true if the model was written
+     */
+    private boolean writeModel(Model model, String fileName) {
+        List<long[]> sections = new ArrayList<>();
+        boolean hasTrainingSet = model.getTrainingSet() != null && !model.getTrainingSet().isEmpty();
+        boolean hasStatistics = model.getTermCountsInClass() != null && model.getDocumentsInClass() != null;
+        int numOfSections = 3 + (hasTrainingSet ? 1 : 0) + (hasStatistics ? 1 : 0)
+                + (model.getDocumentFrequencies() != null ? 1 : 0) + (model.getGraph() != null ? 1 : 0);
+        long sectionsStart = align(MODEL_HEADER_SIZE + (long) numOfSections * MODEL_SECTION_ENTRY_SIZE);
+
+        try (CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+             DataOutputStream output = new DataOutputStream(counter)) {
+            output.writeInt(MODEL_MAGIC);
+            output.writeInt(MODEL_FORMAT_VERSION);
+            output.writeInt(numOfSections);
+            // table of sections is filled in when the sections are written
+            pad(output, counter, sectionsStart);
+
+            long start = counter.count;
+            writeMetadata(output, model);
+            sections.add(new long[]{MODEL_METADATA_SECTION, start, counter.count - start});
+            pad(output, counter, align(counter.count));
+
+            start = counter.count;
+            writeVocabulary(output, model.getVocabulary());
+            sections.add(new long[]{MODEL_VOCABULARY_SECTION, start, counter.count - start});
+            pad(output, counter, align(counter.count));
+
+            List<String> classNames = new ArrayList<>();
+            Map<String, Integer> classIds = new HashMap<>();
+            if (hasTrainingSet) {
+                for (Document document : model.getTrainingSet()) {
+                    for (ClassificationClass classificationClass : document.getClassificationClasses()) {
+                        if (classIds.putIfAbsent(classificationClass.getName(), classNames.size()) == null) {
+                            classNames.add(classificationClass.getName());
+                        }
+                    }
                 }
-                printWriter.println();
-                for (Map.Entry<String, Double> feature : document.getFeatures().entrySet()) {
-                    printWriter.print(feature.getKey() + ";" + feature.getValue() + " ");
+            }
+            if (hasStatistics) {
+                for (String className : new TreeSet<>(model.getTermCountsInClass().keySet())) {
+                    if (classIds.putIfAbsent(className, classNames.size()) == null) {
+                        classNames.add(className);
+                    }
+                }
+            }
+            start = counter.count;
+            output.writeInt(classNames.size());
+            for (String className : classNames) {
+                output.writeUTF(className);
+            }
+            sections.add(new long[]{MODEL_CLASSES_SECTION, start, counter.count - start});
+            pad(output, counter, align(counter.count));
+
+            if (hasTrainingSet) {
+                start = counter.count;
+                writeTrainingSet(output, counter, model.getTrainingSet(), classIds);
+                sections.add(new long[]{MODEL_TRAINING_SET_SECTION, start, counter.count - start});
+                pad(output, counter, align(counter.count));
+            }
+
+            if (hasStatistics) {
+                start = counter.count;
+                writeClassStatistics(output, counter, model, classNames);
+                sections.add(new long[]{MODEL_CLASS_STATISTICS_SECTION, start, counter.count - start});
+                pad(output, counter, align(counter.count));
+            }
+
+            if (model.getDocumentFrequencies() != null) {
+                start = counter.count;
+                output.writeInt(model.getNumOfFrequencyDocuments());
+                output.writeInt(model.getDocumentFrequencies().length);
+                for (int frequency : model.getDocumentFrequencies()) {
+                    output.writeInt(frequency);
                 }
-                printWriter.println();
+                sections.add(new long[]{MODEL_DOCUMENT_FREQUENCIES_SECTION, start, counter.count - start});
+                pad(output, counter, align(counter.count));
+            }
+
+            if (model.getGraph() != null) {
+                start = counter.count;
+                writeGraph(output, model.getGraph());
+                sections.add(new long[]{MODEL_GRAPH_SECTION, start, counter.count - start});
             }
-            printWriter.close();
         } catch (IOException ioException) {
-            System.out.println("Error while saving model!");
+            return false;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.seek(MODEL_HEADER_SIZE);
+            for (long[] section : sections) {
+                file.writeInt((int) section[0]);
+                file.writeLong(section[1]);
+                file.writeLong(section[2]);
+            }
+        } catch (IOException ioException) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes metadata section of the model.
+     *
+     * @param output output stream
+     * @param model  saved model
+     * @throws IOException thrown when error occurs
+     */
+    private void writeMetadata(DataOutputStream output, Model model) throws IOException {
+        output.writeUTF(model.getClassificationClassesFile());
+        output.writeUTF(model.getFeatureAlgorithm());
+        output.writeUTF(model.getClassifier());
+        output.writeInt(model.getTotalUniqueWords());
+        output.writeInt(model.getNeighbours());
+        output.writeInt(model.getMaxConnections());
+        output.writeInt(model.getEfConstruction());
+        output.writeInt(model.getEfSearch());
+
+        Map<String, Double> totalWordsInClass = model.getTotalWordsInClass();
+        output.writeInt(totalWordsInClass == null ? -1 : totalWordsInClass.size());
+        if (totalWordsInClass != null) {
+            for (Map.Entry<String, Double> classWords : totalWordsInClass.entrySet()) {
+                output.writeUTF(classWords.getKey());
+                output.writeDouble(classWords.getValue());
+            }
+        }
+        output.writeUTF(model.getFeatureSelection());
+        output.writeInt(model.getVocabulary().getNumOfHashedFeatures());
+        output.writeUTF(model.getNormalization());
+    }
+
+    /**
+     * Writes vocabulary section of the model.
+     *
+     * @param output     output stream
+     * @param vocabulary saved vocabulary
+     * @throws IOException thrown when error occurs
+     */
+    private void writeVocabulary(DataOutputStream output, Vocabulary vocabulary) throws IOException {
+        byte[][] terms = new byte[vocabulary.size()][];
+        output.writeInt(terms.length);
+        int offset = 0;
+        output.writeInt(offset);
+        for (int id = 0; id < terms.length; id++) {
+            terms[id] = vocabulary.getTerm(id).getBytes(StandardCharsets.UTF_8);
+            offset += terms[id].length;
+            output.writeInt(offset);
+        }
+        for (byte[] term : terms) {
+            output.write(term);
+        }
+    }
+
+    /**
+     * Writes training set section of the model - number of documents, number of their classes and number of
+     * their features, followed by offsets of classes and features of each document, classes of all documents,
+     * term IDs of all features and values of all features.
+     *
+     * @param output      output stream
+     * @param counter     stream counting written bytes
+     * @param trainingSet saved documents
+     * @param classIds    IDs of classification classes in classes section
+     * @throws IOException thrown when error occurs
+     */
+    private void writeTrainingSet(DataOutputStream output, CountingOutputStream counter, List<Document> trainingSet,
+                                  Map<String, Integer> classIds) throws IOException {
+        int numOfClasses = 0;
+        int numOfFeatures = 0;
+        for (Document document : trainingSet) {
+            numOfClasses += document.getClassificationClasses().size();
+            numOfFeatures += document.getFeatures() == null ? 0 : document.getFeatures().size();
+        }
+        output.writeInt(trainingSet.size());
+        output.writeInt(numOfClasses);
+        output.writeInt(numOfFeatures);
+        output.writeInt(0);
+
+        int offset = 0;
+        output.writeInt(offset);
+        for (Document document : trainingSet) {
+            offset += document.getClassificationClasses().size();
+            output.writeInt(offset);
+        }
+        offset = 0;
+        output.writeInt(offset);
+        for (Document document : trainingSet) {
+            offset += document.getFeatures() == null ? 0 : document.getFeatures().size();
+            output.writeInt(offset);
+        }
+        for (Document document : trainingSet) {
+            for (ClassificationClass classificationClass : document.getClassificationClasses()) {
+                output.writeInt(classIds.get(classificationClass.getName()));
+            }
+        }
+
+        pad(output, counter, align(counter.count));
+        for (Document document : trainingSet) {
+            if (document.getFeatures() != null) {
+                for (int term : document.getFeatures().getIndices()) {
+                    output.writeInt(term);
+                }
+            }
+        }
+        pad(output, counter, align(counter.count));
+        for (Document document : trainingSet) {
+            if (document.getFeatures() != null) {
+                for (double value : document.getFeatures().getValues()) {
+                    output.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes class statistics section of the model - number of training documents, number of classes and number
+     * of counted terms, followed by number of documents in each class, offsets of terms of each class, term IDs
+     * of all counted terms and their sums of values.
+     *
+     * @param output     output stream
+     * @param counter    stream counting written bytes
+     * @param model      saved model
+     * @param classNames names of classification classes ordered by their IDs in classes section
+     * @throws IOException thrown when error occurs
+     */
+    private void writeClassStatistics(DataOutputStream output, CountingOutputStream counter, Model model,
+                                      List<String> classNames) throws IOException {
+        SparseVector[] termCounts = new SparseVector[classNames.size()];
+        int numOfTerms = 0;
+        for (int i = 0; i < termCounts.length; i++) {
+            termCounts[i] = model.getTermCountsInClass().getOrDefault(classNames.get(i), SparseVector.EMPTY);
+            numOfTerms += termCounts[i].size();
+        }
+        output.writeInt(model.getNumOfTrainingDocuments());
+        output.writeInt(termCounts.length);
+        output.writeInt(numOfTerms);
+        output.writeInt(0);
+
+        for (String className : classNames) {
+            output.writeInt(model.getDocumentsInClass().getOrDefault(className, 0));
+        }
+        int offset = 0;
+        output.writeInt(offset);
+        for (SparseVector classTermCounts : termCounts) {
+            offset += classTermCounts.size();
+            output.writeInt(offset);
+        }
+
+        pad(output, counter, align(counter.count));
+        for (SparseVector classTermCounts : termCounts) {
+            for (int term : classTermCounts.getIndices()) {
+                output.writeInt(term);
+            }
+        }
+        pad(output, counter, align(counter.count));
+        for (SparseVector classTermCounts : termCounts) {
+            for (double value : classTermCounts.getValues()) {
+                output.writeDouble(value);
+            }
         }
+    }
 
+    /**
+     * Writes graph section of the model - number of documents and number of all their layers, followed by offsets
+     * of layers of each document, offsets of neighbours in each layer and the neighbours.
+     *
+     * @param output output stream
+     * @param graph  for each document, for each layer, positions of neighbours of the document
+     * @throws IOException thrown when error occurs
+     */
+    private void writeGraph(DataOutputStream output, int[][][] graph) throws IOException {
+        int numOfLayers = 0;
+        for (int[][] layers : graph) {
+            numOfLayers += layers.length;
+        }
+        output.writeInt(graph.length);
+        output.writeInt(numOfLayers);
 
+        int offset = 0;
+        output.writeInt(offset);
+        for (int[][] layers : graph) {
+            offset += layers.length;
+            output.writeInt(offset);
+        }
+        offset = 0;
+        output.writeInt(offset);
+        for (int[][] layers : graph) {
+            for (int[] neighbours : layers) {
+                offset += neighbours.length;
+                output.writeInt(offset);
+            }
+        }
+        for (int[][] layers : graph) {
+            for (int[] neighbours : layers) {
+                for (int neighbour : neighbours) {
+                    output.writeInt(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes zero bytes until given position is reached.
+     *
+     * @param output   output stream
+     * @param counter  stream counting written bytes
+     * @param position position to reach
+     * @throws IOException thrown when error occurs
+     */
+    private void pad(DataOutputStream output, CountingOutputStream counter, long position) throws IOException {
+        while (counter.count < position) {
+            output.writeByte(0);
+        }
+    }
+
+    /**
+     * Output stream counting bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        /**
+         * Number of written bytes.
+         */
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
     }
 }
@@ -0,0 +1,145 @@
+package utils;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only training set backed by memory-mapped training set section of model file. A document is decoded
+ * from the mapped section on every access and is not kept, so the training set itself takes no heap - classifiers
+ * building their structures over it keep only what they need.
+ * <p>
+ * The model file holds only the features and classes of documents, so decoded documents have no terms
+ * and {@link Document#isEmpty()} is true for them. Their features and classes are the ones they were trained with.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class MappedTrainingSet extends AbstractList<Document> implements RandomAccess {
+
+    /**
+     * Number of integers in the header of training set section.
+     */
+    private static final int HEADER_INTS = 4;
+
+    /**
+     * Offsets of the classes of each document into {@link #labels}, one more than there are documents.
+     */
+    private final IntBuffer classOffsets;
+
+    /**
+     * Offsets of the features of each document into {@link #indices} and {@link #values}, one more than there are documents.
+     */
+    private final IntBuffer featureOffsets;
+
+    /**
+     * IDs of the classes of all documents.
+     */
+    private final IntBuffer labels;
+
+    /**
+     * Terms of the features of all documents.
+     */
+    private final IntBuffer indices;
+
+    /**
+     * Values of the features of all documents.
+     */
+    private final DoubleBuffer values;
+
+    /**
+     * Classification classes indexed by their IDs in model file.
+     */
+    private final List<ClassificationClass> classificationClasses;
+
+    /**
+     * Number of documents in the training set.
+     */
+    private final int numOfDocuments;
+
+    /**
+     * Creates training set backed by given mapped section.
+     *
+     * @param section               mapped training set section
+     * @param classificationClasses classification classes indexed by their IDs in model file
+     */
+    MappedTrainingSet(ByteBuffer section, List<ClassificationClass> classificationClasses) {
+        this.classificationClasses = classificationClasses;
+        IntBuffer header = section.asIntBuffer();
+        this.numOfDocuments = header.get(0);
+        int numOfClasses = header.get(1);
+        int numOfFeatures = header.get(2);
+
+        int position = HEADER_INTS * Integer.BYTES;
+        classOffsets = slice(section, position, numOfDocuments + 1).asIntBuffer();
+        position += (numOfDocuments + 1) * Integer.BYTES;
+        featureOffsets = slice(section, position, numOfDocuments + 1).asIntBuffer();
+        position += (numOfDocuments + 1) * Integer.BYTES;
+        labels = slice(section, position, numOfClasses).asIntBuffer();
+        position = (int) ModelOperator.align(position + (long) numOfClasses * Integer.BYTES);
+        indices = slice(section, position, numOfFeatures).asIntBuffer();
+        position = (int) ModelOperator.align(position + (long) numOfFeatures * Integer.BYTES);
+        values = section.slice(position, numOfFeatures * Double.BYTES).asDoubleBuffer();
+    }
+
+    /**
+     * Returns part of given section holding given number of integers.
+     *
+     * @param section  mapped section
+     * @param position position of the first integer
+     * @param count    number of integers
+     * @return part of the section
+     */
+    private static ByteBuffer slice(ByteBuffer section, int position, int count) {
+        return section.slice(position, count * Integer.BYTES);
+    }
+
+    /**
+     * Decodes document at given position from mapped section. Each call returns a new document.
+     *
+     * @param index position of the document
+     * @return document at given position, without terms
+     */
+    @Override
+    public Document get(int index) {
+        if (index < 0 || index >= numOfDocuments) {
+            throw new IndexOutOfBoundsException("Document index out of range! (index: " + index + ")");
+        }
+        Document document = new Document();
+
+        int classesStart = classOffsets.get(index);
+        int[] classIds = new int[classOffsets.get(index + 1) - classesStart];
+        labels.get(classesStart, classIds);
+        List<ClassificationClass> documentClasses = new ArrayList<>(classIds.length);
+        for (int classId : classIds) {
+            documentClasses.add(classificationClasses.get(classId));
+        }
+        document.setClassificationClasses(documentClasses);
+
+        int featuresStart = featureOffsets.get(index);
+        int numOfFeatures = featureOffsets.get(index + 1) - featuresStart;
+        if (numOfFeatures == 0) {
+            document.setFeatures(SparseVector.EMPTY);
+            return document;
+        }
+        int[] terms = new int[numOfFeatures];
+        double[] featureValues = new double[numOfFeatures];
+        indices.get(featuresStart, terms);
+        values.get(featuresStart, featureValues);
+        document.setFeatures(new SparseVector(terms, featureValues));
+        return document;
+    }
+
+    /**
+     * Returns number of documents in this training set.
+     *
+     * @return number of documents
+     */
+    @Override
+    public int size() {
+        return numOfDocuments;
+    }
+}
@@ -14,9 +14,14 @@ public class Model {
      */
     private String name;
     /**
-     * List of documents used to train classifier.
+     * List of documents used to train classifier. Empty for classifiers which need only statistics
+     * of the training set.
      */
     private List<Document> trainingSet;
+    /**
+     * Vocabulary of terms whose IDs are used in features of training set.
+     */
+    private Vocabulary vocabulary;
     /**
      * Name of feature algorithm used to compute features.
      */
@@ -33,11 +38,61 @@ public class Model {
      * Sum of values of all the words in each class.
      */
     private Map<String, Double> totalWordsInClass;
+    /**
+     * Sum of values of each word in each class, saved instead of training set for Naive Bayes classifier.
+     */
+    private Map<String, SparseVector> termCountsInClass;
+    /**
+     * Number of training documents in each class.
+     */
+    private Map<String, Integer> documentsInClass;
+    /**
+     * Number of training documents the statistics of Naive Bayes classifier were counted from.
+     */
+    private int numOfTrainingDocuments;
+    /**
+     * Number of documents the document frequencies were counted from, saved with them.
+     */
+    private int numOfFrequencyDocuments;
+    /**
+     * Number of documents in training set containing each term, indexed by term ID. Saved for feature algorithms
+     * which need it.
+     */
+    private int[] documentFrequencies;
+    /**
+     * Number of nearest neighbours found by k-nearest neighbours classifier.
+     */
+    private int neighbours;
+    /**
+     * Maximal number of neighbours of a document in each layer of the graph of approximate k-nearest neighbours
+     * classifier.
+     */
+    private int maxConnections;
+    /**
+     * Number of candidates examined when building the graph of approximate k-nearest neighbours classifier.
+     */
+    private int efConstruction;
+    /**
+     * Number of candidates examined when searching the graph of approximate k-nearest neighbours classifier.
+     */
+    private int efSearch;
+    /**
+     * Graph of approximate k-nearest neighbours classifier - for each document of training set, for each layer
+     * of the graph, positions of neighbours of the document.
+     */
+    private int[][][] graph;
     /**
      * Name of file containing the list of available classification classes.
      */
     private String classificationClassesFile;
-
+    /**
+     * Options of feature selection which pruned the vocabulary, empty if the vocabulary was not pruned.
+     */
+    private String featureSelection = "";
+    /**
+     * Name of {@link TermNormalizer} of terms of the vocabulary, empty if terms are not normalized.
+     */
+    private String normalization = "";
 
     /**
      * Creates model with given name.
@@ -84,6 +139,24 @@ public class Model {
         this.trainingSet = trainingSet;
     }
 
+    /**
+     * Returns the vocabulary of terms whose IDs are used in features of training set.
+     *
+     * @return vocabulary of the model
+     */
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Sets the vocabulary of terms whose IDs are used in features of training set.
+     *
+     * @param vocabulary vocabulary of the model
+     */
+    public void setVocabulary(Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
     /**
      * Returns the name of feature algorithm used to compute features in this model
      *
@@ -173,4 +246,222 @@ public class Model {
     public void setTotalWordsInClass(Map<String, Double> totalWordsInClass) {
         this.totalWordsInClass = totalWordsInClass;
     }
+
+    /**
+     * Returns sum of values of each word in each class.
+     *
+     * @return sum of values of each word in each class, or null if the model does not hold them
+     */
+    public Map<String, SparseVector> getTermCountsInClass() {
+        return termCountsInClass;
+    }
+
+    /**
+     * Sets sum of values of each word in each class.
+     *
+     * @param termCountsInClass sum of values of each word in each class
+     */
+    public void setTermCountsInClass(Map<String, SparseVector> termCountsInClass) {
+        this.termCountsInClass = termCountsInClass;
+    }
+
+    /**
+     * Returns number of training documents in each class.
+     *
+     * @return number of training documents in each class
+     */
+    public Map<String, Integer> getDocumentsInClass() {
+        return documentsInClass;
+    }
+
+    /**
+     * Sets number of training documents in each class.
+     *
+     * @param documentsInClass number of training documents in each class
+     */
+    public void setDocumentsInClass(Map<String, Integer> documentsInClass) {
+        this.documentsInClass = documentsInClass;
+    }
+
+    /**
+     * Returns number of training documents the statistics of Naive Bayes classifier were counted from.
+     *
+     * @return number of training documents of Naive Bayes classifier
+     */
+    public int getNumOfTrainingDocuments() {
+        return numOfTrainingDocuments;
+    }
+
+    /**
+     * Sets number of training documents the statistics of Naive Bayes classifier were counted from.
+     *
+     * @param numOfTrainingDocuments number of training documents of Naive Bayes classifier
+     */
+    public void setNumOfTrainingDocuments(int numOfTrainingDocuments) {
+        this.numOfTrainingDocuments = numOfTrainingDocuments;
+    }
+
+    /**
+     * Returns number of documents the document frequencies were counted from.
+     *
+     * @return number of documents of document frequencies
+     */
+    public int getNumOfFrequencyDocuments() {
+        return numOfFrequencyDocuments;
+    }
+
+    /**
+     * Sets number of documents the document frequencies were counted from.
+     *
+     * @param numOfFrequencyDocuments number of documents of document frequencies
+     */
+    public void setNumOfFrequencyDocuments(int numOfFrequencyDocuments) {
+        this.numOfFrequencyDocuments = numOfFrequencyDocuments;
+    }
+
+    /**
+     * Returns number of documents in training set containing each term.
+     *
+     * @return number of documents containing each term, or null if the model does not hold them
+     */
+    public int[] getDocumentFrequencies() {
+        return documentFrequencies;
+    }
+
+    /**
+     * Sets number of documents in training set containing each term.
+     *
+     * @param documentFrequencies number of documents containing each term, indexed by term ID
+     */
+    public void setDocumentFrequencies(int[] documentFrequencies) {
+        this.documentFrequencies = documentFrequencies;
+    }
+
+    /**
+     * Returns number of nearest neighbours found by k-nearest neighbours classifier.
+     *
+     * @return number of nearest neighbours
+     */
+    public int getNeighbours() {
+        return neighbours;
+    }
+
+    /**
+     * Sets number of nearest neighbours found by k-nearest neighbours classifier.
+     *
+     * @param neighbours number of nearest neighbours
+     */
+    public void setNeighbours(int neighbours) {
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Returns maximal number of neighbours of a document in each layer of the graph of approximate k-nearest
+     * neighbours classifier.
+     *
+     * @return maximal number of neighbours in a layer
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets maximal number of neighbours of a document in each layer of the graph of approximate k-nearest
+     * neighbours classifier.
+     *
+     * @param maxConnections maximal number of neighbours in a layer
+     */
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Returns number of candidates examined when building the graph of approximate k-nearest neighbours classifier.
+     *
+     * @return number of candidates examined when building
+     */
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    /**
+     * Sets number of candidates examined when building the graph of approximate k-nearest neighbours classifier.
+     *
+     * @param efConstruction number of candidates examined when building
+     */
+    public void setEfConstruction(int efConstruction) {
+        this.efConstruction = efConstruction;
+    }
+
+    /**
+     * Returns number of candidates examined when searching the graph of approximate k-nearest neighbours classifier.
+     *
+     * @return number of candidates examined when searching
+     */
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * Sets number of candidates examined when searching the graph of approximate k-nearest neighbours classifier.
+     *
+     * @param efSearch number of candidates examined when searching
+     */
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Returns graph of approximate k-nearest neighbours classifier.
+     *
+     * @return for each document of training set, for each layer, positions of neighbours of the document
+     */
+    public int[][][] getGraph() {
+        return graph;
+    }
+
+    /**
+     * Sets graph of approximate k-nearest neighbours classifier.
+     *
+     * @param graph for each document of training set, for each layer, positions of neighbours of the document
+     */
+    public void setGraph(int[][][] graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns options of feature selection which pruned the vocabulary.
+     *
+     * @return options of feature selection, empty if the vocabulary was not pruned
+     */
+    public String getFeatureSelection() {
+        return featureSelection;
+    }
+
+    /**
+     * Sets options of feature selection which pruned the vocabulary.
+     *
+     * @param featureSelection options of feature selection, empty if the vocabulary was not pruned
+     */
+    public void setFeatureSelection(String featureSelection) {
+        this.featureSelection = featureSelection;
+    }
+
+    /**
+     * Returns name of normalizer of terms of the vocabulary.
+     *
+     * @return name of {@link TermNormalizer}, empty if terms are not normalized
+     */
+    public String getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * Sets name of normalizer of terms of the vocabulary.
+     *
+     * @param normalization name of {@link TermNormalizer}, empty if terms are not normalized
+     */
+    public void setNormalization(String normalization) {
+        this.normalization = normalization;
+    }
 }
@@ -1,8 +1,12 @@
 package utils;
 
 /**
- * File operator class is an abstract class with attributes containing information about tags in file containing saved model.
+ * File operator class is an abstract class with attributes describing the format of file containing saved model.
  * This class will be the base class of all classes that need to either load or save {@link Model}.
+ * <p>
+ * Model is saved in binary format, so it can be mapped into memory instead of being parsed. The file starts with
+ * a header - {@link #MODEL_MAGIC}, {@link #MODEL_FORMAT_VERSION}, number of sections and a table with ID, offset
+ * and length of each section. Sections are aligned to 8 bytes and all numbers are big-endian.
  *
  * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
  */
@@ -13,23 +17,62 @@ public abstract class ModelOperator {
      */
     public static final String MODEL_FILE_EXTENSION = ".model";
     /**
-     * Tag in model file followed by the name of file containing the list of available classification classes.
+     * Number at the start of every model file ("DCMB").
      */
-    public static final String MODEL_CLASSIFICATION_CLASSES_FILE_TAG = "<CLASSIFICATION_CLASSES_FILE>";
+    public static final int MODEL_MAGIC = 0x44434D42;
     /**
-     * Tag in model file followed by the name of used feature algorithm.
+     * Version of model file format. Files of other versions are refused.
      */
-    public static final String MODEL_FEATURE_ALGORITHM_TAG = "<MODEL_FEATURE_ALGORITHM>";
+    public static final int MODEL_FORMAT_VERSION = 1;
     /**
-     * Tag in model file followed by the name of used classifier.
+     * Size of the header of model file without the table of sections.
      */
-    public static final String MODEL_CLASSIFIER_TAG = "<MODEL_CLASSIFIER>";
+    public static final int MODEL_HEADER_SIZE = 12;
     /**
-     * Tag in model file followed by information about training documents nad their features.
+     * Size of one entry in the table of sections - ID, offset and length of the section.
      */
-    public static final String MODEL_TRAINING_SET_TAG = "<TRAINING_SET>";
+    public static final int MODEL_SECTION_ENTRY_SIZE = 20;
     /**
-     * Tag in model file followed by information about training document.
+     * Section with names of classification classes file, feature algorithm and classifier, followed
+     * by parameters of the classifier, options of feature selection which pruned the vocabulary, number
+     * of features terms are hashed to and name of normalizer of terms.
      */
-    public static final String MODEL_DOCUMENT_TAG = "<DOCUMENT>";
+    public static final int MODEL_METADATA_SECTION = 1;
+    /**
+     * Section with terms of vocabulary, ordered by their IDs - number of terms, offsets of the terms
+     * in UTF-8 encoded data and the data.
+     */
+    public static final int MODEL_VOCABULARY_SECTION = 2;
+    /**
+     * Section with names of classification classes of training documents or class statistics.
+     */
+    public static final int MODEL_CLASSES_SECTION = 3;
+    /**
+     * Section with training documents - their classes and features stored as compressed sparse rows.
+     */
+    public static final int MODEL_TRAINING_SET_SECTION = 4;
+    /**
+     * Section with graph of approximate k-nearest neighbours classifier, stored as compressed sparse rows.
+     */
+    public static final int MODEL_GRAPH_SECTION = 5;
+    /**
+     * Section with number of training documents in each classification class and sums of values of each term
+     * in each class, stored as compressed sparse rows. Saved instead of training set for classifiers which need
+     * only these statistics.
+     */
+    public static final int MODEL_CLASS_STATISTICS_SECTION = 6;
+    /**
+     * Section with number of training documents and number of training documents containing each term.
+     */
+    public static final int MODEL_DOCUMENT_FREQUENCIES_SECTION = 7;
+
+    /**
+     * Returns given position rounded up to the nearest multiple of 8.
+     *
+     * @param position position in file
+     * @return aligned position
+     */
+    protected static long align(long position) {
+        return (position + 7) & ~7L;
+    }
 }
@@ -0,0 +1,166 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sparse vector of features. Term IDs are stored sorted in a primitive array together with
+ * a parallel array of their values, so vectors take only a few bytes per non-zero feature and can be
+ * multiplied by walking both vectors at once.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class SparseVector {
+
+    /**
+     * Vector without any features.
+     */
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new double[0]);
+
+    /**
+     * IDs of terms with non-zero value, sorted in ascending order.
+     */
+    private final int[] indices;
+
+    /**
+     * Values of terms, parallel to {@link #indices}.
+     */
+    private final double[] values;
+
+    /**
+     * L2 norm of this vector.
+     */
+    private final double norm;
+
+    /**
+     * Creates sparse vector from given term IDs and their values. Arrays are not copied and must not be
+     * modified afterwards.
+     *
+     * @param indices term IDs sorted in strictly ascending order
+     * @param values  values of the terms, parallel to indices
+     */
+    public SparseVector(int[] indices, double[] values) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("Indices and values of sparse vector differ in length!");
+        }
+        double sumOfSquares = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0 && indices[i] <= indices[i - 1]) {
+                throw new IllegalArgumentException("Indices of sparse vector are not sorted!");
+            }
+            sumOfSquares += values[i] * values[i];
+        }
+        this.indices = indices;
+        this.values = values;
+        this.norm = Math.sqrt(sumOfSquares);
+    }
+
+    /**
+     * Creates sparse vector containing number of occurrences of each term in given sequence.
+     *
+     * @param terms sequence of term IDs
+     * @return vector of term counts
+     */
+    public static SparseVector countTerms(int[] terms) {
+        if (terms == null || terms.length == 0) {
+            return EMPTY;
+        }
+        int[] sorted = terms.clone();
+        Arrays.sort(sorted);
+
+        int[] indices = new int[sorted.length];
+        double[] values = new double[sorted.length];
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                indices[size++] = sorted[i];
+            }
+            values[size - 1]++;
+        }
+
+        return new SparseVector(Arrays.copyOf(indices, size), Arrays.copyOf(values, size));
+    }
+
+    /**
+     * Returns number of non-zero features in this vector.
+     *
+     * @return number of non-zero features
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * Returns sorted term IDs of this vector. Returned array must not be modified.
+     *
+     * @return term IDs of this vector
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * Returns values of this vector, parallel to {@link #getIndices()}. Returned array must not be modified.
+     *
+     * @return values of this vector
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns value of term with given ID, or 0 if the term is not in this vector.
+     *
+     * @param term ID of the term
+     * @return value of the term
+     */
+    public double get(int term) {
+        int position = Arrays.binarySearch(indices, term);
+        return position >= 0 ? values[position] : 0;
+    }
+
+    /**
+     * Returns L2 norm of this vector.
+     *
+     * @return L2 norm of this vector
+     */
+    public double getNorm() {
+        return norm;
+    }
+
+    /**
+     * Returns dot product of this vector and given vector.
+     *
+     * @param other second vector
+     * @return dot product of the vectors
+     */
+    public double dot(SparseVector other) {
+        double product = 0;
+        int i = 0;
+        int j = 0;
+        while (i < indices.length && j < other.indices.length) {
+            if (indices[i] < other.indices[j]) {
+                i++;
+            } else if (indices[i] > other.indices[j]) {
+                j++;
+            } else {
+                product += values[i++] * other.values[j++];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Returns dot product of this vector and given dense vector. Terms outside of the dense vector are
+     * treated as zero.
+     *
+     * @param dense dense vector indexed by term IDs
+     * @return dot product of the vectors
+     */
+    public double dot(double[] dense) {
+        double product = 0;
+        for (int i = 0; i < indices.length && indices[i] < dense.length; i++) {
+            product += values[i] * dense[indices[i]];
+        }
+        return product;
+    }
+}
@@ -0,0 +1,310 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Normalizer of terms applied by {@link Vocabulary} before a term is interned or looked up, so inflected forms
+ * of a word share one term. Terms can be folded - diacritics are removed from their letters - or stemmed by a light
+ * Czech stemmer removing case endings and possessive suffixes, and then folded.
+ * <p>
+ * Normalized forms are remembered in a cache of fixed size shared by the whole process, so each frequent form is
+ * normalized once. Each slot of the cache holds one form and is simply replaced on collision. Entries are immutable,
+ * so the cache can be read and written from any number of threads without locking - a thread at worst misses
+ * an entry written by another thread and normalizes the form again.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public final class TermNormalizer {
+
+    /**
+     * Name of normalizer removing diacritics.
+     */
+    public static final String FOLDING = "fold";
+
+    /**
+     * Name of normalizer stemming terms and removing diacritics.
+     */
+    public static final String STEMMING = "stem";
+
+    /**
+     * Normalizer removing diacritics.
+     */
+    private static final TermNormalizer FOLDING_NORMALIZER = new TermNormalizer(FOLDING, false);
+
+    /**
+     * Normalizer stemming terms and removing diacritics.
+     */
+    private static final TermNormalizer STEMMING_NORMALIZER = new TermNormalizer(STEMMING, true);
+
+    /**
+     * Number of slots of the cache, a power of two.
+     */
+    private static final int CACHE_SIZE = 1 << 16;
+
+    /**
+     * Letters without diacritics, indexed by letters up to the end of Latin Extended-A block.
+     */
+    private static final char[] FOLDED = new char[0x180];
+
+    static {
+        for (char c = 0; c < FOLDED.length; c++) {
+            // decomposed letter starts with the base letter followed by combining diacritical marks
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            FOLDED[c] = Character.isLetter(decomposed.charAt(0)) ? decomposed.charAt(0) : c;
+        }
+    }
+
+    /**
+     * Name of the normalizer.
+     */
+    private final String name;
+
+    /**
+     * True if terms are stemmed before they are folded.
+     */
+    private final boolean stems;
+
+    /**
+     * Cache of normalized forms, indexed by hashes of the original forms.
+     */
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /**
+     * Creates normalizer with given name.
+     *
+     * @param name  name of the normalizer
+     * @param stems true if terms are stemmed before they are folded
+     */
+    private TermNormalizer(String name, boolean stems) {
+        this.name = name;
+        this.stems = stems;
+    }
+
+    /**
+     * Returns normalizer with given name.
+     *
+     * @param name {@link #FOLDING} or {@link #STEMMING}
+     * @return normalizer with given name, or null if there is no normalizer with given name
+     */
+    public static TermNormalizer forName(String name) {
+        switch (name) {
+            case FOLDING:
+                return FOLDING_NORMALIZER;
+            case STEMMING:
+                return STEMMING_NORMALIZER;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns name of the normalizer.
+     *
+     * @return name of the normalizer
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns normalized form of the term in given buffer.
+     *
+     * @param buffer buffer containing the term, starting at index 0
+     * @param length length of the term
+     * @return normalized term, must not be modified
+     */
+    public char[] normalize(char[] buffer, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = Vocabulary.mix(hash) & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        if (entry != null && entry.isFor(buffer, length)) {
+            return entry.normalized;
+        }
+
+        char[] term = new char[length];
+        System.arraycopy(buffer, 0, term, 0, length);
+        int normalizedLength = stems ? stem(term, length) : length;
+        for (int i = 0; i < normalizedLength; i++) {
+            if (term[i] < FOLDED.length) {
+                term[i] = FOLDED[term[i]];
+            }
+        }
+        char[] normalized = normalizedLength == length ? term : Arrays.copyOf(term, normalizedLength);
+        cache[slot] = new Entry(Arrays.copyOf(buffer, length), normalized);
+        return normalized;
+    }
+
+    /**
+     * Removes case endings and possessive suffixes from given term and normalizes consonants changed
+     * by palatalisation, so different forms of a word get the same stem.
+     *
+     * @param term   term, changed in place
+     * @param length length of the term
+     * @return length of the stem
+     */
+    private static int stem(char[] term, int length) {
+        length = removeCase(term, length);
+        length = removePossessives(term, length);
+        if (length > 0) {
+            length = normalizeEnding(term, length);
+        }
+        return length;
+    }
+
+    /**
+     * Removes case ending of given term, longer endings first. Short terms keep enough letters to be recognizable.
+     *
+     * @param term   term
+     * @param length length of the term
+     * @return length of the term without the ending
+     */
+    private static int removeCase(char[] term, int length) {
+        if (length > 7 && endsWith(term, length, "atech")) {
+            return length - 5;
+        }
+        if (length > 6 && endsWith(term, length, "ětem", "etem", "atům")) {
+            return length - 4;
+        }
+        if (length > 5 && endsWith(term, length, "ech", "ich", "ích", "ého", "ěmi", "emi", "ému", "ěte", "ete", "ěti",
+                "eti", "ího", "iho", "ími", "ímu", "imu", "ách", "ata", "aty", "ých", "ama", "ami", "ové", "ovi", "ými")) {
+            return length - 3;
+        }
+        if (length > 4 && endsWith(term, length, "em", "es", "ém", "ím", "ům", "at", "ám", "os", "us", "ým", "mi", "ou")) {
+            return length - 2;
+        }
+        if (length > 3 && "aeiouyáéíýěů".indexOf(term[length - 1]) >= 0) {
+            return length - 1;
+        }
+        return length;
+    }
+
+    /**
+     * Removes possessive suffix of given term.
+     *
+     * @param term   term
+     * @param length length of the term
+     * @return length of the term without the suffix
+     */
+    private static int removePossessives(char[] term, int length) {
+        if (length > 5 && endsWith(term, length, "ov", "in", "ův")) {
+            return length - 2;
+        }
+        return length;
+    }
+
+    /**
+     * Replaces consonants at the end of given stem changed by palatalisation by their original form and removes
+     * vowel inserted before the last consonant.
+     *
+     * @param term   stem, changed in place
+     * @param length length of the stem
+     * @return length of the normalized stem
+     */
+    private static int normalizeEnding(char[] term, int length) {
+        if (endsWith(term, length, "čt")) {
+            term[length - 2] = 'c';
+            term[length - 1] = 'k';
+            return length;
+        }
+        if (endsWith(term, length, "št")) {
+            term[length - 2] = 's';
+            term[length - 1] = 'k';
+            return length;
+        }
+        switch (term[length - 1]) {
+            case 'c':
+            case 'č':
+                term[length - 1] = 'k';
+                return length;
+            case 'z':
+            case 'ž':
+                term[length - 1] = 'h';
+                return length;
+            default:
+                break;
+        }
+        if (length > 1 && term[length - 2] == 'e') {
+            term[length - 2] = term[length - 1];
+            return length - 1;
+        }
+        if (length > 2 && term[length - 2] == 'ů') {
+            term[length - 2] = 'o';
+        }
+        return length;
+    }
+
+    /**
+     * Returns true if given term ends with any of given suffixes.
+     *
+     * @param term     term
+     * @param length   length of the term
+     * @param suffixes tested suffixes
+     * @return true if the term ends with any of the suffixes
+     */
+    private static boolean endsWith(char[] term, int length, String... suffixes) {
+        for (String suffix : suffixes) {
+            if (suffix.length() > length) {
+                continue;
+            }
+            int start = length - suffix.length();
+            boolean matches = true;
+            for (int i = 0; i < suffix.length() && matches; i++) {
+                matches = term[start + i] == suffix.charAt(i);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Original and normalized form of a term in the cache.
+     */
+    private static final class Entry {
+
+        /**
+         * Original form of the term.
+         */
+        private final char[] original;
+
+        /**
+         * Normalized form of the term.
+         */
+        private final char[] normalized;
+
+        /**
+         * Creates entry of given forms.
+         *
+         * @param original   original form of the term
+         * @param normalized normalized form of the term
+         */
+        private Entry(char[] original, char[] normalized) {
+            this.original = original;
+            this.normalized = normalized;
+        }
+
+        /**
+         * Returns true if this entry is for the term in given buffer.
+         *
+         * @param buffer buffer containing the term
+         * @param length length of the term
+         * @return true if the original form equals the term
+         */
+        private boolean isFor(char[] buffer, int length) {
+            if (original.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (original[i] != buffer[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
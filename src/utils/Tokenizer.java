@@ -0,0 +1,190 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits text into lowercase terms in a single pass over its characters. Letters, including the letters
+ * of Czech alphabet with diacritics, form terms. Whitespace separates terms and any other characters are
+ * skipped, so a term interrupted by punctuation or a digit stays one term. Terms are passed to a consumer
+ * straight from an internal buffer, no string is created for them.
+ * <p>
+ * Tokenizer reuses its buffer and must not be shared between threads.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class Tokenizer {
+
+    /**
+     * Consumer of terms found by the tokenizer.
+     */
+    @FunctionalInterface
+    public interface TermConsumer {
+
+        /**
+         * Accepts term found in text. The buffer is reused for the next term, so it must not be kept.
+         *
+         * @param buffer buffer containing the term, starting at index 0
+         * @param length length of the term
+         */
+        void accept(char[] buffer, int length);
+    }
+
+    /**
+     * Buffer of the term being read.
+     */
+    private char[] buffer = new char[32];
+
+    /**
+     * Splits given text into terms and passes each of them to given consumer.
+     *
+     * @param text     tokenized text
+     * @param consumer consumer of the terms
+     */
+    public void tokenize(CharSequence text, TermConsumer consumer) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isLetter(c)) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                buffer[length++] = toLowerCase(c);
+            } else if (isSeparator(c) && length > 0) {
+                consumer.accept(buffer, length);
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            consumer.accept(buffer, length);
+        }
+    }
+
+    /**
+     * Splits given text into terms and interns each of them into given vocabulary. Terms missing from a pruned
+     * vocabulary are removed instead.
+     *
+     * @param text       tokenized text
+     * @param vocabulary vocabulary the terms are interned in
+     * @return IDs of the terms in order of their occurrence in text
+     */
+    public int[] tokenize(CharSequence text, Vocabulary vocabulary) {
+        TermIds termIds = new TermIds(vocabulary, Math.max(16, text.length() / 6), null);
+        tokenize(text, termIds);
+        return termIds.toArray();
+    }
+
+    /**
+     * Splits given text into terms and looks each of them up in given vocabulary without changing it, so one
+     * vocabulary can be shared by several threads. Terms missing from the vocabulary get IDs following the IDs
+     * of the vocabulary, the same term getting the same ID within the text, so they still count as words
+     * of the text while matching no term of the vocabulary. Terms missing from a pruned vocabulary are removed.
+     *
+     * @param text       tokenized text
+     * @param vocabulary vocabulary the terms are looked up in
+     * @return IDs of the terms in order of their occurrence in text
+     */
+    public int[] lookup(CharSequence text, Vocabulary vocabulary) {
+        TermIds termIds = new TermIds(vocabulary, Math.max(16, text.length() / 6), new HashMap<>());
+        tokenize(text, termIds);
+        return termIds.toArray();
+    }
+
+    /**
+     * Returns true if given character is a letter forming terms - a letter of english alphabet or a letter from
+     * Latin-1 Supplement or Latin Extended-A blocks, which contain all the letters of Czech alphabet.
+     *
+     * @param c tested character
+     * @return true if the character is a letter
+     */
+    public static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= 'À' && c <= 'ſ' && Character.isLetter(c));
+    }
+
+    /**
+     * Returns true if given character separates terms.
+     *
+     * @param c tested character
+     * @return true if the character is a whitespace
+     */
+    public static boolean isSeparator(char c) {
+        return c == ' ' || Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    /**
+     * Returns lowercase variant of given letter.
+     *
+     * @param c letter
+     * @return lowercase letter
+     */
+    public static char toLowerCase(char c) {
+        if (c <= 'z') {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * Consumer interning terms into vocabulary, or only looking them up, and collecting their IDs.
+     */
+    private static class TermIds implements TermConsumer {
+
+        /**
+         * Vocabulary the terms are interned in.
+         */
+        private final Vocabulary vocabulary;
+
+        /**
+         * IDs given to terms missing from vocabulary, or null if the terms are interned.
+         */
+        private final Map<String, Integer> unknownTerms;
+
+        /**
+         * IDs of the terms, with spare capacity.
+         */
+        private int[] ids;
+
+        /**
+         * Number of collected IDs.
+         */
+        private int size;
+
+        private TermIds(Vocabulary vocabulary, int initialCapacity, Map<String, Integer> unknownTerms) {
+            this.vocabulary = vocabulary;
+            this.ids = new int[initialCapacity];
+            this.unknownTerms = unknownTerms;
+        }
+
+        @Override
+        public void accept(char[] buffer, int length) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            if (unknownTerms == null && !vocabulary.isPruned()) {
+                ids[size++] = vocabulary.intern(buffer, length);
+                return;
+            }
+            int id = vocabulary.getId(buffer, length);
+            if (id == Vocabulary.UNKNOWN_TERM && vocabulary.isPruned()) {
+                // terms not selected as features were removed from training documents as well
+                return;
+            }
+            if (id == Vocabulary.UNKNOWN_TERM) {
+                id = unknownTerms.computeIfAbsent(new String(buffer, 0, length),
+                        term -> vocabulary.size() + unknownTerms.size());
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * Returns collected IDs.
+         *
+         * @return IDs of the terms in order of their occurrence
+         */
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
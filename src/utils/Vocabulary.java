@@ -0,0 +1,434 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vocabulary shared by all documents of a model. Every term is interned to a dense integer ID once when
+ * the document is tokenized, so feature algorithms and classifiers work with IDs instead of strings.
+ * Terms can be looked up directly in the buffer of {@link Tokenizer}, a string is created only when
+ * a new term is added.
+ * <p>
+ * Vocabulary is not thread-safe, terms must be interned from one thread at a time.
+ * <p>
+ * Vocabulary pruned by feature selection contains only the selected terms. Other terms were removed from
+ * the training documents, so {@link Tokenizer} removes them from tokenized texts too instead of interning them.
+ * <p>
+ * Hashing vocabulary stores no terms at all - ID of a term is computed from its hash, so the number of IDs
+ * is bounded and new terms never grow the vocabulary. The lowest bit of such ID is a sign of the term and the other
+ * bits are index of its feature, see {@link #getFeature(int)} and {@link #getSign(int)}. Hashing vocabulary
+ * is thread-safe.
+ * <p>
+ * Vocabulary with a {@link TermNormalizer} normalizes every term before it is interned or looked up, so all forms
+ * of a word get the ID of the normalized form.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+public class Vocabulary {
+
+    /**
+     * ID returned for terms which are not in the vocabulary.
+     */
+    public static final int UNKNOWN_TERM = -1;
+
+    /**
+     * Initial number of slots of the hash table, must be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Open addressing hash table of term IDs increased by one, 0 marks an empty slot.
+     */
+    private int[] table = new int[INITIAL_CAPACITY];
+
+    /**
+     * Hashes of the terms, indexed by their IDs.
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY / 2];
+
+    /**
+     * Terms in vocabulary, indexed by their IDs.
+     */
+    private final List<String> terms = new ArrayList<>();
+
+    /**
+     * True if the vocabulary contains only terms selected by feature selection.
+     */
+    private boolean pruned;
+
+    /**
+     * Number of features terms are hashed to, 0 if terms are interned.
+     */
+    private final int numOfHashedFeatures;
+
+    /**
+     * Normalizer of terms, null if terms are not normalized.
+     */
+    private TermNormalizer normalizer;
+
+    /**
+     * Creates empty vocabulary interning terms.
+     */
+    public Vocabulary() {
+        this(0);
+    }
+
+    /**
+     * Creates vocabulary with given number of hashed features.
+     *
+     * @param numOfHashedFeatures number of features terms are hashed to, 0 if terms are interned
+     */
+    private Vocabulary(int numOfHashedFeatures) {
+        this.numOfHashedFeatures = numOfHashedFeatures;
+    }
+
+    /**
+     * Creates vocabulary computing IDs of terms from their hashes instead of storing them.
+     *
+     * @param numOfFeatures number of features terms are hashed to, a power of two
+     * @return hashing vocabulary
+     * @throws IllegalArgumentException if the number of features is not a power of two, as the IDs are taken
+     *                                  from the low bits of the hashes
+     */
+    public static Vocabulary hashing(int numOfFeatures) {
+        if (numOfFeatures <= 0 || Integer.bitCount(numOfFeatures) != 1) {
+            throw new IllegalArgumentException("Number of hashed features must be a power of two! (passed: "
+                    + numOfFeatures + ")");
+        }
+        return new Vocabulary(numOfFeatures);
+    }
+
+    /**
+     * Returns ID of given term. If the term is not in vocabulary yet, it is added with the next free ID.
+     *
+     * @param term interned term
+     * @return ID of given term
+     */
+    public int intern(String term) {
+        return intern(term.toCharArray(), term.length());
+    }
+
+    /**
+     * Returns ID of the term in given buffer. If the term is not in vocabulary yet, it is added with the next free ID.
+     *
+     * @param buffer buffer containing the term, starting at index 0
+     * @param length length of the term
+     * @return ID of the term
+     */
+    public int intern(char[] buffer, int length) {
+        if (normalizer != null) {
+            buffer = normalizer.normalize(buffer, length);
+            length = buffer.length;
+        }
+        if (numOfHashedFeatures > 0) {
+            return hashedId(buffer, length);
+        }
+        int hash = hash(buffer, length);
+        int slot = findSlot(buffer, length, hash);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+
+        int id = terms.size();
+        terms.add(new String(buffer, 0, length));
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (terms.size() * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns ID of given term or {@link #UNKNOWN_TERM} if the term is not in vocabulary.
+     *
+     * @param term wanted term
+     * @return ID of given term
+     */
+    public int getId(String term) {
+        return getId(term.toCharArray(), term.length());
+    }
+
+    /**
+     * Returns ID of the term in given buffer or {@link #UNKNOWN_TERM} if the term is not in vocabulary.
+     *
+     * @param buffer buffer containing the term, starting at index 0
+     * @param length length of the term
+     * @return ID of the term
+     */
+    public int getId(char[] buffer, int length) {
+        if (normalizer != null) {
+            buffer = normalizer.normalize(buffer, length);
+            length = buffer.length;
+        }
+        if (numOfHashedFeatures > 0) {
+            return hashedId(buffer, length);
+        }
+        int slot = findSlot(buffer, length, hash(buffer, length));
+        return table[slot] - 1;
+    }
+
+    /**
+     * Returns ID of given term, which is normalized already. If the term is not in vocabulary yet, the term itself
+     * is added with the next free ID, without copying it. Vocabulary must not be hashing.
+     *
+     * @param term interned normalized term
+     * @return ID of given term
+     */
+    int internNormalized(String term) {
+        int hash = hash(term);
+        int slot = findSlot(term, hash);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+
+        int id = terms.size();
+        terms.add(term);
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (terms.size() * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns ID of given term, which is normalized already, or {@link #UNKNOWN_TERM} if the term is not
+     * in vocabulary. Vocabulary must not be hashing.
+     *
+     * @param term wanted normalized term
+     * @return ID of given term
+     */
+    int getIdNormalized(String term) {
+        return table[findSlot(term, hash(term))] - 1;
+    }
+
+    /**
+     * Returns term with given ID.
+     *
+     * @param id ID of the term
+     * @return term with given ID
+     */
+    public String getTerm(int id) {
+        return terms.get(id);
+    }
+
+    /**
+     * Returns number of terms stored in vocabulary, 0 for hashing vocabulary.
+     *
+     * @return number of terms in vocabulary
+     */
+    public int size() {
+        return terms.size();
+    }
+
+    /**
+     * Returns number of features terms are hashed to.
+     *
+     * @return number of hashed features, 0 if terms are interned
+     */
+    public int getNumOfHashedFeatures() {
+        return numOfHashedFeatures;
+    }
+
+    /**
+     * Returns index of the feature of term with given ID given by hashing vocabulary.
+     *
+     * @param id ID of the term
+     * @return index of the feature
+     */
+    public static int getFeature(int id) {
+        return id >>> 1;
+    }
+
+    /**
+     * Returns sign of term with given ID given by hashing vocabulary. Terms hashed to the same feature cancel out
+     * instead of adding up when their signs differ, so collisions do not bias the features.
+     *
+     * @param id ID of the term
+     * @return 1 or -1
+     */
+    public static int getSign(int id) {
+        return (id & 1) == 0 ? 1 : -1;
+    }
+
+    /**
+     * Returns normalizer of terms.
+     *
+     * @return normalizer of terms, null if terms are not normalized
+     */
+    public TermNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Sets normalizer of terms interned or looked up from now on. Terms already in vocabulary are not changed,
+     * so it is set after terms of a saved vocabulary, which are normalized already, are interned.
+     *
+     * @param normalizer normalizer of terms, null if terms are not normalized
+     */
+    public void setNormalizer(TermNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Returns true if the vocabulary contains only terms selected by feature selection, so terms missing from it
+     * are removed from tokenized texts.
+     *
+     * @return true if the vocabulary is pruned
+     */
+    public boolean isPruned() {
+        return pruned;
+    }
+
+    /**
+     * Sets whether the vocabulary contains only terms selected by feature selection.
+     *
+     * @param pruned true if the vocabulary is pruned
+     */
+    public void setPruned(boolean pruned) {
+        this.pruned = pruned;
+    }
+
+    /**
+     * Returns slot of the hash table containing the term in given buffer, or the empty slot where it belongs.
+     *
+     * @param buffer buffer containing the term
+     * @param length length of the term
+     * @param hash   hash of the term
+     * @return slot of the term
+     */
+    private int findSlot(char[] buffer, int length, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && isEqual(terms.get(id), buffer, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns slot of the hash table containing given term, or the empty slot where it belongs.
+     *
+     * @param term term
+     * @param hash hash of the term
+     * @return slot of the term
+     */
+    private int findSlot(String term, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && terms.get(id).equals(term)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the size of the hash table.
+     */
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < terms.size(); id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Returns hash of the term in given buffer.
+     *
+     * @param buffer buffer containing the term
+     * @param length length of the term
+     * @return hash of the term
+     */
+    private static int hash(char[] buffer, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns hash of given term, the same as hash of the term in a buffer, as {@link String#hashCode()} sums
+     * the characters the same way.
+     *
+     * @param term term
+     * @return hash of the term
+     */
+    private static int hash(String term) {
+        int hash = term.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns ID of the term in given buffer computed from its FNV-1a hash mixed by the finalizer of MurmurHash3,
+     * so all bits of the ID depend on every character.
+     *
+     * @param buffer buffer containing the term
+     * @param length length of the term
+     * @return ID of the term, lower than twice the number of hashed features
+     */
+    private int hashedId(char[] buffer, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ buffer[i]) * 0x01000193;
+        }
+        return mix(hash) & (2 * numOfHashedFeatures - 1);
+    }
+
+    /**
+     * Mixes bits of given hash by the finalizer of MurmurHash3, so every bit of the result depends on every bit
+     * of the hash and the lowest bits can be used as index of a feature.
+     *
+     * @param hash mixed hash
+     * @return mixed hash
+     */
+    public static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Returns true if given term equals the term in given buffer.
+     *
+     * @param term   term from vocabulary
+     * @param buffer buffer containing compared term
+     * @param length length of compared term
+     * @return true if the terms are equal
+     */
+    private static boolean isEqual(String term, char[] buffer, int length) {
+        if (term.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (term.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
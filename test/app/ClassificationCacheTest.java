@@ -0,0 +1,84 @@
+package app;
+
+import classifier.KNN;
+import classifier.Prediction;
+import feature.TermFrequency;
+import org.junit.jupiter.api.Test;
+import utils.Document;
+import utils.FileLoader;
+import utils.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests of {@link ClassificationCache} on the bundled data sets, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class ClassificationCacheTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * Number of documents of the training set the model is trained on before the rest is added.
+     */
+    private static final int NUM_OF_TRAINED = 300;
+
+    /**
+     * Predictions cached before documents are added to the classifier are not used after it, however
+     * the documents were added, and predictions computed before it are not cached after it.
+     */
+    @Test
+    void predictionsOfChangedModelAreNotCached() {
+        Vocabulary vocabulary = new Vocabulary();
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        List<Document> trainingSet = fileLoader.loadDataSet(TRAINING_SET);
+        List<Document> testingSet = fileLoader.loadDataSet(TESTING_SET);
+        TermFrequency termFrequency = new TermFrequency();
+        termFrequency.createFeatures(trainingSet);
+        termFrequency.createFeatures(testingSet);
+        KNN knn = new KNN(new ArrayList<>(trainingSet.subList(0, NUM_OF_TRAINED)), 1);
+        ClassificationCache cache = new ClassificationCache(knn, termFrequency, vocabulary);
+
+        for (Document document : testingSet) {
+            cache.predict(document.getContent());
+        }
+        assertEquals(0, cache.getHits());
+        for (Document document : testingSet) {
+            cache.predict(document.getContent());
+        }
+        assertEquals(testingSet.size(), cache.getHits());
+
+        long oldVersion = knn.getModelVersion();
+        knn.addDocuments(new ArrayList<>(trainingSet.subList(NUM_OF_TRAINED, trainingSet.size())));
+        assertNotEquals(oldVersion, knn.getModelVersion());
+
+        Document document = testingSet.get(0);
+        long key = cache.getKey(document.getContent());
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+        cache.put(key, knn.predictDocument(document), oldVersion);
+        assertNull(cache.get(key));
+
+        for (Document testedDocument : testingSet) {
+            Prediction prediction = cache.predict(testedDocument.getContent());
+            assertNotNull(prediction);
+            assertEquals(knn.predictDocument(testedDocument).getClassificationClass(),
+                    prediction.getClassificationClass());
+        }
+    }
+}
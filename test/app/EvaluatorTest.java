@@ -0,0 +1,75 @@
+package app;
+
+import classifier.KNN;
+import classifier.Prediction;
+import feature.TFIDF;
+import org.junit.jupiter.api.Test;
+import utils.Document;
+import utils.FileLoader;
+import utils.Vocabulary;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link Evaluator} on the bundled data sets, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class EvaluatorTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * Documents are classified in batches unless latency is measured, and both ways give the same report
+     * of the classification.
+     */
+    @Test
+    void batchEvaluationEqualsDocumentByDocumentEvaluation() {
+        FileLoader fileLoader = new FileLoader(new Vocabulary());
+        List<Document> trainingSet = fileLoader.loadDataSet(TRAINING_SET);
+        List<Document> testingSet = fileLoader.loadDataSet(TESTING_SET);
+        TFIDF tfidf = new TFIDF(trainingSet);
+        tfidf.createFeatures(trainingSet);
+        tfidf.createFeatures(testingSet);
+        AtomicInteger classifiedOneByOne = new AtomicInteger();
+        KNN knn = new KNN(trainingSet, 5) {
+            @Override
+            public Prediction predictDocument(Document document) {
+                classifiedOneByOne.incrementAndGet();
+                return super.predictDocument(document);
+            }
+        };
+
+        EvaluationReport batchReport = new Evaluator(knn, 2).evaluate(testingSet);
+        assertNotNull(batchReport);
+        assertEquals(0, classifiedOneByOne.get());
+        assertFalse(batchReport.isLatencyMeasured());
+
+        EvaluationReport latencyReport = new Evaluator(knn, 2, true).evaluate(testingSet);
+        assertNotNull(latencyReport);
+        assertEquals(testingSet.size(), classifiedOneByOne.get());
+        assertTrue(latencyReport.isLatencyMeasured());
+
+        assertEquals(latencyReport.getNumOfCorrect(), batchReport.getNumOfCorrect());
+        assertEquals(latencyReport.getClasses(), batchReport.getClasses());
+        for (int actual = 0; actual < batchReport.getClasses().size(); actual++) {
+            for (int assigned = 0; assigned < batchReport.getClasses().size(); assigned++) {
+                assertEquals(latencyReport.getConfusion(actual, assigned), batchReport.getConfusion(actual, assigned));
+            }
+        }
+    }
+}
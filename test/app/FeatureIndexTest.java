@@ -0,0 +1,127 @@
+package app;
+
+import classifier.NaiveBayesClassifier;
+import feature.CharacterNGramFrequency;
+import feature.IFeatureAlgorithm;
+import feature.TermFrequency;
+import feature.WordNGramFrequency;
+import org.junit.jupiter.api.Test;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.SparseVector;
+import utils.Vocabulary;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that features of documents and statistics of classifiers use the same index space - IDs of terms
+ * of vocabulary for terms, hashed n-grams for n-grams - and that the spaces are never mixed. Documents are loaded
+ * from the bundled training set, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class FeatureIndexTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * File with bundled classification classes.
+     */
+    private static final String CLASSIFICATION_CLASSES = "classes.txt";
+
+    /**
+     * Number of features n-grams are hashed to in tests.
+     */
+    private static final int NUM_OF_FEATURES = 1 << 10;
+
+    /**
+     * Naive Bayes scores counts of terms, so it cannot be combined with hashed terms or n-grams.
+     */
+    @Test
+    void naiveBayesIsCombinableOnlyWithFeaturesOfTerms() {
+        String bayes = DocumentClassifierApp.NAIVE_BAYES_CLASSIFIER;
+        assertFalse(DocumentClassifierApp.isCombinable(DocumentClassifierApp.WORD_NGRAM_FEATURE_ALG, bayes));
+        assertFalse(DocumentClassifierApp.isCombinable(DocumentClassifierApp.CHAR_NGRAM_FEATURE_ALG, bayes));
+        assertFalse(DocumentClassifierApp.isCombinable(DocumentClassifierApp.HASHING_FEATURE_ALG, bayes));
+        assertTrue(DocumentClassifierApp.isCombinable(DocumentClassifierApp.TF_FEATURE_ALG, bayes));
+        assertTrue(DocumentClassifierApp.isCombinable(DocumentClassifierApp.TF_IDF_FEATURE_ALG, bayes));
+        assertTrue(DocumentClassifierApp.isCombinable(DocumentClassifierApp.BIN_FEATURE_ALG, bayes));
+
+        String knn = DocumentClassifierApp.KNN_CLASSIFIER;
+        assertTrue(DocumentClassifierApp.isCombinable(DocumentClassifierApp.WORD_NGRAM_FEATURE_ALG, knn));
+        assertTrue(DocumentClassifierApp.isCombinable(DocumentClassifierApp.CHAR_NGRAM_FEATURE_ALG, knn));
+    }
+
+    /**
+     * Features of n-grams are sorted indices of hashed n-grams, within the number of features.
+     */
+    @Test
+    void nGramFeaturesAreWithinHashedFeatures() {
+        for (IFeatureAlgorithm featureAlgorithm : List.of(new WordNGramFrequency(1, 3, NUM_OF_FEATURES),
+                new CharacterNGramFrequency(2, 4, NUM_OF_FEATURES))) {
+            Vocabulary vocabulary = DocumentClassifierApp.createVocabulary(DocumentClassifierApp.WORD_NGRAM_FEATURE_ALG);
+            List<Document> documents = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+            featureAlgorithm.createFeatures(documents);
+
+            for (Document document : documents) {
+                int[] indices = document.getFeatures().getIndices();
+                assertTrue(indices.length > 0);
+                for (int i = 0; i < indices.length; i++) {
+                    assertTrue(indices[i] >= 0 && indices[i] < NUM_OF_FEATURES, "feature " + indices[i]);
+                    assertTrue(i == 0 || indices[i] > indices[i - 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Statistics of Naive Bayes are indexed by IDs of terms of vocabulary, the same as features of documents,
+     * and sum the features of each class.
+     */
+    @Test
+    void naiveBayesStatisticsAreIndexedByTermIds() {
+        Vocabulary vocabulary = DocumentClassifierApp.createVocabulary(DocumentClassifierApp.TF_FEATURE_ALG);
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        List<ClassificationClass> classificationClasses = fileLoader.loadClassificationClasses(CLASSIFICATION_CLASSES);
+        List<Document> documents = fileLoader.loadDataSet(TRAINING_SET);
+        new TermFrequency().createFeatures(documents);
+        NaiveBayesClassifier bayes = new NaiveBayesClassifier(documents, classificationClasses);
+        bayes.train();
+
+        assertEquals(vocabulary.size(), bayes.getTotalUniqueWords());
+        for (ClassificationClass classificationClass : classificationClasses) {
+            double[] expectedCounts = new double[vocabulary.size()];
+            double sumOfValues = 0;
+            for (Document document : documents) {
+                // a few bundled documents list their class twice, they are counted for every listed class
+                for (ClassificationClass documentClass : document.getClassificationClasses()) {
+                    if (!documentClass.equals(classificationClass)) {
+                        continue;
+                    }
+                    SparseVector features = document.getFeatures();
+                    for (int i = 0; i < features.size(); i++) {
+                        expectedCounts[features.getIndices()[i]] += features.getValues()[i];
+                        sumOfValues += features.getValues()[i];
+                    }
+                }
+            }
+
+            SparseVector termCounts = bayes.getTermCountsInClass().get(classificationClass.getName());
+            for (int term : termCounts.getIndices()) {
+                assertTrue(term >= 0 && term < vocabulary.size(), "term " + term);
+            }
+            for (int term = 0; term < vocabulary.size(); term++) {
+                assertEquals(expectedCounts[term], termCounts.get(term), 1e-9, "term " + vocabulary.getTerm(term));
+            }
+            assertEquals(sumOfValues, bayes.getTotalWordsInClass().get(classificationClass.getName()), 1e-9);
+        }
+    }
+}
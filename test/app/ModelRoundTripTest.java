@@ -0,0 +1,143 @@
+package app;
+
+import classifier.IClassifier;
+import classifier.KNN;
+import classifier.NaiveBayesClassifier;
+import classifier.Prediction;
+import feature.IFeatureAlgorithm;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import utils.Document;
+import utils.FileLoader;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a model saved by {@link utils.FileSaver} and loaded by {@link utils.FileLoader} classifies documents
+ * the same way as the model which was saved. Models are trained on the bundled data sets, run from the folder
+ * of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class ModelRoundTripTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * File with bundled classification classes.
+     */
+    private static final String CLASSIFICATION_CLASSES = "classes.txt";
+
+    /**
+     * Folder the model is saved to.
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * Restored model predicts the same classes with the same scores as the trained one.
+     *
+     * @param featureAlgorithm name of feature algorithm of the model
+     * @param classifier       name of classifier of the model
+     * @param normalization    normalization option of the model, empty if terms are not normalized
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "tfidf, knn, ''",
+            "tf, knn, --normalize=stem",
+            "hashing, knn, ''",
+            "tfidf, bayes, ''",
+            "binary, bayes, --normalize=fold",
+            "tfidf, hnsw, ''"
+    })
+    void restoredModelPredictsAsTrainedModel(String featureAlgorithm, String classifier, String normalization) {
+        String modelName = folder.resolve("model").toString();
+
+        DocumentClassifierApp trained = new DocumentClassifierApp();
+        String[] args = {CLASSIFICATION_CLASSES, TRAINING_SET, TESTING_SET, featureAlgorithm, classifier, modelName, "3",
+                normalization};
+        trained.start(normalization.isEmpty() ? Arrays.copyOf(args, args.length - 1) : args);
+        assertTrue(Files.exists(folder.resolve("model.model")));
+
+        DocumentClassifierApp restored = new DocumentClassifierApp();
+        assertNotNull(restored.restoreModel(modelName));
+        assertEquals(trained.getVocabulary().getNumOfHashedFeatures(), restored.getVocabulary().getNumOfHashedFeatures());
+        assertEquals(trained.getVocabulary().size(), restored.getVocabulary().size());
+
+        for (Document document : new FileLoader(new Vocabulary()).loadDataSet(TESTING_SET)) {
+            Prediction expected = predict(trained, document.getContent());
+            Prediction actual = predict(restored, document.getContent());
+            assertNotNull(expected);
+            assertNotNull(actual);
+            assertEquals(expected.getClassificationClass(), actual.getClassificationClass());
+            assertEquals(expected.getScore(), actual.getScore(), 1e-9);
+        }
+
+        if (trained.getClassifier() instanceof KNN) {
+            assertSameDocuments(((KNN) trained.getClassifier()).getDocuments(),
+                    ((KNN) restored.getClassifier()).getDocuments());
+        }
+        if (trained.getClassifier() instanceof NaiveBayesClassifier) {
+            NaiveBayesClassifier trainedBayes = (NaiveBayesClassifier) trained.getClassifier();
+            NaiveBayesClassifier restoredBayes = (NaiveBayesClassifier) restored.getClassifier();
+            assertEquals(trainedBayes.getNumOfDocuments(), restoredBayes.getNumOfDocuments());
+            assertEquals(trainedBayes.getTotalUniqueWords(), restoredBayes.getTotalUniqueWords());
+            assertEquals(trainedBayes.getDocumentsInClass(), restoredBayes.getDocumentsInClass());
+        }
+    }
+
+    /**
+     * Asserts that documents of the restored model have the classes and features of the saved documents.
+     *
+     * @param expected saved documents
+     * @param actual   restored documents
+     */
+    private static void assertSameDocuments(List<Document> expected, List<Document> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Document expectedDocument = expected.get(i);
+            Document actualDocument = actual.get(i);
+            assertEquals(expectedDocument.getClassificationClasses(), actualDocument.getClassificationClasses());
+            assertArrayEquals(expectedDocument.getFeatures().getIndices(), actualDocument.getFeatures().getIndices());
+            assertArrayEquals(expectedDocument.getFeatures().getValues(), actualDocument.getFeatures().getValues(), 1e-12);
+        }
+    }
+
+    /**
+     * Classifies given text by the model of given application, the way classified input is.
+     *
+     * @param app     application with a model
+     * @param content classified text
+     * @return prediction of the text
+     */
+    private static Prediction predict(DocumentClassifierApp app, String content) {
+        Vocabulary vocabulary = app.getVocabulary();
+        IFeatureAlgorithm featureAlgorithm = app.getFeatureAlgorithm();
+        IClassifier classifier = app.getClassifier();
+
+        Document document = new Document();
+        document.setContent(content);
+        document.setTerms(new Tokenizer().lookup(content, vocabulary));
+        featureAlgorithm.createFeatures(document);
+        return classifier.predictDocument(document);
+    }
+}
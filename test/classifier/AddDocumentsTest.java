@@ -0,0 +1,165 @@
+package classifier;
+
+import feature.TFIDF;
+import feature.TermFrequency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests that adding documents to a trained model gives the same model as training it on all the documents.
+ * Models are trained on a part of the bundled training set and the rest of it is added, so the added documents
+ * have terms the trained documents do not have. Run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class AddDocumentsTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * File with bundled classification classes.
+     */
+    private static final String CLASSIFICATION_CLASSES = "classes.txt";
+
+    /**
+     * Number of documents of the training set the model is trained on before the rest is added.
+     */
+    private static final int NUM_OF_TRAINED = 300;
+
+    /**
+     * Vocabulary of all loaded documents.
+     */
+    private Vocabulary vocabulary;
+
+    /**
+     * Available classification classes.
+     */
+    private List<ClassificationClass> classificationClasses;
+
+    /**
+     * Documents the model is trained on.
+     */
+    private List<Document> trained;
+
+    /**
+     * Documents added to the trained model.
+     */
+    private List<Document> added;
+
+    /**
+     * Documents of both {@link #trained} and {@link #added}.
+     */
+    private List<Document> all;
+
+    /**
+     * Documents classified by the models.
+     */
+    private List<Document> testingSet;
+
+    /**
+     * Loads bundled data sets and creates term frequencies of their documents.
+     */
+    @BeforeEach
+    void loadDataSets() {
+        vocabulary = new Vocabulary();
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        classificationClasses = fileLoader.loadClassificationClasses(CLASSIFICATION_CLASSES);
+        all = fileLoader.loadDataSet(TRAINING_SET);
+        testingSet = fileLoader.loadDataSet(TESTING_SET);
+        trained = new ArrayList<>(all.subList(0, NUM_OF_TRAINED));
+        added = new ArrayList<>(all.subList(NUM_OF_TRAINED, all.size()));
+
+        TermFrequency termFrequency = new TermFrequency();
+        for (Document document : all) {
+            termFrequency.createFeatures(document);
+        }
+        for (Document document : testingSet) {
+            termFrequency.createFeatures(document);
+        }
+    }
+
+    /**
+     * Naive Bayes with added documents has the statistics and predictions of Naive Bayes trained on all documents.
+     */
+    @Test
+    void naiveBayesWithAddedDocumentsEqualsRetrained() {
+        NaiveBayesClassifier updated = new NaiveBayesClassifier(trained, classificationClasses);
+        updated.train();
+        updated.addDocuments(added);
+        NaiveBayesClassifier retrained = new NaiveBayesClassifier(all, classificationClasses);
+        retrained.train();
+
+        assertEquals(retrained.getNumOfDocuments(), updated.getNumOfDocuments());
+        assertEquals(retrained.getTotalUniqueWords(), updated.getTotalUniqueWords());
+        assertEquals(retrained.getDocumentsInClass(), updated.getDocumentsInClass());
+        for (ClassificationClass classificationClass : classificationClasses) {
+            String className = classificationClass.getName();
+            assertEquals(retrained.getTotalWordsInClass().get(className), updated.getTotalWordsInClass().get(className), 1e-9);
+            assertArrayEquals(retrained.getTermCountsInClass().get(className).getIndices(),
+                    updated.getTermCountsInClass().get(className).getIndices());
+            assertArrayEquals(retrained.getTermCountsInClass().get(className).getValues(),
+                    updated.getTermCountsInClass().get(className).getValues(), 1e-9);
+        }
+        assertSameClasses(retrained, updated);
+    }
+
+    /**
+     * KNN with added documents classifies the same as KNN trained on all documents.
+     */
+    @Test
+    void knnWithAddedDocumentsEqualsRetrained() {
+        KNN updated = new KNN(trained, 5);
+        updated.addDocuments(added);
+        KNN retrained = new KNN(all, 5);
+
+        assertSameClasses(retrained, updated);
+    }
+
+    /**
+     * TF-IDF with added documents has the document frequencies of TF-IDF of all documents.
+     */
+    @Test
+    void tfidfWithAddedDocumentsEqualsRetrained() {
+        TFIDF updated = new TFIDF(trained);
+        updated.addDocuments(added);
+        TFIDF retrained = new TFIDF(all);
+
+        assertEquals(retrained.getNumOfDocuments(), updated.getNumOfDocuments());
+        for (int term = 0; term < vocabulary.size(); term++) {
+            assertEquals(retrained.getTermOccurence(term), updated.getTermOccurence(term), "term " + term);
+        }
+    }
+
+    /**
+     * Asserts that given classifiers give the same classes to every document of the testing set.
+     *
+     * @param expected classifier giving the expected classes
+     * @param actual   tested classifier
+     */
+    private void assertSameClasses(IClassifier expected, IClassifier actual) {
+        for (int i = 0; i < testingSet.size(); i++) {
+            List<ClassificationClass> expectedClasses = expected.classifyDocument(testingSet.get(i));
+            assertNotNull(expectedClasses, "document " + i);
+            assertEquals(expectedClasses, actual.classifyDocument(testingSet.get(i)), "document " + i);
+        }
+    }
+}
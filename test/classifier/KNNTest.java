@@ -0,0 +1,60 @@
+package classifier;
+
+import feature.TFIDF;
+import org.junit.jupiter.api.Test;
+import utils.ClassificationClass;
+import utils.Document;
+import utils.FileLoader;
+import utils.Vocabulary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link KNN} on the bundled data sets, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class KNNTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * Documents classified at once get the same classes as documents classified one by one.
+     */
+    @Test
+    void batchClassificationEqualsSingleDocumentClassification() {
+        FileLoader fileLoader = new FileLoader(new Vocabulary());
+        List<Document> trainingSet = fileLoader.loadDataSet(TRAINING_SET);
+        List<Document> testingSet = new ArrayList<>(fileLoader.loadDataSet(TESTING_SET));
+        // a document without terms has no neighbours
+        Document empty = new Document();
+        empty.setTerms(new int[0]);
+        testingSet.add(testingSet.size() / 2, empty);
+
+        TFIDF tfidf = new TFIDF(trainingSet);
+        for (Document document : trainingSet) {
+            tfidf.createFeatures(document);
+        }
+        for (Document document : testingSet) {
+            tfidf.createFeatures(document);
+        }
+        KNN knn = new KNN(trainingSet, 5);
+
+        List<List<ClassificationClass>> classes = knn.classifyDocuments(testingSet);
+        assertEquals(testingSet.size(), classes.size());
+        for (int i = 0; i < testingSet.size(); i++) {
+            assertEquals(knn.classifyDocument(testingSet.get(i)), classes.get(i), "document " + i);
+        }
+    }
+}
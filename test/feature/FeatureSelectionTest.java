@@ -0,0 +1,75 @@
+package feature;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import utils.Document;
+import utils.TermNormalizer;
+import utils.Tokenizer;
+import utils.Vocabulary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Tests of {@link FeatureSelection}.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class FeatureSelectionTest {
+
+    /**
+     * Texts of the training documents.
+     */
+    private static final String[] TEXTS = {
+            "Vláda schválila rozpočet na příští rok.",
+            "Rozpočet města schválila rada, vláda mlčí.",
+            "Příští rok bude rozpočet vyrovnaný."
+    };
+
+    /**
+     * Folder with the file of stop words.
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * Stop words are normalized the same way as terms of documents, so they are removed from the vocabulary
+     * even when written in other case or with diacritics.
+     *
+     * @param normalization name of normalizer of the vocabulary
+     * @throws IOException thrown when the file of stop words cannot be written
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {TermNormalizer.FOLDING, TermNormalizer.STEMMING})
+    void removesNormalizedStopWords(String normalization) throws IOException {
+        Path stopWordsFile = folder.resolve("stopwords.txt");
+        Files.write(stopWordsFile, List.of("VLÁDA", "Rozpočet"), StandardCharsets.UTF_8);
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.setNormalizer(TermNormalizer.forName(normalization));
+        Tokenizer tokenizer = new Tokenizer();
+        List<Document> trainingSet = new ArrayList<>();
+        for (String text : TEXTS) {
+            Document document = new Document();
+            document.setTerms(tokenizer.tokenize(text, vocabulary));
+            document.setClassificationClasses(new ArrayList<>());
+            trainingSet.add(document);
+        }
+
+        FeatureSelection selection = FeatureSelection.parse(
+                List.of(FeatureSelection.OPTION_PREFIX + FeatureSelection.STOP_WORDS_OPTION + "=" + stopWordsFile));
+        assertNotNull(selection);
+        Vocabulary prunedVocabulary = selection.select(trainingSet, vocabulary, new ArrayList<>());
+
+        assertEquals(vocabulary.size() - 2, prunedVocabulary.size());
+        assertEquals(0, tokenizer.lookup("vláda rozpočet", prunedVocabulary).length);
+        assertEquals(2, tokenizer.lookup("schválila rok", prunedVocabulary).length);
+    }
+}
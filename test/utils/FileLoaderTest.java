@@ -0,0 +1,64 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that documents loaded by {@link FileLoader} in parallel get the terms tokenizing them one by one gives.
+ * Documents are loaded from the bundled training set, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class FileLoaderTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Terms are interned in order of the documents, whichever thread reads them, and normalized once.
+     */
+    @Test
+    void loadedDocumentsHaveTermsOfSequentialTokenizing() {
+        for (String normalization : new String[]{"", TermNormalizer.FOLDING, TermNormalizer.STEMMING}) {
+            Vocabulary vocabulary = new Vocabulary();
+            vocabulary.setNormalizer(TermNormalizer.forName(normalization));
+            List<Document> documents = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+
+            Vocabulary sequentialVocabulary = new Vocabulary();
+            sequentialVocabulary.setNormalizer(TermNormalizer.forName(normalization));
+            Tokenizer tokenizer = new Tokenizer();
+            for (Document document : documents) {
+                assertArrayEquals(tokenizer.tokenize(document.getContent(), sequentialVocabulary), document.getTerms());
+            }
+            assertEquals(sequentialVocabulary.size(), vocabulary.size());
+            for (int id = 0; id < vocabulary.size(); id++) {
+                assertEquals(sequentialVocabulary.getTerm(id), vocabulary.getTerm(id));
+            }
+        }
+    }
+
+    /**
+     * Terms missing from a pruned vocabulary are removed from loaded documents and the vocabulary does not grow.
+     */
+    @Test
+    void loadedDocumentsHaveOnlyTermsOfPrunedVocabulary() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern("vláda");
+        vocabulary.intern("rozpočet");
+        vocabulary.intern("praha");
+        vocabulary.setPruned(true);
+        List<Document> documents = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+
+        Tokenizer tokenizer = new Tokenizer();
+        for (Document document : documents) {
+            assertArrayEquals(tokenizer.tokenize(document.getContent(), vocabulary), document.getTerms());
+        }
+        assertEquals(3, vocabulary.size());
+    }
+}
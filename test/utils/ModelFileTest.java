@@ -0,0 +1,292 @@
+package utils;
+
+import classifier.ApproximateKNN;
+import classifier.NaiveBayesClassifier;
+import feature.TFIDF;
+import feature.TermHashing;
+import feature.TermFrequency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a model saved by {@link FileSaver} is loaded by {@link FileLoader} with the same content. Models
+ * are trained on the bundled training set, run from the folder of the project.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class ModelFileTest {
+
+    /**
+     * Folder with bundled training set.
+     */
+    private static final String TRAINING_SET = "Train";
+
+    /**
+     * Folder with bundled testing set.
+     */
+    private static final String TESTING_SET = "Test";
+
+    /**
+     * File with bundled classification classes.
+     */
+    private static final String CLASSIFICATION_CLASSES = "classes.txt";
+
+    /**
+     * Folder the models are saved to.
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * Training documents are mapped from the model file with their classes and features, vocabulary and document
+     * frequencies are loaded with the same IDs of terms.
+     */
+    @Test
+    void loadedModelHasSavedDocumentsAndVocabulary() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.setNormalizer(TermNormalizer.forName(TermNormalizer.STEMMING));
+        List<Document> trainingSet = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+        TFIDF tfidf = new TFIDF(trainingSet);
+        for (Document document : trainingSet) {
+            tfidf.createFeatures(document);
+        }
+
+        Model model = newModel("knn", vocabulary, "tfidf", "knn");
+        model.setTrainingSet(trainingSet);
+        model.setNeighbours(5);
+        model.setNumOfFrequencyDocuments(tfidf.getNumOfDocuments());
+        model.setDocumentFrequencies(tfidf.getDocumentFrequencies());
+        new FileSaver().saveModel(model);
+
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+        assertEquals("tfidf", loaded.getFeatureAlgorithm());
+        assertEquals("knn", loaded.getClassifier());
+        assertEquals(5, loaded.getNeighbours());
+        assertEquals(TermNormalizer.STEMMING, loaded.getNormalization());
+
+        Vocabulary loadedVocabulary = loaded.getVocabulary();
+        assertEquals(vocabulary.size(), loadedVocabulary.size());
+        for (int id = 0; id < vocabulary.size(); id++) {
+            assertEquals(vocabulary.getTerm(id), loadedVocabulary.getTerm(id));
+        }
+        // terms of vocabulary are normalized already, texts are normalized when they are looked up
+        Tokenizer tokenizer = new Tokenizer();
+        for (Document document : new FileLoader(new Vocabulary()).loadDataSet(TESTING_SET)) {
+            assertArrayEquals(tokenizer.lookup(document.getContent(), vocabulary),
+                    tokenizer.lookup(document.getContent(), loadedVocabulary));
+        }
+        assertEquals(tfidf.getNumOfDocuments(), loaded.getNumOfFrequencyDocuments());
+        assertArrayEquals(tfidf.getDocumentFrequencies(), loaded.getDocumentFrequencies());
+
+        List<Document> loadedTrainingSet = loaded.getTrainingSet();
+        assertInstanceOf(MappedTrainingSet.class, loadedTrainingSet);
+        assertEquals(trainingSet.size(), loadedTrainingSet.size());
+        for (int i = 0; i < trainingSet.size(); i++) {
+            Document document = trainingSet.get(i);
+            Document loadedDocument = loadedTrainingSet.get(i);
+            assertEquals(document.getClassificationClasses(), loadedDocument.getClassificationClasses());
+            assertArrayEquals(document.getFeatures().getIndices(), loadedDocument.getFeatures().getIndices());
+            assertArrayEquals(document.getFeatures().getValues(), loadedDocument.getFeatures().getValues());
+            // terms are not saved, documents are decoded again on every access
+            assertNull(loadedDocument.getTerms());
+            assertNotSame(loadedDocument, loadedTrainingSet.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> loadedTrainingSet.get(trainingSet.size()));
+    }
+
+    /**
+     * Model saved over the file it was loaded from replaces the file, the loaded model keeps its mapped documents.
+     */
+    @Test
+    void savedModelReplacesLoadedModelFile() throws IOException {
+        Vocabulary vocabulary = new Vocabulary();
+        List<Document> trainingSet = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+        new TermFrequency().createFeatures(trainingSet);
+
+        Model model = newModel("knn", vocabulary, "tf", "knn");
+        model.setTrainingSet(trainingSet.subList(0, 10));
+        model.setNeighbours(1);
+        assertTrue(new FileSaver().saveModel(model));
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+
+        model.setTrainingSet(trainingSet);
+        assertTrue(new FileSaver().saveModel(model));
+        assertEquals(10, loaded.getTrainingSet().size());
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(trainingSet.get(i).getFeatures().getValues(),
+                    loaded.getTrainingSet().get(i).getFeatures().getValues());
+        }
+        Model reloaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(reloaded);
+        assertEquals(trainingSet.size(), reloaded.getTrainingSet().size());
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(List.of(folder.resolve("knn" + ModelOperator.MODEL_FILE_EXTENSION)), files.toList());
+        }
+    }
+
+    /**
+     * Graph of approximate KNN is loaded with the same neighbours of every document in every layer.
+     */
+    @Test
+    void loadedModelHasSavedGraph() {
+        Vocabulary vocabulary = new Vocabulary();
+        List<Document> trainingSet = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+        TermFrequency termFrequency = new TermFrequency();
+        for (Document document : trainingSet) {
+            termFrequency.createFeatures(document);
+        }
+        ApproximateKNN approximateKNN = new ApproximateKNN(trainingSet, 5, ApproximateKNN.DEFAULT_MAX_CONNECTIONS,
+                ApproximateKNN.DEFAULT_EF_CONSTRUCTION, ApproximateKNN.DEFAULT_EF_SEARCH);
+
+        Model model = newModel("hnsw", vocabulary, "tf", "hnsw");
+        model.setTrainingSet(trainingSet);
+        model.setNeighbours(5);
+        model.setMaxConnections(approximateKNN.getMaxConnections());
+        model.setEfConstruction(approximateKNN.getEfConstruction());
+        model.setEfSearch(approximateKNN.getEfSearch());
+        model.setGraph(approximateKNN.getGraph());
+        new FileSaver().saveModel(model);
+
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+        assertEquals(approximateKNN.getMaxConnections(), loaded.getMaxConnections());
+        assertEquals(approximateKNN.getEfConstruction(), loaded.getEfConstruction());
+        assertEquals(approximateKNN.getEfSearch(), loaded.getEfSearch());
+        int[][][] graph = approximateKNN.getGraph();
+        assertEquals(graph.length, loaded.getGraph().length);
+        for (int i = 0; i < graph.length; i++) {
+            assertArrayEquals(graph[i], loaded.getGraph()[i], "document " + i);
+        }
+    }
+
+    /**
+     * Statistics of Naive Bayes are loaded as they were saved, without any training documents.
+     */
+    @Test
+    void loadedModelHasSavedClassStatistics() {
+        Vocabulary vocabulary = new Vocabulary();
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        List<ClassificationClass> classificationClasses = fileLoader.loadClassificationClasses(CLASSIFICATION_CLASSES);
+        List<Document> trainingSet = fileLoader.loadDataSet(TRAINING_SET);
+        TermFrequency termFrequency = new TermFrequency();
+        for (Document document : trainingSet) {
+            termFrequency.createFeatures(document);
+        }
+        NaiveBayesClassifier bayes = new NaiveBayesClassifier(trainingSet, classificationClasses);
+        bayes.train();
+
+        Model model = newModel("bayes", vocabulary, "tf", "bayes");
+        model.setTrainingSet(new ArrayList<>());
+        model.setTotalUniqueWords(bayes.getTotalUniqueWords());
+        model.setTotalWordsInClass(bayes.getTotalWordsInClass());
+        model.setTermCountsInClass(bayes.getTermCountsInClass());
+        model.setDocumentsInClass(bayes.getDocumentsInClass());
+        model.setNumOfTrainingDocuments(bayes.getNumOfDocuments());
+        new FileSaver().saveModel(model);
+
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+        assertTrue(loaded.getTrainingSet().isEmpty());
+        assertEquals(bayes.getTotalUniqueWords(), loaded.getTotalUniqueWords());
+        assertEquals(bayes.getNumOfDocuments(), loaded.getNumOfTrainingDocuments());
+        assertEquals(bayes.getDocumentsInClass(), loaded.getDocumentsInClass());
+        for (ClassificationClass classificationClass : classificationClasses) {
+            String className = classificationClass.getName();
+            assertEquals(bayes.getTotalWordsInClass().get(className), loaded.getTotalWordsInClass().get(className));
+            assertArrayEquals(bayes.getTermCountsInClass().get(className).getIndices(),
+                    loaded.getTermCountsInClass().get(className).getIndices());
+            assertArrayEquals(bayes.getTermCountsInClass().get(className).getValues(),
+                    loaded.getTermCountsInClass().get(className).getValues());
+        }
+    }
+
+    /**
+     * Number of documents of the document frequencies and number of training documents of Naive Bayes are saved
+     * and loaded each in its own section, so they stay different when the statistics were counted from fewer
+     * documents than the frequencies.
+     */
+    @Test
+    void loadedModelHasSeparateNumbersOfDocuments() {
+        Vocabulary vocabulary = new Vocabulary();
+        FileLoader fileLoader = new FileLoader(vocabulary);
+        List<ClassificationClass> classificationClasses = fileLoader.loadClassificationClasses(CLASSIFICATION_CLASSES);
+        List<Document> trainingSet = fileLoader.loadDataSet(TRAINING_SET);
+        TFIDF tfidf = new TFIDF(trainingSet);
+        tfidf.createFeatures(trainingSet);
+        NaiveBayesClassifier bayes = new NaiveBayesClassifier(trainingSet.subList(0, 100), classificationClasses);
+
+        Model model = newModel("tfidf-bayes", vocabulary, "tfidf", "bayes");
+        model.setTrainingSet(new ArrayList<>());
+        model.setNumOfFrequencyDocuments(tfidf.getNumOfDocuments());
+        model.setDocumentFrequencies(tfidf.getDocumentFrequencies());
+        model.setTotalUniqueWords(bayes.getTotalUniqueWords());
+        model.setTotalWordsInClass(bayes.getTotalWordsInClass());
+        model.setTermCountsInClass(bayes.getTermCountsInClass());
+        model.setDocumentsInClass(bayes.getDocumentsInClass());
+        model.setNumOfTrainingDocuments(bayes.getNumOfDocuments());
+        assertTrue(new FileSaver().saveModel(model));
+
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+        assertEquals(trainingSet.size(), loaded.getNumOfFrequencyDocuments());
+        assertEquals(100, loaded.getNumOfTrainingDocuments());
+    }
+
+    /**
+     * Hashing vocabulary is saved as its number of features only.
+     */
+    @Test
+    void loadedModelHasSavedHashingVocabulary() {
+        Vocabulary vocabulary = Vocabulary.hashing(1 << 12);
+        List<Document> trainingSet = new FileLoader(vocabulary).loadDataSet(TRAINING_SET);
+        new TermHashing().createFeatures(trainingSet);
+
+        Model model = newModel("hashing", vocabulary, "hashing", "knn");
+        model.setTrainingSet(trainingSet);
+        model.setNeighbours(1);
+        new FileSaver().saveModel(model);
+
+        Model loaded = new FileLoader().loadModel(model.getName());
+        assertNotNull(loaded);
+        assertEquals(1 << 12, loaded.getVocabulary().getNumOfHashedFeatures());
+        assertEquals(0, loaded.getVocabulary().size());
+        assertEquals(vocabulary.getId("rozpočet"), loaded.getVocabulary().getId("rozpočet"));
+    }
+
+    /**
+     * Creates model with given name in the test folder.
+     *
+     * @param name             name of the model file
+     * @param vocabulary       vocabulary of the model
+     * @param featureAlgorithm name of feature algorithm
+     * @param classifier       name of classifier
+     * @return created model
+     */
+    private Model newModel(String name, Vocabulary vocabulary, String featureAlgorithm, String classifier) {
+        Model model = new Model(folder.resolve(name).toString());
+        model.setVocabulary(vocabulary);
+        model.setFeatureAlgorithm(featureAlgorithm);
+        model.setClassifier(classifier);
+        model.setClassificationClassesFile(CLASSIFICATION_CLASSES);
+        model.setNormalization(vocabulary.getNormalizer() == null ? "" : vocabulary.getNormalizer().getName());
+        return model;
+    }
+}
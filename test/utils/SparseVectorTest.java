@@ -0,0 +1,132 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of {@link SparseVector}.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class SparseVectorTest {
+
+    /**
+     * Number of terms of randomly generated vectors.
+     */
+    private static final int NUM_OF_TERMS = 200;
+
+    /**
+     * Counting terms gives sorted unique terms with their numbers of occurrences.
+     */
+    @Test
+    void countTermsCountsOccurrences() {
+        SparseVector counts = SparseVector.countTerms(new int[]{7, 2, 7, 0, 2, 7});
+
+        assertArrayEquals(new int[]{0, 2, 7}, counts.getIndices());
+        assertArrayEquals(new double[]{1, 2, 3}, counts.getValues());
+        assertEquals(3, counts.get(7));
+        assertEquals(0, counts.get(5));
+        assertEquals(0, SparseVector.countTerms(new int[0]).size());
+    }
+
+    /**
+     * Dot product of sparse vectors equals the dot product of the same dense vectors.
+     */
+    @Test
+    void dotOfSparseVectorsEqualsDenseDot() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            double[] first = randomDense(random);
+            double[] second = randomDense(random);
+
+            double expected = 0;
+            for (int term = 0; term < NUM_OF_TERMS; term++) {
+                expected += first[term] * second[term];
+            }
+            assertEquals(expected, toSparse(first).dot(toSparse(second)), 1e-9);
+            assertEquals(expected, toSparse(second).dot(toSparse(first)), 1e-9);
+            assertEquals(expected, toSparse(first).dot(second), 1e-9);
+        }
+    }
+
+    /**
+     * Terms outside of a dense vector count as zero in the dot product.
+     */
+    @Test
+    void dotWithShorterDenseVectorIgnoresTermsOutsideOfIt() {
+        SparseVector vector = new SparseVector(new int[]{1, 3, 10}, new double[]{2, 3, 5});
+
+        assertEquals(2 * 4 + 3 * 1, vector.dot(new double[]{0, 4, 0, 1}), 1e-12);
+        assertEquals(0, vector.dot(new double[0]));
+        assertEquals(0, vector.dot(SparseVector.EMPTY));
+    }
+
+    /**
+     * Norm of a vector is its Euclidean length.
+     */
+    @Test
+    void normIsEuclideanLength() {
+        assertEquals(5, new SparseVector(new int[]{0, 4}, new double[]{3, -4}).getNorm(), 1e-12);
+        assertEquals(0, SparseVector.EMPTY.getNorm());
+
+        Random random = new Random(2);
+        SparseVector vector = toSparse(randomDense(random));
+        assertEquals(Math.sqrt(vector.dot(vector)), vector.getNorm(), 1e-9);
+    }
+
+    /**
+     * Vectors with unsorted indices or with values not matching the indices are rejected.
+     */
+    @Test
+    void rejectsInvalidIndices() {
+        assertThrows(IllegalArgumentException.class, () -> new SparseVector(new int[]{2, 1}, new double[]{1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new SparseVector(new int[]{1, 1}, new double[]{1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> new SparseVector(new int[]{1}, new double[]{1, 1}));
+    }
+
+    /**
+     * Generates dense vector with about a third of its terms non-zero.
+     *
+     * @param random random generator
+     * @return generated vector
+     */
+    private static double[] randomDense(Random random) {
+        double[] dense = new double[NUM_OF_TERMS];
+        for (int term = 0; term < NUM_OF_TERMS; term++) {
+            if (random.nextInt(3) == 0) {
+                dense[term] = random.nextGaussian();
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Converts dense vector to sparse vector of its non-zero terms.
+     *
+     * @param dense dense vector
+     * @return sparse vector with the same values
+     */
+    private static SparseVector toSparse(double[] dense) {
+        int size = 0;
+        for (double value : dense) {
+            if (value != 0) {
+                size++;
+            }
+        }
+        int[] indices = new int[size];
+        double[] values = new double[size];
+        size = 0;
+        for (int term = 0; term < dense.length; term++) {
+            if (dense[term] != 0) {
+                indices[size] = term;
+                values[size++] = dense[term];
+            }
+        }
+        return new SparseVector(indices, values);
+    }
+}
@@ -0,0 +1,143 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link Tokenizer} and of IDs it gets from {@link Vocabulary}.
+ *
+ * @author <a href=mailto:markovd@students.zcu.cz>David Markov</a>
+ */
+class TokenizerTest {
+
+    /**
+     * Tokenized text, with case, punctuation, digits and diacritics.
+     */
+    private static final String TEXT = "Vláda schválila  rozpočet.\nRozpočet vlády: 12 miliard, vláda-2024!";
+
+    /**
+     * Terms are lowercase letters split by whitespace, other characters are skipped.
+     */
+    @Test
+    void splitsTextIntoLowercaseTerms() {
+        assertEquals(List.of("vláda", "schválila", "rozpočet", "rozpočet", "vlády", "miliard", "vláda"), terms(TEXT));
+    }
+
+    /**
+     * IDs given when interning the text are the IDs vocabulary gives to its terms.
+     */
+    @Test
+    void tokenizeGivesVocabularyIds() {
+        Vocabulary vocabulary = new Vocabulary();
+        int[] ids = new Tokenizer().tokenize(TEXT, vocabulary);
+
+        List<String> terms = terms(TEXT);
+        assertEquals(terms.size(), ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(vocabulary.getId(terms.get(i)), ids[i]);
+            assertEquals(terms.get(i), vocabulary.getTerm(ids[i]));
+        }
+        assertEquals(5, vocabulary.size());
+    }
+
+    /**
+     * Looking the text up gives the same IDs as interning it and does not change the vocabulary.
+     */
+    @Test
+    void lookupGivesInternedIds() {
+        Vocabulary vocabulary = new Vocabulary();
+        int[] interned = new Tokenizer().tokenize(TEXT, vocabulary);
+
+        assertArrayEquals(interned, new Tokenizer().lookup(TEXT, vocabulary));
+        assertEquals(5, vocabulary.size());
+    }
+
+    /**
+     * Terms missing from vocabulary get IDs following the IDs of vocabulary, the same term the same ID.
+     */
+    @Test
+    void lookupGivesUnknownTermsIdsAfterVocabulary() {
+        Vocabulary vocabulary = new Vocabulary();
+        new Tokenizer().tokenize("vláda rozpočet", vocabulary);
+
+        int[] ids = new Tokenizer().lookup("vláda opera rozpočet opera balet", vocabulary);
+
+        assertEquals(5, ids.length);
+        assertEquals(vocabulary.getId("vláda"), ids[0]);
+        assertEquals(vocabulary.getId("rozpočet"), ids[2]);
+        assertTrue(ids[1] >= vocabulary.size());
+        assertTrue(ids[4] >= vocabulary.size());
+        assertEquals(ids[1], ids[3]);
+        assertNotEquals(ids[1], ids[4]);
+        assertEquals(2, vocabulary.size());
+    }
+
+    /**
+     * Terms missing from pruned vocabulary are removed, both when interning and when looking up.
+     */
+    @Test
+    void prunedVocabularyRemovesUnknownTerms() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern("vláda");
+        vocabulary.intern("rozpočet");
+        vocabulary.setPruned(true);
+
+        int[] expected = {vocabulary.getId("vláda"), vocabulary.getId("rozpočet"), vocabulary.getId("vláda")};
+        assertArrayEquals(expected, new Tokenizer().tokenize("vláda schválila rozpočet, vláda", vocabulary));
+        assertArrayEquals(expected, new Tokenizer().lookup("vláda schválila rozpočet, vláda", vocabulary));
+        assertEquals(2, vocabulary.size());
+    }
+
+    /**
+     * Terms are normalized by the normalizer of vocabulary, so forms of one term share its ID.
+     */
+    @Test
+    void normalizedVocabularyGivesFormsOfTermOneId() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.setNormalizer(TermNormalizer.forName(TermNormalizer.FOLDING));
+        int[] ids = new Tokenizer().tokenize("vláda Vlada VLÁDA", vocabulary);
+
+        assertEquals(1, vocabulary.size());
+        assertArrayEquals(new int[]{ids[0], ids[0], ids[0]}, ids);
+        assertEquals(ids[0], vocabulary.getId("vlada"));
+        assertEquals(ids[0], vocabulary.getId("vláda"));
+        assertArrayEquals(ids, new Tokenizer().lookup("vlada vláda vláda", vocabulary));
+    }
+
+    /**
+     * Hashing vocabulary gives IDs of features within its number of features, keeps no terms and accepts only
+     * powers of two.
+     */
+    @Test
+    void hashingVocabularyGivesFeaturesWithinItsSize() {
+        Vocabulary vocabulary = Vocabulary.hashing(64);
+        for (int id : new Tokenizer().tokenize(TEXT + " banka divadlo zápas branka koncert úvěr", vocabulary)) {
+            assertTrue(Vocabulary.getFeature(id) >= 0 && Vocabulary.getFeature(id) < 64);
+        }
+        assertEquals(0, vocabulary.size());
+
+        assertThrows(IllegalArgumentException.class, () -> Vocabulary.hashing(0));
+        assertThrows(IllegalArgumentException.class, () -> Vocabulary.hashing(1000));
+        assertThrows(IllegalArgumentException.class, () -> Vocabulary.hashing(-64));
+    }
+
+    /**
+     * Returns terms of given text found by tokenizer.
+     *
+     * @param text tokenized text
+     * @return terms in order of their occurrence
+     */
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        new Tokenizer().tokenize(text, (buffer, length) -> terms.add(new String(buffer, 0, length)));
+        return terms;
+    }
+}